@@ -1,8 +1,8 @@
 package com.koyta.auth.config;
 import com.koyta.auth.entities.Role;
 import com.koyta.auth.entities.User;
-import com.koyta.auth.repositories.RoleRepository;
 import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.security.RoleRegistry;
 import com.koyta.auth.util.AppConstants;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.ApplicationArguments;
@@ -16,15 +16,14 @@ import java.util.Set;
 @RequiredArgsConstructor
 public class DataInitializer implements ApplicationRunner {
 
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
 
     @Override
     public void run(ApplicationArguments args) {
 
-        Role adminRole = roleRepository.findByName(AppConstants.ADMIN)
-                .orElseGet(() -> roleRepository.save(new Role(null, AppConstants.ADMIN)));
+        Role adminRole = roleRegistry.require(AppConstants.ADMIN);
 
         boolean adminExists = userRepository.existsByRoles_Name(AppConstants.ADMIN);
 
@@ -0,0 +1,142 @@
+package com.koyta.auth.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps how many threads use the database at once, see {@link VirtualThreadProperties}. A permit is taken before a
+ * connection is borrowed from the pool and given back when the connection is closed, so it covers the whole time the
+ * connection is held.
+ */
+@Slf4j
+public class DatabaseAccessLimiter implements MeterBinder {
+
+    private final Semaphore permits;
+
+    private final int maxPermits;
+
+    private final Duration acquireTimeout;
+
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public DatabaseAccessLimiter(int maxPermits, Duration acquireTimeout) {
+        this.permits = new Semaphore(maxPermits, true);
+        this.maxPermits = maxPermits;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    /**
+     * Returns {@code dataSource} with connections handed out only under a permit.
+     */
+    public DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return limited(() -> super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return limited(() -> super.getConnection(username, password));
+            }
+        };
+    }
+
+    private Connection limited(ConnectionSupplier supplier) throws SQLException {
+        acquire();
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLException | RuntimeException | Error ex) {
+            permits.release();
+            throw ex;
+        }
+        return releasingOnClose(connection);
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for database access", ex);
+        }
+        waitCount.increment();
+        waitNanos.add(System.nanoTime() - start);
+        if (!acquired) {
+            timeouts.increment();
+            log.warn("No database access within {}, {} threads waiting", acquireTimeout, permits.getQueueLength());
+            throw new SQLTransientConnectionException("Database access not available within " + acquireTimeout);
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    } finally {
+                        // closing twice is allowed and must not hand out a second permit
+                        if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                            permits.release();
+                        }
+                    }
+                });
+    }
+
+    public int available() {
+        return permits.availablePermits();
+    }
+
+    public int waiting() {
+        return permits.getQueueLength();
+    }
+
+    public long timeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.db.permits.available", this, DatabaseAccessLimiter::available)
+                .description("Database permits free, out of " + maxPermits)
+                .register(registry);
+        Gauge.builder("auth.db.permits.waiting", this, DatabaseAccessLimiter::waiting)
+                .description("Threads queued for a database permit")
+                .register(registry);
+        FunctionTimer.builder("auth.db.permits.wait", this,
+                        l -> l.waitCount.sum(), l -> l.waitNanos.sum(), TimeUnit.NANOSECONDS)
+                .register(registry);
+        FunctionCounter.builder("auth.db.permits.timeouts", timeouts, LongAdder::sum)
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
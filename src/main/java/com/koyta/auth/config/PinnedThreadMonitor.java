@@ -0,0 +1,77 @@
+package com.koyta.auth.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Counts virtual threads that blocked while pinned to their carrier, from the JFR {@code jdk.VirtualThreadPinned}
+ * event, and logs where it happened. On Java 21 blocking inside {@code synchronized} or a native frame pins; one such
+ * spot on a busy path serializes requests on the few carrier threads, so it is worth seeing in the metrics before it
+ * shows up as latency.
+ */
+@Slf4j
+public class PinnedThreadMonitor implements InitializingBean, DisposableBean, MeterBinder {
+
+    private static final String EVENT = "jdk.VirtualThreadPinned";
+
+    private static final int LOGGED_FRAMES = 8;
+
+    private final VirtualThreadProperties properties;
+
+    private final LongAdder pinned = new LongAdder();
+
+    private RecordingStream stream;
+
+    public PinnedThreadMonitor(VirtualThreadProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        stream = new RecordingStream();
+        stream.enable(EVENT).withThreshold(properties.pinnedThreshold()).withStackTrace();
+        stream.onEvent(EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    void onPinned(RecordedEvent event) {
+        pinned.increment();
+        if (log.isWarnEnabled()) {
+            List<RecordedFrame> frames = event.getStackTrace() == null ? List.of() : event.getStackTrace().getFrames();
+            log.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), frames.stream()
+                    .limit(LOGGED_FRAMES)
+                    .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                            + ":" + frame.getLineNumber())
+                    .collect(Collectors.joining(" <- ")));
+        }
+    }
+
+    public long pinnedCount() {
+        return pinned.sum();
+    }
+
+    @Override
+    public void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.virtual_threads.pinned", pinned, LongAdder::sum)
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .register(registry);
+    }
+}
@@ -1,14 +1,30 @@
 package com.koyta.auth.config;
 
-import org.modelmapper.ModelMapper;
+import com.koyta.auth.contract.ContractSchemaProperties;
+import com.koyta.auth.entities.EntityIdGenerator;
+import com.koyta.auth.security.JwtSigningProperties;
+import com.koyta.auth.security.LoginThrottleProperties;
+import com.koyta.auth.security.PasswordHashingProperties;
+import com.koyta.auth.security.RefreshTokenPurgeProperties;
+import com.koyta.auth.security.UserCacheProperties;
+import com.koyta.auth.util.IdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties({JwtSigningProperties.class, RefreshTokenPurgeProperties.class,
+        PasswordHashingProperties.class, LoginThrottleProperties.class, UserCacheProperties.class,
+        ContractSchemaProperties.class, VirtualThreadProperties.class})
 public class ProjectConfig {
 
     @Bean
-    public ModelMapper modelMapper(){
-        return new ModelMapper();
+    public IdGenerator idGenerator(@Value("${app.ids.strategy:uuid7}") String strategy) {
+        IdGenerator idGenerator = IdGenerator.of(strategy);
+        EntityIdGenerator.use(idGenerator);
+        return idGenerator;
     }
 }
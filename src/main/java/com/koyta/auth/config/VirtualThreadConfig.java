@@ -0,0 +1,45 @@
+package com.koyta.auth.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Extras for {@code spring.threads.virtual.enabled=true}, where Spring Boot already runs Tomcat requests and
+ * scheduled jobs on virtual threads: a cap on concurrent database access and pinning metrics, see
+ * {@link VirtualThreadProperties}. Password hashing stays on its bounded platform pool either way; it is CPU work,
+ * and a request waiting for it unmounts from its carrier.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public DatabaseAccessLimiter databaseAccessLimiter(VirtualThreadProperties properties,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        int permits = properties.dbPermits() > 0 ? properties.dbPermits() : poolSize;
+        return new DatabaseAccessLimiter(permits, properties.dbAcquireTimeout());
+    }
+
+    // static so that the data source is still post-processed, and the limiter is looked up only when it is wrapped
+    @Bean
+    public static BeanPostProcessor databaseAccessLimiterPostProcessor(ObjectProvider<DatabaseAccessLimiter> limiter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? limiter.getObject().wrap(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public PinnedThreadMonitor pinnedThreadMonitor(VirtualThreadProperties properties) {
+        return new PinnedThreadMonitor(properties);
+    }
+}
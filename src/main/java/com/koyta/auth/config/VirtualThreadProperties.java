@@ -0,0 +1,31 @@
+package com.koyta.auth.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Virtual-thread mode configuration under {@code app.virtual-threads}; the mode itself is switched on with
+ * {@code spring.threads.virtual.enabled}, which moves request handling and scheduled jobs onto virtual threads.
+ *
+ * <p>Virtual threads are cheap enough that a burst no longer queues in front of Tomcat but in front of the connection
+ * pool instead. At most {@code db-permits} threads hold or wait inside the pool for a connection, 0 meaning the Hikari
+ * {@code maximum-pool-size}; the rest wait in a fair queue for up to {@code db-acquire-timeout} and then fail as if the
+ * pool had timed out.
+ *
+ * <p>A virtual thread that blocks for {@code pinned-threshold} or longer while pinned to its carrier is counted and
+ * logged with its stack.
+ */
+@ConfigurationProperties(prefix = "app.virtual-threads")
+public record VirtualThreadProperties(
+        Integer dbPermits,
+        Duration dbAcquireTimeout,
+        Duration pinnedThreshold
+) {
+
+    public VirtualThreadProperties {
+        dbPermits = dbPermits == null ? 0 : dbPermits;
+        dbAcquireTimeout = dbAcquireTimeout == null ? Duration.ofSeconds(30) : dbAcquireTimeout;
+        pinnedThreshold = pinnedThreshold == null ? Duration.ofMillis(20) : pinnedThreshold;
+    }
+}
@@ -0,0 +1,23 @@
+package com.koyta.auth.config;
+
+import com.koyta.auth.contract.ValidatedJsonHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    // ahead of the regular Jackson converter, sharing its ObjectMapper so bound DTOs come out the same
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.stream()
+                .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+                .map(converter -> ((MappingJackson2HttpMessageConverter) converter).getObjectMapper())
+                .findFirst()
+                .ifPresent(objectMapper -> converters.add(0, new ValidatedJsonHttpMessageConverter(objectMapper)));
+    }
+}
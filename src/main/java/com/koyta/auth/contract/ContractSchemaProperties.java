@@ -0,0 +1,46 @@
+package com.koyta.auth.contract;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Contract validation configuration under {@code app.contracts}.
+ *
+ * <p>Every {@code *.schema.json} below {@code location} is compiled once at startup; a schema that does not parse or
+ * is not a valid draft-07 schema stops the application. With {@code hot-reload} on, the files are checked every
+ * {@code reload-interval} and recompiled when one changes; a broken edit is logged and the previous schemas stay in
+ * use. Point {@code location} at {@code file:src/main/resources/contracts/} to pick up edits without a rebuild.
+ *
+ * <p>Validated request bodies are buffered in memory, so they are capped at {@code max-request-body}; a larger body
+ * is answered with 413, before it is read when the client declares its length.
+ *
+ * <p>A {@code response-sample-rate} share of responses on routes with a response contract is checked against it on a
+ * background thread, from a copy of the body sent; at most {@code response-queue-capacity} checks wait, and further
+ * samples are dropped rather than queued. 0 turns response checks off.
+ */
+@ConfigurationProperties(prefix = "app.contracts")
+public record ContractSchemaProperties(
+        String location,
+        Boolean hotReload,
+        Duration reloadInterval,
+        DataSize maxRequestBody,
+        Double responseSampleRate,
+        Integer responseQueueCapacity
+) {
+
+    public ContractSchemaProperties {
+        location = location == null || location.isBlank() ? "classpath:contracts/" : location;
+        location = location.endsWith("/") ? location : location + "/";
+        hotReload = hotReload != null && hotReload;
+        reloadInterval = reloadInterval == null ? Duration.ofSeconds(2) : reloadInterval;
+        maxRequestBody = maxRequestBody == null ? DataSize.ofKilobytes(64) : maxRequestBody;
+        responseSampleRate = responseSampleRate == null ? 0.01 : Math.max(0, Math.min(1, responseSampleRate));
+        responseQueueCapacity = responseQueueCapacity == null ? 100 : responseQueueCapacity;
+    }
+
+    public int maxRequestBodyBytes() {
+        return (int) Math.min(maxRequestBody.toBytes(), Integer.MAX_VALUE - 8);
+    }
+}
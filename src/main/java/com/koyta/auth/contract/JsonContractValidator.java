@@ -1,50 +1,75 @@
 package com.koyta.auth.contract;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.koyta.auth.exceptions.ContractValidationException;
 import com.networknt.schema.JsonSchema;
-import com.networknt.schema.JsonSchemaFactory;
-import com.networknt.schema.SpecVersion;
 import com.networknt.schema.ValidationMessage;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 import java.util.Set;
 
 @Service
 public class JsonContractValidator {
 
     private final ObjectMapper mapper = new ObjectMapper();
-    private final JsonSchemaFactory schemaFactory =
-            JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
 
-    public void validate(String requestBody, String schemaPath) {
+    private final JsonSchemaRegistry schemaRegistry;
 
+    public JsonContractValidator(JsonSchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    public JsonNode validate(String requestBody, String schemaPath) {
+        return validate(requestBody.getBytes(StandardCharsets.UTF_8), schemaPath);
+    }
+
+    /**
+     * Parses {@code requestBody} and checks it against the schema at {@code schemaPath}, returning the parsed tree so
+     * the caller does not have to parse the body again.
+     */
+    public JsonNode validate(byte[] requestBody, String schemaPath) {
+
+        JsonNode jsonNode;
         try {
-            JsonNode jsonNode = mapper.readTree(requestBody);
+            jsonNode = mapper.readTree(requestBody);
+        } catch (IOException e) {
+            throw new ContractValidationException("Malformed JSON request");
+        }
 
-            JsonSchema schema = schemaFactory.getSchema(
-                    new ClassPathResource(schemaPath).getInputStream()
-            );
+        JsonSchema schema = loadSchema(schemaPath);
 
-            Set<ValidationMessage> errors = schema.validate(jsonNode);
+        long start = System.nanoTime();
+        Optional<String> error = firstError(schema, jsonNode);
+        schemaRegistry.record(schemaPath, System.nanoTime() - start, error.isEmpty());
 
-            if (!errors.isEmpty()) {
-                String message = errors.stream()
-                        .map(ValidationMessage::getMessage)
-                        .findFirst()
-                        .orElse("Invalid request payload");
+        error.ifPresent(message -> {
+            throw new ContractValidationException(message);
+        });
+        return jsonNode;
+    }
 
-                throw new ContractValidationException(message);
-            }
+    /**
+     * Returns the precompiled schema at {@code schemaPath}, for callers that validate many documents against it.
+     */
+    public JsonSchema loadSchema(String schemaPath) {
+        return schemaRegistry.schema(schemaPath);
+    }
 
-        } catch (JsonProcessingException e) {
-            throw new ContractValidationException("Malformed JSON request");
-        } catch (IOException e) {
-            throw new RuntimeException("Unable to load JSON schema");
+    /**
+     * Returns the first violation of {@code schema} in {@code jsonNode}, if any.
+     */
+    public Optional<String> firstError(JsonSchema schema, JsonNode jsonNode) {
+        Set<ValidationMessage> errors = schema.validate(jsonNode);
+        if (errors.isEmpty()) {
+            return Optional.empty();
         }
+        return Optional.of(errors.stream()
+                .map(ValidationMessage::getMessage)
+                .findFirst()
+                .orElse("Invalid request payload"));
     }
 }
@@ -0,0 +1,270 @@
+package com.koyta.auth.contract;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compiled contract schemas, see {@link ContractSchemaProperties}. Schemas are keyed by their path below the
+ * configured location with a {@code contracts/} prefix, e.g. {@code contracts/auth/login.schema.json}, so the keys
+ * match the classpath resources whatever the location.
+ *
+ * <p>Each file is checked against the draft-07 meta-schema and compiled once; compiled schemas are shared by every
+ * request thread. A reload compiles the whole directory before swapping it in, so lookups never see a partial set.
+ * Validation time is published per schema as {@code auth.contract.validation}.
+ */
+@Slf4j
+@Component
+public class JsonSchemaRegistry implements InitializingBean, MeterBinder {
+
+    static final String PREFIX = "contracts/";
+
+    static final String SUFFIX = ".schema.json";
+
+    // bundled with the validator
+    private static final String META_SCHEMA = "draft-07/schema";
+
+    private final ContractSchemaProperties properties;
+
+    private final ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+
+    private final JsonSchema metaSchema;
+
+    private volatile Loaded loaded = new Loaded(Map.of(), Map.of());
+
+    // modification times of the last reload attempt, so a broken edit is reported once
+    private Map<String, Long> lastAttempt = Map.of();
+
+    // serializes reloads; a lock rather than synchronized so a scheduler on virtual threads can read files unpinned
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry meterRegistry;
+
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder failedReloads = new LongAdder();
+
+    public JsonSchemaRegistry(ContractSchemaProperties properties) {
+        this.properties = properties;
+        try (InputStream in = new ClassPathResource(META_SCHEMA).getInputStream()) {
+            this.metaSchema = schemaFactory.getSchema(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to load the draft-07 meta-schema", e);
+        }
+    }
+
+    /**
+     * Compiles every schema, failing startup if any of them is invalid.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    /**
+     * Returns the compiled schema at {@code path}.
+     *
+     * @throws IllegalArgumentException if there is no such schema
+     */
+    public JsonSchema schema(String path) {
+        JsonSchema schema = loaded.schemas().get(path);
+        if (schema == null) {
+            throw new IllegalArgumentException("Unknown contract schema " + path);
+        }
+        return schema;
+    }
+
+    public Set<String> paths() {
+        return loaded.schemas().keySet();
+    }
+
+    /**
+     * Records one validation against the schema at {@code path}.
+     */
+    public void record(String path, long nanos, boolean valid) {
+        Stats stat = stats.computeIfAbsent(path, this::newStats);
+        stat.count().increment();
+        stat.nanos().add(nanos);
+        if (!valid) {
+            stat.failures().increment();
+        }
+    }
+
+    /**
+     * Compiles the schemas again and swaps them in.
+     *
+     * @throws IllegalStateException if a schema cannot be read or is invalid; the current schemas stay in use
+     */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            Map<String, Long> modified = modificationTimes();
+            lastAttempt = modified;
+            Map<String, JsonSchema> schemas = compileAll();
+            loaded = new Loaded(schemas, modified);
+            schemas.keySet().forEach(path -> stats.computeIfAbsent(path, this::newStats));
+            reloads.increment();
+            log.info("Compiled {} contract schemas from {}", schemas.size(), properties.location());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.contracts.reload-interval:PT2S}",
+            initialDelayString = "${app.contracts.reload-interval:PT2S}")
+    public void reloadIfChanged() {
+        if (!properties.hotReload()) {
+            return;
+        }
+        reloadLock.lock();
+        try {
+            if (!modificationTimes().equals(lastAttempt)) {
+                reload();
+            }
+        } catch (IllegalStateException | UncheckedIOException ex) {
+            failedReloads.increment();
+            log.warn("Contract schemas not reloaded, keeping the previous ones: {}", ex.getMessage());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private Map<String, JsonSchema> compileAll() {
+        Map<String, JsonSchema> schemas = new TreeMap<>();
+        List<String> errors = new ArrayList<>();
+        for (Map.Entry<String, Resource> entry : resources().entrySet()) {
+            try {
+                schemas.put(entry.getKey(), compile(entry.getValue()));
+            } catch (IOException | RuntimeException ex) {
+                errors.add(entry.getKey() + ": " + ex.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("Invalid contract schemas: " + String.join("; ", errors));
+        }
+        return Map.copyOf(schemas);
+    }
+
+    private JsonSchema compile(Resource resource) throws IOException {
+        JsonNode node;
+        try (InputStream in = resource.getInputStream()) {
+            node = mapper.readTree(in);
+        }
+        Set<ValidationMessage> problems = metaSchema.validate(node);
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException(problems.iterator().next().getMessage());
+        }
+        JsonSchema schema = schemaFactory.getSchema(node);
+        // builds every keyword validator now rather than on the first, possibly concurrent, request
+        schema.initializeValidators();
+        return schema;
+    }
+
+    private Map<String, Resource> resources() {
+        try {
+            String root = resolver.getResource(properties.location()).getURL().toString();
+            Map<String, Resource> resources = new TreeMap<>();
+            for (Resource resource : resolver.getResources(properties.location() + "**/*" + SUFFIX)) {
+                String url = resource.getURL().toString();
+                if (url.startsWith(root)) {
+                    resources.put(PREFIX + url.substring(root.length()), resource);
+                }
+            }
+            return resources;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to list contract schemas in " + properties.location(), e);
+        }
+    }
+
+    private Map<String, Long> modificationTimes() {
+        Map<String, Long> modified = new TreeMap<>();
+        resources().forEach((path, resource) -> {
+            try {
+                modified.put(path, resource.lastModified());
+            } catch (IOException e) {
+                modified.put(path, -1L);
+            }
+        });
+        return modified;
+    }
+
+    private Stats newStats(String path) {
+        Stats stat = new Stats(new LongAdder(), new LongAdder(), new LongAdder());
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            register(registry, path, stat);
+        }
+        return stat;
+    }
+
+    private static void register(MeterRegistry registry, String path, Stats stat) {
+        String name = path.startsWith(PREFIX) && path.endsWith(SUFFIX)
+                ? path.substring(PREFIX.length(), path.length() - SUFFIX.length())
+                : path;
+        FunctionTimer.builder("auth.contract.validation", stat,
+                        s -> s.count().sum(), s -> s.nanos().sum(), TimeUnit.NANOSECONDS)
+                .tag("schema", name)
+                .description("Time spent validating documents against a contract schema, parsing excluded")
+                .register(registry);
+        FunctionCounter.builder("auth.contract.validation.failures", stat.failures(), LongAdder::sum)
+                .tag("schema", name)
+                .register(registry);
+    }
+
+    public long reloads() {
+        return reloads.sum();
+    }
+
+    public long failedReloads() {
+        return failedReloads.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meterRegistry = registry;
+        stats.forEach((path, stat) -> register(registry, path, stat));
+        FunctionCounter.builder("auth.contract.reloads", reloads, LongAdder::sum)
+                .tag("result", "success").register(registry);
+        FunctionCounter.builder("auth.contract.reloads", failedReloads, LongAdder::sum)
+                .tag("result", "failure").register(registry);
+    }
+
+    private record Loaded(Map<String, JsonSchema> schemas, Map<String, Long> modified) {
+    }
+
+    private record Stats(LongAdder count, LongAdder nanos, LongAdder failures) {
+    }
+}
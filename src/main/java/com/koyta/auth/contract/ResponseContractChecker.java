@@ -0,0 +1,171 @@
+package com.koyta.auth.contract;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks sampled response bodies against their contract schema off the request thread, see
+ * {@link ContractSchemaProperties}. Results are counted per route as {@code auth.contract.response.checks}; a
+ * violation is logged with the first schema error. Samples that find the queue full are dropped and counted, so a
+ * slow check never holds up or piles up behind responses.
+ */
+@Slf4j
+@Component
+public class ResponseContractChecker implements MeterBinder, DisposableBean {
+
+    private final JsonContractValidator validator;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final double sampleRate;
+
+    private final Executor executor;
+
+    private final Map<String, RouteStats> stats = new ConcurrentHashMap<>();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile MeterRegistry meterRegistry;
+
+    @Autowired
+    public ResponseContractChecker(JsonContractValidator validator, ContractSchemaProperties properties) {
+        this(validator, properties, newExecutor(properties.responseQueueCapacity()));
+    }
+
+    ResponseContractChecker(JsonContractValidator validator, ContractSchemaProperties properties, Executor executor) {
+        this.validator = validator;
+        this.sampleRate = properties.responseSampleRate();
+        this.executor = executor;
+    }
+
+    // one daemon thread: checks are cheap next to the requests they sample, and order does not matter
+    private static ExecutorService newExecutor(int queueCapacity) {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "response-contract-check");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public boolean isEnabled() {
+        return sampleRate > 0;
+    }
+
+    /**
+     * Whether to check this response; decided before the response is written, so unsampled ones are not buffered.
+     */
+    public boolean shouldSample() {
+        return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * Queues a check of {@code body} against the schema at {@code schemaPath}. The caller must not change
+     * {@code body} afterwards.
+     */
+    public void submit(String route, String schemaPath, byte[] body) {
+        try {
+            executor.execute(() -> check(route, schemaPath, body));
+        } catch (RejectedExecutionException ex) {
+            dropped.increment();
+        }
+    }
+
+    private void check(String route, String schemaPath, byte[] body) {
+        RouteStats stat = stats.computeIfAbsent(route, this::newStats);
+        JsonNode node;
+        try {
+            node = mapper.readTree(body);
+        } catch (IOException ex) {
+            stat.malformed().increment();
+            log.warn("Response on {} is not valid JSON for contract {}", route, schemaPath);
+            return;
+        }
+        try {
+            Optional<String> error = validator.firstError(validator.loadSchema(schemaPath), node);
+            if (error.isPresent()) {
+                stat.violations().increment();
+                log.warn("Response on {} breaks contract {}: {}", route, schemaPath, error.get());
+            } else {
+                stat.valid().increment();
+            }
+        } catch (RuntimeException ex) {
+            // a schema dropped by a reload, or a validator bug: neither may take the checking thread down
+            stat.malformed().increment();
+            log.warn("Could not check response on {} against {}", route, schemaPath, ex);
+        }
+    }
+
+    public long valid(String route) {
+        RouteStats stat = stats.get(route);
+        return stat == null ? 0 : stat.valid().sum();
+    }
+
+    public long violations(String route) {
+        RouteStats stat = stats.get(route);
+        return stat == null ? 0 : stat.violations().sum();
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private RouteStats newStats(String route) {
+        RouteStats stat = new RouteStats(new LongAdder(), new LongAdder(), new LongAdder());
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            register(registry, route, stat);
+        }
+        return stat;
+    }
+
+    private static void register(MeterRegistry registry, String route, RouteStats stat) {
+        FunctionCounter.builder("auth.contract.response.checks", stat.valid(), LongAdder::sum)
+                .tags("route", route, "result", "valid").register(registry);
+        FunctionCounter.builder("auth.contract.response.checks", stat.violations(), LongAdder::sum)
+                .tags("route", route, "result", "violation").register(registry);
+        FunctionCounter.builder("auth.contract.response.checks", stat.malformed(), LongAdder::sum)
+                .tags("route", route, "result", "malformed").register(registry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meterRegistry = registry;
+        stats.forEach((route, stat) -> register(registry, route, stat));
+        FunctionCounter.builder("auth.contract.response.dropped", dropped, LongAdder::sum)
+                .description("Sampled responses not checked because the check queue was full")
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    private record RouteStats(LongAdder valid, LongAdder violations, LongAdder malformed) {
+    }
+}
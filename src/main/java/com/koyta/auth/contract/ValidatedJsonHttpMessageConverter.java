@@ -0,0 +1,75 @@
+package com.koyta.auth.contract;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koyta.auth.filter.ContractValidationFilter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Binds {@code @RequestBody} arguments from the tree {@link ContractValidationFilter} already parsed and validated,
+ * so a contract-checked body is read and parsed once per request. Bodies the filter did not see are left to the
+ * regular Jackson converter; this one never writes.
+ */
+public class ValidatedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public ValidatedJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return validatedBody() != null && super.canRead(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return validatedBody() != null && super.canRead(type, contextClass, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return bind(type, contextClass, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return bind(clazz, null, inputMessage);
+    }
+
+    private Object bind(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        JsonNode body = validatedBody();
+        if (body == null) {
+            throw new HttpMessageNotReadableException("No validated request body", inputMessage);
+        }
+        try {
+            return getObjectMapper().treeToValue(body, getJavaType(type, contextClass));
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + ex.getOriginalMessage(), ex, inputMessage);
+        }
+    }
+
+    private static JsonNode validatedBody() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes == null ? null : (JsonNode) attributes.getAttribute(
+                ContractValidationFilter.VALIDATED_BODY, RequestAttributes.SCOPE_REQUEST);
+    }
+}
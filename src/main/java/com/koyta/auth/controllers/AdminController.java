@@ -1,19 +1,33 @@
 package com.koyta.auth.controllers;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.koyta.auth.dtos.AdminResponse;
 import com.koyta.auth.dtos.CreateAdminRequest;
+import com.koyta.auth.dtos.ImportRowResult;
+import com.koyta.auth.dtos.ImportSummary;
+import com.koyta.auth.services.UserImportService;
 import com.koyta.auth.services.impl.AdminServiceImpl;
 import com.koyta.auth.util.AppConstants;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 import static org.springframework.http.ResponseEntity.status;
@@ -24,8 +38,14 @@ import static org.springframework.http.ResponseEntity.status;
 @RequiredArgsConstructor
 public class AdminController {
 
+    private static final String TEXT_CSV = "text/csv";
+
     private final AdminServiceImpl adminService;
 
+    private final UserImportService userImportService;
+
+    private final ObjectMapper objectMapper;
+
     @Operation(summary = "Create Admin User", description = "Creates a new admin user in the system",
             tags = {"Admin"})
     @PreAuthorize(AppConstants.ROLE_ADMIN)
@@ -47,5 +67,50 @@ public class AdminController {
         return ResponseEntity.ok("ADMIN role assigned successfully");
 
     }
+
+    @Operation(
+            summary = "Bulk Import Users",
+            description = "Creates users from an NDJSON or CSV upload (header name,email,password[,image,provider]). "
+                    + "Streams one NDJSON result per row once its batch is committed, then a summary line. "
+                    + "Rows before line `from` are skipped, to resume an interrupted import",
+            tags = {"Admin"}
+    )
+    @PreAuthorize(AppConstants.ROLE_ADMIN)
+    @PostMapping(value = "/users/import",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importUsers(@RequestParam(name = "from", defaultValue = "1") long fromLine,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        UserImportService.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+
+        BufferedReader body = new BufferedReader(new InputStreamReader(request.getInputStream(), charset));
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer out = response.getWriter();
+
+        ImportSummary summary = userImportService.importUsers(body, format, fromLine, rows -> {
+            try {
+                for (ImportRowResult row : rows) {
+                    writeLine(out, row);
+                }
+                out.flush();
+            } catch (IOException e) {
+                // client went away; the batches committed so far stay, the rest of the file is not read
+                throw new UncheckedIOException(e);
+            }
+        });
+        writeLine(out, summary);
+        out.flush();
+    }
+
+    private void writeLine(Writer out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsString(value));
+        out.write('\n');
+    }
 }
 
@@ -22,9 +22,10 @@ public class AuthController {
     private final AuthService authService;
 
     @PostMapping("/login")
-    public ResponseEntity<TokenResponse> login(@RequestBody LoginRequest loginRequest, HttpServletResponse response){
+    public ResponseEntity<TokenResponse> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request,
+                                               HttpServletResponse response){
 
-        TokenResponse TokenResponse = authService.login(loginRequest, response);
+        TokenResponse TokenResponse = authService.login(loginRequest, request, response);
         return ResponseEntity.status(HttpStatus.CREATED).body(TokenResponse);
     }
 
@@ -0,0 +1,48 @@
+package com.koyta.auth.controllers;
+
+import com.koyta.auth.security.JwtKeyRing;
+import com.koyta.auth.security.JwtSigningProperties;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@Tag(name = "Keys", description = "Public keys for verifying issued tokens")
+public class JwksController {
+
+    private final String jwksJson;
+
+    private final String etag;
+
+    private final CacheControl cacheControl;
+
+    public JwksController(JwtKeyRing keyRing, JwtSigningProperties properties) {
+        this.jwksJson = keyRing.jwksJson();
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(jwksJson.getBytes(StandardCharsets.UTF_8)) + "\"";
+        this.cacheControl = CacheControl.maxAge(properties.jwksMaxAgeSeconds(), TimeUnit.SECONDS).cachePublic();
+    }
+
+    @Operation(summary = "JSON Web Key Set", description = "Public keys of every key that may have signed a live token")
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks(WebRequest request) {
+        // Spring answers weak and listed If-None-Match validators against the ETag below with a bodiless 304, but
+        // not *, which on a GET matches any current representation
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && ifNoneMatch.trim().equals("*")) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(jwksJson);
+    }
+}
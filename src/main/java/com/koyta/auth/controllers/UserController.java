@@ -1,17 +1,31 @@
 package com.koyta.auth.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.koyta.auth.dtos.CreateUserRequest;
 import com.koyta.auth.dtos.UserDto;
+import com.koyta.auth.dtos.UserPage;
+import com.koyta.auth.entities.Provider;
 import com.koyta.auth.entities.User;
+import com.koyta.auth.repositories.UserRepository;
 import com.koyta.auth.services.UserService;
+import com.koyta.auth.util.AppConstants;
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
 @RestController
 @Tag(name = "User",description = "Authetication User Operation API's")
 @RequestMapping("/api/v1/user")
@@ -22,6 +36,8 @@ public class UserController {
 
     private final PasswordEncoder passwordEncoder;
 
+    private final ObjectMapper objectMapper;
+
     @PostMapping()
     public ResponseEntity<UserDto> createUser(@Valid @RequestBody CreateUserRequest request) {
 
@@ -35,6 +51,46 @@ public class UserController {
         return ResponseEntity.status(HttpStatus.CREATED).body(userService.createUser(user));
     }
 
+    @Operation(summary = "List Users", description = "Users in creation order, filtered by provider, enabled "
+            + "and role. Pass nextCursor from the previous page as cursor to get the next one")
+    @PreAuthorize(AppConstants.ROLE_ADMIN)
+    @GetMapping
+    public ResponseEntity<UserPage> listUsers(@RequestParam(name = "cursor", required = false) String cursor,
+                                              @RequestParam(name = "limit", defaultValue = "50") int limit,
+                                              @RequestParam(name = "provider", required = false) Provider provider,
+                                              @RequestParam(name = "enabled", required = false) Boolean enabled,
+                                              @RequestParam(name = "role", required = false) String role) {
+
+        return ResponseEntity.ok(userService.listUsers(cursor, limit, provider, enabled, role));
+    }
+
+    @Operation(summary = "Export Users", description = "Streams every matching user as NDJSON, one user per line")
+    @PreAuthorize(AppConstants.ROLE_ADMIN)
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportUsers(@RequestParam(name = "provider", required = false) Provider provider,
+                            @RequestParam(name = "enabled", required = false) Boolean enabled,
+                            @RequestParam(name = "role", required = false) String role,
+                            HttpServletResponse response) throws IOException {
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer out = response.getWriter();
+        long[] written = {0};
+        userService.exportUsers(provider, enabled, role, user -> {
+            try {
+                out.write(objectMapper.writeValueAsString(user));
+                out.write('\n');
+                if (++written[0] % UserRepository.EXPORT_FETCH_SIZE == 0) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // client went away, stop reading rows
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
+    }
+
     @GetMapping("/email/{email}")
     public ResponseEntity<UserDto> getUserByEmail(@PathVariable("email") String email) {
 
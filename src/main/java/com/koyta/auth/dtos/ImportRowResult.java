@@ -0,0 +1,43 @@
+package com.koyta.auth.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one row of a bulk user import, written as one NDJSON line. {@code line} is the row's line number in the
+ * uploaded file, so a client can resume from the line after the last one it received.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImportRowResult(
+        long line,
+        Status status,
+        String email,
+        UUID id,
+        String error
+) {
+
+    public enum Status {
+        CREATED,
+        /** a user with this email already exists, e.g. from an earlier run of the same file */
+        EXISTS,
+        INVALID,
+        FAILED
+    }
+
+    public static ImportRowResult created(long line, String email, UUID id) {
+        return new ImportRowResult(line, Status.CREATED, email, id, null);
+    }
+
+    public static ImportRowResult exists(long line, String email) {
+        return new ImportRowResult(line, Status.EXISTS, email, null, null);
+    }
+
+    public static ImportRowResult invalid(long line, String email, String error) {
+        return new ImportRowResult(line, Status.INVALID, email, null, error);
+    }
+
+    public static ImportRowResult failed(long line, String email, String error) {
+        return new ImportRowResult(line, Status.FAILED, email, null, error);
+    }
+}
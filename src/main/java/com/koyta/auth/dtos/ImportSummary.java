@@ -0,0 +1,14 @@
+package com.koyta.auth.dtos;
+
+/**
+ * Last line of a bulk user import response. {@code lastLine} is the last line of the file that was read; rerun with
+ * {@code from=lastLine + 1} to continue an import that was cut off.
+ */
+public record ImportSummary(
+        long created,
+        long exists,
+        long invalid,
+        long failed,
+        long lastLine
+) {
+}
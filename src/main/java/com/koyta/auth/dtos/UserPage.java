@@ -0,0 +1,12 @@
+package com.koyta.auth.dtos;
+
+import java.util.List;
+
+/**
+ * One page of the user listing. {@code nextCursor} is null on the last page.
+ */
+public record UserPage(
+        List<UserDto> items,
+        String nextCursor
+) {
+}
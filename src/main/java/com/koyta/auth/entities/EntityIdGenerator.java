@@ -0,0 +1,23 @@
+package com.koyta.auth.entities;
+
+import com.koyta.auth.util.IdGenerator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Hibernate generator behind {@link GeneratedId}. Hibernate creates it reflectively, outside the Spring context, so the
+ * generator to use is handed over once at startup through {@link #use(IdGenerator)}.
+ */
+public class EntityIdGenerator implements IdentifierGenerator {
+
+    private static volatile IdGenerator delegate = IdGenerator.timeOrdered();
+
+    public static void use(IdGenerator idGenerator) {
+        delegate = idGenerator;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return delegate.next();
+    }
+}
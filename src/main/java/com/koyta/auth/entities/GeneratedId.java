@@ -0,0 +1,17 @@
+package com.koyta.auth.entities;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Primary key assigned by {@link EntityIdGenerator}, i.e. by the configured {@link com.koyta.auth.util.IdGenerator}.
+ */
+@IdGeneratorType(EntityIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface GeneratedId {
+}
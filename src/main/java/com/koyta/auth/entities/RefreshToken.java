@@ -14,12 +14,13 @@ import java.util.UUID;
 @Entity
 @Table(name = "refresh_token",indexes = {
         @Index(name = "refresh_token_jti_idx",columnList = "jti",unique = true),
-        @Index(name ="refresh_token_user_id_idx", columnList = "user_id")
+        @Index(name ="refresh_token_user_id_idx", columnList = "user_id"),
+        @Index(name = "refresh_token_family_id_idx", columnList = "family_id")
 })
 public class RefreshToken {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedId
     private UUID id;
 
     @Column(name ="jti",unique = true,nullable = false,updatable = false)
@@ -40,5 +41,12 @@ public class RefreshToken {
 
     private  String replacedByToken;
 
+    // when the token was rotated or revoked, see AuthServiceImpl for how replays are told apart from retries
+    private Instant revokedAt;
+
+    // jti of the login token this one descends from; null for rows created before families existed
+    @Column(name = "family_id", updatable = false)
+    private String familyId;
+
 
 }
@@ -20,4 +20,11 @@ public class Role {
     @Column(unique = true, nullable = false)
     private String name;
 
+    // position of this role in a role mask, assigned once by RoleRegistry and never reused
+    @Column(name = "role_bit", unique = true)
+    private Integer bit;
+
+    public Role(UUID id, String name) {
+        this(id, name, null);
+    }
 }
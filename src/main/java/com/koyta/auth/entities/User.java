@@ -14,11 +14,13 @@ import java.util.UUID;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "users_created_at_id_idx", columnList = "created_at, user_id")
+})
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedId
     @Column(name = "user_id")
     private UUID id;
 
@@ -34,7 +36,7 @@ public class User {
     private String image;
     private boolean enable;
 
-    @Column(nullable = false, updatable = false)
+    @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt = Instant.now();
     @Column(nullable = false)
     private Instant updatedAt = Instant.now();
@@ -44,7 +46,8 @@ public class User {
 
     private String providerId;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // lazy: most user queries never read roles, see the entity graphs on UserRepository
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "user_roles",joinColumns = @JoinColumn(name = "user_id"),
             inverseJoinColumns = @JoinColumn(name ="role_id"))
     private Set<Role> roles = new HashSet<>();
@@ -0,0 +1,37 @@
+package com.koyta.auth.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One row per user change that other nodes must evict from their user cache. Ids only grow, so a node polls for
+ * rows after the last id it has seen.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "user_invalidation", indexes = {
+        @Index(name = "user_invalidation_created_at_idx", columnList = "created_at")
+})
+public class UserInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    // snapshots up to and including this version are stale, null means every snapshot
+    @Column(name = "stale_version", updatable = false)
+    private Long staleVersion;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+}
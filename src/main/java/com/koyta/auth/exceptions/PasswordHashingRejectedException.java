@@ -0,0 +1,17 @@
+package com.koyta.auth.exceptions;
+
+import java.time.Duration;
+
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,15 @@
+package com.koyta.auth.exceptions;
+
+public class PayloadTooLargeException extends RuntimeException {
+
+    private final long maxBytes;
+
+    public PayloadTooLargeException(long maxBytes) {
+        super("Request body is larger than " + maxBytes + " bytes");
+        this.maxBytes = maxBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,133 @@
+package com.koyta.auth.filter;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Contract schemas by route, compiled once from {@code "METHOD:/path"} keys into one segment trie per method. A path
+ * segment is a literal, {@code *} or a {@code {name}} variable; wildcards match exactly one non-empty segment, and a
+ * literal is tried before a wildcard at the same position. Matching walks the request URI in place and allocates
+ * nothing.
+ */
+final class ContractRoutes {
+
+    private final String[] methods;
+
+    private final Node[] roots;
+
+    ContractRoutes(Map<String, String> routes) {
+        String[] methods = new String[0];
+        Node[] roots = new Node[0];
+
+        for (Map.Entry<String, String> route : routes.entrySet()) {
+            String key = route.getKey();
+            int colon = key.indexOf(':');
+            if (colon <= 0 || colon + 1 >= key.length() || key.charAt(colon + 1) != '/') {
+                throw new IllegalArgumentException("Contract route must look like METHOD:/path, got " + key);
+            }
+            String method = key.substring(0, colon);
+            int index = Arrays.asList(methods).indexOf(method);
+            if (index < 0) {
+                index = methods.length;
+                methods = Arrays.copyOf(methods, index + 1);
+                roots = Arrays.copyOf(roots, index + 1);
+                methods[index] = method;
+                roots[index] = new Node();
+            }
+
+            Node node = roots[index];
+            for (String segment : key.substring(colon + 2).split("/", -1)) {
+                if (segment.isEmpty()) {
+                    throw new IllegalArgumentException("Empty path segment in contract route " + key);
+                }
+                node = isWildcard(segment) ? node.wildcard() : node.literal(segment);
+            }
+            if (node.schema != null && !node.schema.equals(route.getValue())) {
+                throw new IllegalArgumentException("Contract route " + key + " maps to both " + node.schema
+                        + " and " + route.getValue());
+            }
+            node.schema = route.getValue();
+        }
+
+        this.methods = methods;
+        this.roots = roots;
+    }
+
+    /**
+     * Returns the schema for a request, or {@code null} if the route has none.
+     */
+    String match(String method, String uri) {
+        if (method == null || uri == null || uri.isEmpty()) {
+            return null;
+        }
+        for (int i = 0; i < methods.length; i++) {
+            if (methods[i].equals(method)) {
+                return match(roots[i], uri, 0);
+            }
+        }
+        return null;
+    }
+
+    // from is at the '/' opening the next segment, or at the end of the uri
+    private static String match(Node node, String uri, int from) {
+        if (from == uri.length()) {
+            return node.schema;
+        }
+        if (uri.charAt(from) != '/') {
+            return null;
+        }
+        int start = from + 1;
+        int end = uri.indexOf('/', start);
+        if (end < 0) {
+            end = uri.length();
+        }
+        int length = end - start;
+        if (length == 0) {
+            return null;
+        }
+
+        for (int i = 0; i < node.literals.length; i++) {
+            String literal = node.literals[i];
+            if (literal.length() == length && uri.regionMatches(start, literal, 0, length)) {
+                String schema = match(node.children[i], uri, end);
+                if (schema != null) {
+                    return schema;
+                }
+            }
+        }
+        return node.wildcard == null ? null : match(node.wildcard, uri, end);
+    }
+
+    private static boolean isWildcard(String segment) {
+        return segment.equals("*") || (segment.length() > 2 && segment.startsWith("{") && segment.endsWith("}"));
+    }
+
+    private static final class Node {
+
+        private String[] literals = new String[0];
+
+        private Node[] children = new Node[0];
+
+        private Node wildcard;
+
+        private String schema;
+
+        Node literal(String segment) {
+            int index = Arrays.asList(literals).indexOf(segment);
+            if (index >= 0) {
+                return children[index];
+            }
+            literals = Arrays.copyOf(literals, literals.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            literals[literals.length - 1] = segment;
+            return children[children.length - 1] = new Node();
+        }
+
+        Node wildcard() {
+            if (wildcard == null) {
+                wildcard = new Node();
+            }
+            return wildcard;
+        }
+    }
+}
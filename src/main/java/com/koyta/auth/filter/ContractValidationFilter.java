@@ -1,37 +1,65 @@
 package com.koyta.auth.filter;
 
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.koyta.auth.contract.ContractSchemaProperties;
 import com.koyta.auth.contract.JsonContractValidator;
 import com.koyta.auth.exceptions.ContractValidationException;
+import com.koyta.auth.exceptions.PayloadTooLargeException;
 import com.koyta.auth.filter.wrapper.CachedBodyHttpServletRequest;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+// outside ResponseContractFilter, which then only sees responses the application produced
 @Component
+@Order(Ordered.LOWEST_PRECEDENCE - 10)
 public class ContractValidationFilter extends OncePerRequestFilter {
 
-    private final JsonContractValidator validator;
+    /**
+     * Request attribute holding the validated body as a {@link JsonNode}, which controllers bind from instead of
+     * parsing the body again.
+     */
+    public static final String VALIDATED_BODY = ContractValidationFilter.class.getName() + ".validatedBody";
 
-    private final Map<String, String> schemaMapping = Map.of(
+    // request bodies only: a wildcard or {name} matches one path segment, see ContractRoutes
+    static final Map<String, String> SCHEMA_MAPPING = Map.of(
             "POST:/api/v1/auth/login", "contracts/auth/login.schema.json",
             "POST:/api/v1/auth/register", "contracts/auth/register-user.schema.json",
             "POST:/api/v1/auth/refresh", "contracts/auth/refresh.schema.json",
             "POST:/api/v1/user", "contracts/user/create-user.schema.json",
-            "PUT:/api/v1/user/*", "contracts/user/update-user.schema.json",
-            "GET:/api/v1/user/*", "contracts/user/user-response.schema.json",
-            "GET:/api/v1/user/email/*", "contracts/user/user-response.schema.json"
+            "PUT:/api/v1/user/{userid}", "contracts/user/update-user.schema.json"
     );
 
+    private final JsonContractValidator validator;
+
+    private final int maxBodyBytes;
+
+    private final ContractRoutes routes = new ContractRoutes(SCHEMA_MAPPING);
+
     public ContractValidationFilter(JsonContractValidator validator) {
+        this(validator, new ContractSchemaProperties(null, null, null, null, null, null));
+    }
+
+    @Autowired
+    public ContractValidationFilter(JsonContractValidator validator, ContractSchemaProperties properties) {
         this.validator = validator;
+        this.maxBodyBytes = properties.maxRequestBodyBytes();
+    }
+
+    // a mapping to a schema the registry does not have stops startup rather than failing every request
+    @Override
+    protected void initFilterBean() {
+        SCHEMA_MAPPING.values().forEach(validator::loadSchema);
     }
 
     @Override
@@ -41,26 +69,33 @@ public class ContractValidationFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
-        String key = request.getMethod() + ":" + request.getRequestURI();
-
-        if (schemaMapping.containsKey(key)) {
-            String body = request.getReader()
-                    .lines()
-                    .collect(Collectors.joining());
+        String schemaPath = routes.match(request.getMethod(), request.getRequestURI());
 
+        if (schemaPath != null) {
+            byte[] body;
+            JsonNode validated;
             try {
-                validator.validate(body, schemaMapping.get(key));
+                body = CachedBodyHttpServletRequest.readBody(request, maxBodyBytes);
+                validated = validator.validate(body, schemaPath);
+            } catch (PayloadTooLargeException ex) {
+                reject(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, ex.getMessage());
+                return;
             } catch (ContractValidationException ex) {
-                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                response.setContentType("application/json");
-                response.getWriter().write("{\"error\": \"" + ex.getMessage() + "\"}");
+                reject(response, HttpServletResponse.SC_BAD_REQUEST, ex.getMessage());
                 return;
             }
 
             request = new CachedBodyHttpServletRequest(request, body);
+            request.setAttribute(VALIDATED_BODY, validated);
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private static void reject(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\": \"" + message + "\"}");
+    }
 }
 
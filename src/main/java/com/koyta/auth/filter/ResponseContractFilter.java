@@ -0,0 +1,100 @@
+package com.koyta.auth.filter;
+
+import com.koyta.auth.contract.JsonContractValidator;
+import com.koyta.auth.contract.ResponseContractChecker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Hands a sample of responses on routes with a response contract to {@link ResponseContractChecker}. Only sampled
+ * responses are buffered; the client gets the body as soon as the chain returns and the check runs on a copy later.
+ * Successful responses are checked against the route's schema and error responses against {@link #ERROR_SCHEMA}.
+ */
+@Component
+public class ResponseContractFilter extends OncePerRequestFilter {
+
+    // a wildcard or {name} matches one path segment, see ContractRoutes
+    static final Map<String, String> SCHEMA_MAPPING = Map.of(
+            "POST:/api/v1/auth/login", "contracts/auth/token-response.schema.json",
+            "POST:/api/v1/auth/refresh", "contracts/auth/token-response.schema.json",
+            "POST:/api/v1/auth/register", "contracts/user/user-response.schema.json",
+            "POST:/api/v1/user", "contracts/user/user-response.schema.json",
+            "PUT:/api/v1/user/{userid}", "contracts/user/user-response.schema.json",
+            "GET:/api/v1/user/{userid}", "contracts/user/user-response.schema.json",
+            "GET:/api/v1/user/email/{email}", "contracts/user/user-response.schema.json"
+    );
+
+    static final String ERROR_SCHEMA = "contracts/common/api-error.schema.json";
+
+    private final JsonContractValidator validator;
+
+    private final ResponseContractChecker checker;
+
+    // matches to the route key itself, which doubles as the metrics tag
+    private final ContractRoutes routes = new ContractRoutes(SCHEMA_MAPPING.keySet().stream()
+            .collect(Collectors.toMap(route -> route, route -> route)));
+
+    public ResponseContractFilter(JsonContractValidator validator, ResponseContractChecker checker) {
+        this.validator = validator;
+        this.checker = checker;
+    }
+
+    @Override
+    protected void initFilterBean() {
+        SCHEMA_MAPPING.values().forEach(validator::loadSchema);
+        validator.loadSchema(ERROR_SCHEMA);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !checker.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String route = routes.match(request.getMethod(), request.getRequestURI());
+        if (route == null || !checker.shouldSample()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper cached = new ContentCachingResponseWrapper(response);
+        byte[] body;
+        try {
+            filterChain.doFilter(request, cached);
+        } finally {
+            // a copy, taken before the buffer is handed to the client and reset
+            body = cached.getContentAsByteArray();
+            cached.copyBodyToResponse();
+        }
+
+        String schemaPath = schemaFor(route, cached.getStatus(), cached.getContentType());
+        if (schemaPath != null && body.length > 0) {
+            checker.submit(route, schemaPath, body);
+        }
+    }
+
+    private static String schemaFor(String route, int status, String contentType) {
+        if (contentType == null || !contentType.contains("json")) {
+            return null;
+        }
+        if (status >= 200 && status < 300) {
+            return SCHEMA_MAPPING.get(route);
+        }
+        return status >= 400 ? ERROR_SCHEMA : null;
+    }
+}
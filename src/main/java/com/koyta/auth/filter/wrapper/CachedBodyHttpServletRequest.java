@@ -1,5 +1,6 @@
 package com.koyta.auth.filter.wrapper;
 
+import com.koyta.auth.exceptions.PayloadTooLargeException;
 import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,16 +8,54 @@ import jakarta.servlet.http.HttpServletRequestWrapper;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
+/**
+ * Request whose body was read up front, served from that one array; the streams and readers it hands out never copy
+ * it.
+ */
 public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
 
     private final byte[] cachedBody;
 
     public CachedBodyHttpServletRequest(HttpServletRequest request, String body) {
+        this(request, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public CachedBodyHttpServletRequest(HttpServletRequest request, byte[] body) {
         super(request);
-        this.cachedBody = body.getBytes(StandardCharsets.UTF_8);
+        this.cachedBody = body;
+    }
+
+    /**
+     * Reads the body of {@code request} into an array of exactly its size. With a Content-Length that is a single
+     * allocation, and a declared length over {@code maxBytes} is rejected before anything is read; without one, at
+     * most {@code maxBytes + 1} bytes are read to find out.
+     *
+     * @throws PayloadTooLargeException if the body is longer than {@code maxBytes}
+     */
+    public static byte[] readBody(HttpServletRequest request, int maxBytes) throws IOException {
+        long declared = request.getContentLengthLong();
+        if (declared > maxBytes) {
+            throw new PayloadTooLargeException(maxBytes);
+        }
+
+        InputStream in = request.getInputStream();
+        if (declared >= 0) {
+            byte[] body = new byte[(int) declared];
+            int read = in.readNBytes(body, 0, body.length);
+            return read == body.length ? body : Arrays.copyOf(body, read);
+        }
+
+        byte[] body = in.readNBytes(maxBytes + 1);
+        if (body.length > maxBytes) {
+            throw new PayloadTooLargeException(maxBytes);
+        }
+        return body;
     }
 
     @Override
@@ -24,6 +63,8 @@ public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
         ByteArrayInputStream inputStream = new ByteArrayInputStream(cachedBody);
         return new ServletInputStream() {
             @Override public int read() { return inputStream.read(); }
+            @Override public int read(byte[] b, int off, int len) { return inputStream.read(b, off, len); }
+            @Override public int available() { return inputStream.available(); }
             @Override public boolean isFinished() { return inputStream.available() == 0; }
             @Override public boolean isReady() { return true; }
             @Override public void setReadListener(ReadListener listener) {}
@@ -36,5 +77,14 @@ public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
                 new InputStreamReader(getInputStream(), StandardCharsets.UTF_8)
         );
     }
-}
 
+    @Override
+    public int getContentLength() {
+        return cachedBody.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return cachedBody.length;
+    }
+}
@@ -1,5 +1,8 @@
 package com.koyta.auth.helpers;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
 import java.util.UUID;
 
 public class UserHelper {
@@ -7,4 +10,16 @@ public class UserHelper {
     public static UUID parseUUID(String uuid){
         return UUID.fromString(uuid);
     }
+
+    /**
+     * True if {@code ex} was caused by a unique constraint, e.g. a second user with the same email.
+     */
+    public static boolean isUniqueViolation(DataIntegrityViolationException ex){
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE;
+            }
+        }
+        return false;
+    }
 }
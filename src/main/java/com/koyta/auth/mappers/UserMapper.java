@@ -0,0 +1,31 @@
+package com.koyta.auth.mappers;
+
+import com.koyta.auth.dtos.AdminResponse;
+import com.koyta.auth.dtos.RoleDto;
+import com.koyta.auth.dtos.UserDto;
+import com.koyta.auth.entities.Role;
+import com.koyta.auth.entities.User;
+import org.mapstruct.Builder;
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Entity to DTO conversions. MapStruct generates the implementation at compile time as plain getter and setter
+ * calls, so mapping costs no reflection and allocates only the DTOs themselves.
+ *
+ * <p>DTOs are created with their no-args constructor rather than their Lombok builder, so field defaults such as
+ * {@code UserDto.provider = LOCAL} behave as they did with ModelMapper. A DTO property without a source fails the
+ * build.
+ */
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING,
+        builder = @Builder(disableBuilder = true),
+        unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface UserMapper {
+
+    UserDto toUserDto(User user);
+
+    AdminResponse toAdminResponse(User user);
+
+    RoleDto toRoleDto(Role role);
+}
@@ -0,0 +1,251 @@
+package com.koyta.auth.repositories;
+
+import com.koyta.auth.entities.RefreshToken;
+import com.koyta.auth.entities.User;
+import com.koyta.auth.util.IdGenerator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * {@link RefreshTokenStore} kept on the heap, for single-node and edge deployments.
+ *
+ * <p>Tokens are indexed by jti in a {@link ConcurrentHashMap}, whose per-bin locking is the striping: rotation of one
+ * jti runs inside {@code compute} on its bin and never blocks other tokens. Secondary indexes map user id and family id
+ * to jtis. Skip lists ordered by expiry, one for live and one for revoked tokens, drive eviction: every write drops
+ * expired tokens first and, once the store holds {@code max-size} tokens, revoked ones, which are only kept for reuse
+ * detection, before the live ones closest to expiry.
+ *
+ * <p>Entries keep the user's id and email only, not the entity; returned tokens carry a user with just those set.
+ */
+@Component
+@ConditionalOnProperty(name = "security.jwt.refresh-store.engine", havingValue = "memory")
+public class InMemoryRefreshTokenStore implements RefreshTokenStore, MeterBinder {
+
+    private static final Comparator<Expiry> BY_EXPIRY =
+            Comparator.comparing(Expiry::expiresAt).thenComparing(Expiry::jti);
+
+    private final Map<String, Entry> byJti = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<String>> byUser = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byFamily = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Expiry> liveByExpiry = new ConcurrentSkipListSet<>(BY_EXPIRY);
+    private final ConcurrentSkipListSet<Expiry> revokedByExpiry = new ConcurrentSkipListSet<>(BY_EXPIRY);
+
+    private final int maxSize;
+
+    private final LongAdder evictions = new LongAdder();
+
+    public InMemoryRefreshTokenStore(@Value("${security.jwt.refresh-store.max-size:100000}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public void save(RefreshToken token) {
+        evict(Instant.now());
+
+        Entry entry = Entry.of(token);
+        Entry previous = byJti.put(entry.jti(), entry);
+        if (previous != null) {
+            unindexExpiry(previous);
+        }
+        indexExpiry(entry);
+        if (entry.userId() != null) {
+            byUser.computeIfAbsent(entry.userId(), id -> ConcurrentHashMap.newKeySet()).add(entry.jti());
+        }
+        if (entry.familyId() != null) {
+            byFamily.computeIfAbsent(entry.familyId(), id -> ConcurrentHashMap.newKeySet()).add(entry.jti());
+        }
+    }
+
+    @Override
+    public Optional<RefreshToken> findByJti(String jti) {
+        return Optional.ofNullable(byJti.get(jti)).map(Entry::toRefreshToken);
+    }
+
+    @Override
+    public boolean revokeForRotation(String jti, String email, String replacedBy, Instant now) {
+        Entry[] won = new Entry[1];
+        byJti.computeIfPresent(jti, (key, entry) -> {
+            if (entry.revoked() || !entry.expiresAt().isAfter(now) || email == null || !email.equals(entry.email())) {
+                return entry;
+            }
+            won[0] = entry;
+            return entry.revoke(replacedBy, now);
+        });
+        if (won[0] == null) {
+            return false;
+        }
+        movedToRevoked(won[0]);
+        return true;
+    }
+
+    @Override
+    public int revokeFamily(String familyId) {
+        Set<String> jtis = byFamily.get(familyId);
+        if (jtis == null) {
+            return 0;
+        }
+
+        int revoked = 0;
+        for (String jti : jtis) {
+            Entry[] changed = new Entry[1];
+            byJti.computeIfPresent(jti, (key, entry) -> {
+                if (entry.revoked()) {
+                    return entry;
+                }
+                changed[0] = entry;
+                return entry.revoke(entry.replacedByToken(), entry.revokedAt());
+            });
+            if (changed[0] != null) {
+                movedToRevoked(changed[0]);
+                revoked++;
+            }
+        }
+        return revoked;
+    }
+
+    @Override
+    public int deleteAllForUser(UUID userId) {
+        Set<String> jtis = byUser.remove(userId);
+        if (jtis == null) {
+            return 0;
+        }
+        int deleted = 0;
+        for (String jti : jtis) {
+            if (remove(jti) != null) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    public int size() {
+        return byJti.size();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    // expired tokens first, then while over capacity revoked ones and only then the live ones closest to expiry
+    private void evict(Instant now) {
+        Predicate<Expiry> expired = expiry -> !expiry.expiresAt().isAfter(now);
+        Predicate<Expiry> full = expiry -> byJti.size() >= maxSize;
+        evictWhile(revokedByExpiry, expired);
+        evictWhile(liveByExpiry, expired);
+        evictWhile(revokedByExpiry, full);
+        evictWhile(liveByExpiry, full);
+    }
+
+    private void evictWhile(ConcurrentSkipListSet<Expiry> order, Predicate<Expiry> condition) {
+        Expiry first;
+        while ((first = order.ceiling(new Expiry(Instant.MIN, ""))) != null && condition.test(first)) {
+            if (order.remove(first) && remove(first.jti()) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private void indexExpiry(Entry entry) {
+        (entry.revoked() ? revokedByExpiry : liveByExpiry).add(new Expiry(entry.expiresAt(), entry.jti()));
+    }
+
+    private void unindexExpiry(Entry entry) {
+        Expiry expiry = new Expiry(entry.expiresAt(), entry.jti());
+        liveByExpiry.remove(expiry);
+        revokedByExpiry.remove(expiry);
+    }
+
+    // after a revoke inside compute; skipped if the token was removed meanwhile
+    private void movedToRevoked(Entry entry) {
+        Expiry expiry = new Expiry(entry.expiresAt(), entry.jti());
+        if (liveByExpiry.remove(expiry) && byJti.containsKey(entry.jti())) {
+            revokedByExpiry.add(expiry);
+        }
+    }
+
+    private Entry remove(String jti) {
+        Entry entry = byJti.remove(jti);
+        if (entry == null) {
+            return null;
+        }
+        unindexExpiry(entry);
+        if (entry.userId() != null) {
+            removeFromIndex(byUser, entry.userId(), jti);
+        }
+        if (entry.familyId() != null) {
+            removeFromIndex(byFamily, entry.familyId(), jti);
+        }
+        return entry;
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<String>> index, K key, String jti) {
+        index.computeIfPresent(key, (k, jtis) -> {
+            jtis.remove(jti);
+            return jtis.isEmpty() ? null : jtis;
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.refresh_token.store.size", this, InMemoryRefreshTokenStore::size)
+                .register(registry);
+        FunctionCounter.builder("auth.refresh_token.store.evictions", this, InMemoryRefreshTokenStore::evictions)
+                .register(registry);
+    }
+
+    private record Expiry(Instant expiresAt, String jti) {
+    }
+
+    private record Entry(UUID id, String jti, UUID userId, String email, String familyId,
+                         Instant createdAt, Instant expiresAt, boolean revoked, String replacedByToken,
+                         Instant revokedAt) {
+
+        static Entry of(RefreshToken token) {
+            User user = token.getUser();
+            return new Entry(token.getId() == null ? IdGenerator.timeOrdered().next() : token.getId(), token.getJti(),
+                    user == null ? null : user.getId(), user == null ? null : user.getEmail(), token.getFamilyId(),
+                    token.getCreatedAt(), token.getExpiresAt(), token.isRevoked(), token.getReplacedByToken(),
+                    token.getRevokedAt());
+        }
+
+        Entry revoke(String replacedBy, Instant at) {
+            return new Entry(id, jti, userId, email, familyId, createdAt, expiresAt, true, replacedBy, at);
+        }
+
+        RefreshToken toRefreshToken() {
+            User user = null;
+            if (userId != null) {
+                user = new User();
+                user.setId(userId);
+                user.setEmail(email);
+            }
+            return RefreshToken.builder()
+                    .id(id)
+                    .jti(jti)
+                    .user(user)
+                    .familyId(familyId)
+                    .createdAt(createdAt)
+                    .expiresAt(expiresAt)
+                    .revoked(revoked)
+                    .replacedByToken(replacedByToken)
+                    .revokedAt(revokedAt)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.koyta.auth.repositories;
+
+import com.koyta.auth.entities.RefreshToken;
+import jakarta.transaction.Transactional;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * {@link RefreshTokenStore} on the {@code refresh_token} table.
+ */
+@Component
+@ConditionalOnProperty(name = "security.jwt.refresh-store.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    public JpaRefreshTokenStore(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    @Override
+    public void save(RefreshToken token) {
+        refreshTokenRepository.save(token);
+    }
+
+    @Override
+    public Optional<RefreshToken> findByJti(String jti) {
+        return refreshTokenRepository.findByJti(jti);
+    }
+
+    @Override
+    @Transactional
+    public boolean revokeForRotation(String jti, String email, String replacedBy, Instant now) {
+        return refreshTokenRepository.revokeForRotation(jti, email, replacedBy, now) == 1;
+    }
+
+    @Override
+    @Transactional
+    public int revokeFamily(String familyId) {
+        return refreshTokenRepository.revokeFamily(familyId);
+    }
+
+    @Override
+    @Transactional
+    public int deleteAllForUser(UUID userId) {
+        return refreshTokenRepository.deleteByUserId(userId);
+    }
+}
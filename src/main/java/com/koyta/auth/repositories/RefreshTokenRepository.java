@@ -1,9 +1,16 @@
 package com.koyta.auth.repositories;
 
 import com.koyta.auth.entities.RefreshToken;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,4 +19,45 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID
 
    Optional<RefreshToken>findByJti(String jti);
 
+   /**
+    * Revokes the token in a single statement if it is still live and belongs to the given user.
+    * Returns 1 for the one caller that wins, 0 for unknown, revoked, expired or foreign tokens.
+    */
+   @Modifying
+   @Query("""
+           update RefreshToken rt set rt.revoked = true, rt.replacedByToken = :replacedBy, rt.revokedAt = :now
+           where rt.jti = :jti and rt.revoked = false and rt.expiresAt > :now
+             and rt.user.id = (select u.id from User u where u.email = :email)
+           """)
+   int revokeForRotation(@Param("jti") String jti, @Param("email") String email,
+                         @Param("replacedBy") String replacedBy, @Param("now") Instant now);
+
+   /**
+    * Revokes every live token of a rotation family in one statement, using the family_id index.
+    */
+   @Modifying
+   @Query("update RefreshToken rt set rt.revoked = true where rt.familyId = :familyId and rt.revoked = false")
+   int revokeFamily(@Param("familyId") String familyId);
+
+   /**
+    * Next batch of ids after {@code after}, in primary-key order, of rows expired before {@code cutoff}
+    * or revoked and created before {@code cutoff}.
+    */
+   @Query("""
+           select rt.id from RefreshToken rt
+           where rt.id > :after
+             and (rt.expiresAt < :cutoff or (rt.revoked = true and rt.createdAt < :cutoff))
+           order by rt.id
+           """)
+   List<UUID> findPurgeableIds(@Param("after") UUID after, @Param("cutoff") Instant cutoff, Pageable batch);
+
+   @Modifying
+   @Query("delete from RefreshToken rt where rt.user.id = :userId")
+   int deleteByUserId(@Param("userId") UUID userId);
+
+   @Modifying
+   @Transactional
+   @Query("delete from RefreshToken rt where rt.id in :ids")
+   int deleteByIdIn(@Param("ids") List<UUID> ids);
+
 }
@@ -0,0 +1,35 @@
+package com.koyta.auth.repositories;
+
+import com.koyta.auth.entities.RefreshToken;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Where refresh tokens live. Picked with {@code security.jwt.refresh-store.engine}: {@code jpa} (default, the
+ * {@code refresh_token} table) or {@code memory} (single node, tokens are lost on restart).
+ */
+public interface RefreshTokenStore {
+
+    void save(RefreshToken token);
+
+    Optional<RefreshToken> findByJti(String jti);
+
+    /**
+     * Atomically revokes the token if it is live at {@code now} and belongs to the user with {@code email}, marking
+     * it replaced by {@code replacedBy} at {@code now}. Of several concurrent calls for the same jti at most one
+     * returns true.
+     */
+    boolean revokeForRotation(String jti, String email, String replacedBy, Instant now);
+
+    /**
+     * Revokes every live token of a rotation family and returns how many were revoked.
+     */
+    int revokeFamily(String familyId);
+
+    /**
+     * Removes every token of the user, e.g. before the user itself is deleted.
+     */
+    int deleteAllForUser(UUID userId);
+}
@@ -0,0 +1,27 @@
+package com.koyta.auth.repositories;
+
+import com.koyta.auth.entities.UserInvalidation;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface UserInvalidationRepository extends JpaRepository<UserInvalidation, Long> {
+
+    List<UserInvalidation> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    @Query("select coalesce(max(i.id), 0) from UserInvalidation i")
+    long findMaxId();
+
+    @Modifying
+    @Transactional
+    @Query("delete from UserInvalidation i where i.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
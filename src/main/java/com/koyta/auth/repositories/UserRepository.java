@@ -1,16 +1,96 @@
 package com.koyta.auth.repositories;
 
+import com.koyta.auth.entities.Provider;
 import com.koyta.auth.entities.User;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, UUID> {
 
+    /** rows per round trip when streaming exports */
+    int EXPORT_FETCH_SIZE = 500;
+
+    // roles are lazy; the lookups that build a principal or a dto fetch them in the same query
+    @EntityGraph(attributePaths = "roles")
     Optional<User> findByEmail(String email);
+
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    Optional<User> findById(UUID id);
+
+    @Override
+    @EntityGraph(attributePaths = "roles")
+    List<User> findAll();
+
     boolean existsByEmail(String email);
     boolean existsByRoles_Name(String admin);
+
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Ids of the users after {@code (createdAt, id)} in listing order, matching the filters that are not null. Walks
+     * the {@code (created_at, user_id)} index, so a page costs the same however deep it is.
+     */
+    @Query("""
+            select u.id from User u
+            where (u.createdAt > :createdAt or (u.createdAt = :createdAt and u.id > :id))
+              and (:provider is null or u.provider = :provider)
+              and (:enabled is null or u.enable = :enabled)
+              and (:role is null or exists (select 1 from u.roles r where r.name = :role))
+            order by u.createdAt, u.id
+            """)
+    List<UUID> findPageIds(@Param("createdAt") Instant createdAt, @Param("id") UUID id,
+                           @Param("provider") Provider provider, @Param("enabled") Boolean enabled,
+                           @Param("role") String role, Limit limit);
+
+    @Query("select distinct u from User u left join fetch u.roles where u.id in :ids")
+    List<User> findWithRolesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Every matching user with its roles, in listing order, as a forward-only stream fetched {@value #EXPORT_FETCH_SIZE}
+     * rows at a time. Must be consumed, and closed, inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.koyta.auth.repositories.UserRoleRow(
+                u.id, u.name, u.email, u.image, u.enable, u.provider, r.id, r.name)
+            from User u left join u.roles r
+            where (:provider is null or u.provider = :provider)
+              and (:enabled is null or u.enable = :enabled)
+              and (:role is null or exists (select 1 from u.roles rr where rr.name = :role))
+            order by u.createdAt, u.id
+            """)
+    Stream<UserRoleRow> streamWithRoles(@Param("provider") Provider provider, @Param("enabled") Boolean enabled,
+                                        @Param("role") String role);
+
+    /**
+     * Replaces the password hash only if it is still {@code oldHash}. Leaves the version alone.
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :newHash where u.id = :id and u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("id") UUID id, @Param("oldHash") String oldHash,
+                                  @Param("newHash") String newHash);
 }
@@ -0,0 +1,22 @@
+package com.koyta.auth.repositories;
+
+import com.koyta.auth.entities.Provider;
+
+import java.util.UUID;
+
+/**
+ * One user joined with one of its roles, for streaming exports. A user with several roles spans several adjacent
+ * rows; a user without roles has one row with null role columns. Plain values, so the persistence context stays
+ * empty however many rows go by.
+ */
+public record UserRoleRow(
+        UUID id,
+        String name,
+        String email,
+        String image,
+        boolean enable,
+        Provider provider,
+        UUID roleId,
+        String roleName
+) {
+}
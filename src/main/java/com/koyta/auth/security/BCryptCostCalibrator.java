@@ -0,0 +1,42 @@
+package com.koyta.auth.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+
+/**
+ * Picks the BCrypt cost for this machine. Each cost step doubles the work, so one timed hash at a low probe cost is
+ * enough to extrapolate to the cost whose hash takes closest to the target.
+ */
+@Slf4j
+public final class BCryptCostCalibrator {
+
+    private static final int PROBE_COST = 8;
+
+    private static final int PROBE_RUNS = 3;
+
+    private BCryptCostCalibrator() {
+    }
+
+    public static int calibrate(Duration target, int minStrength, int maxStrength) {
+        long probeNanos = Long.MAX_VALUE;
+        String salt = BCrypt.gensalt(PROBE_COST);
+        for (int i = 0; i < PROBE_RUNS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            probeNanos = Math.min(probeNanos, System.nanoTime() - start);
+        }
+
+        int strength = strengthFor(target, Duration.ofNanos(probeNanos), minStrength, maxStrength);
+        log.info("BCrypt cost {} picked for a target of {} ms (cost {} took {} µs)",
+                strength, target.toMillis(), PROBE_COST, probeNanos / 1000);
+        return strength;
+    }
+
+    static int strengthFor(Duration target, Duration probe, int minStrength, int maxStrength) {
+        double ratio = (double) target.toNanos() / Math.max(1, probe.toNanos());
+        int strength = PROBE_COST + (int) Math.round(Math.log(ratio) / Math.log(2));
+        return Math.clamp(strength, minStrength, maxStrength);
+    }
+}
@@ -123,7 +123,7 @@ public class CookieService {
             String candidate = authHeader.substring(7).trim();
             if (!candidate.isEmpty()) {
                 try {
-                    if (jwtService.isRefreshToken(candidate)) {
+                    if (jwtService.verify(candidate).isRefreshToken()) {
                         return Optional.of(candidate);
                     }
                 } catch (Exception ignored) {
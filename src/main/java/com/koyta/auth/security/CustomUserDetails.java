@@ -2,24 +2,44 @@ package com.koyta.auth.security;
 
 import com.koyta.auth.entities.User;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.UUID;
 
 public class CustomUserDetails implements UserDetails {
 
     private User user;
 
-    public CustomUserDetails(User user) {
+    private final RoleSet roleSet;
+
+    public CustomUserDetails(User user, RoleSet roleSet) {
         this.user = user;
+        this.roleSet = roleSet;
+    }
+
+    /**
+     * Builds the principal from verified access-token claims without loading the user from the database.
+     * Only id, email, roles and version are known; the password is not available.
+     */
+    public static CustomUserDetails fromClaims(VerifiedToken token, RoleSet roleSet) {
+        User user = new User();
+        user.setId(UUID.fromString(token.userId()));
+        user.setEmail(token.subject());
+        user.setVersion(token.version());
+        user.setEnable(true);
+        user.setRoles(roleSet.roles());
+        return new CustomUserDetails(user, roleSet);
     }
 
+    // the registry's shared list, not a copy per call
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName()))
-                .toList();
+        return roleSet.authorities();
+    }
+
+    public RoleSet getRoleSet() {
+        return roleSet;
     }
 
     public User getUser() {
@@ -0,0 +1,301 @@
+package com.koyta.auth.security;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.koyta.auth.exceptions.JwtTokenExpiredException;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fast path for verifying the HMAC-signed tokens we issue ourselves, without building a jjwt parser per call.
+ *
+ * <p>The header segment is compared against the exact headers jjwt writes for HS256/HS384/HS512, the signature is
+ * decoded from base64url into a pooled buffer, recomputed with a pooled {@link Mac} and compared in constant time
+ * before any JSON is read. Only then is the payload streamed, picking out the claims {@link VerifiedToken} needs. The
+ * pool, not a thread-local, keeps the {@code Mac}s and buffers reusable when every request runs on a new virtual
+ * thread.
+ *
+ * <p>The verifier only decides when the outcome is certain. Any token it does not recognise (other header, padding,
+ * non-canonical base64url, unexpected claim types, {@code nbf}) makes {@link #verify(String)} return {@code null} so the
+ * caller falls back to jjwt, which keeps accept/reject decisions identical to the jjwt path.
+ */
+public class HmacTokenVerifier {
+
+    private static final String[] HEADERS = {
+            "eyJhbGciOiJIUzI1NiJ9", // {"alg":"HS256"}
+            "eyJhbGciOiJIUzM4NCJ9", // {"alg":"HS384"}
+            "eyJhbGciOiJIUzUxMiJ9"  // {"alg":"HS512"}
+    };
+    private static final String[] MAC_ALGORITHMS = {"HmacSHA256", "HmacSHA384", "HmacSHA512"};
+    private static final int[] MIN_KEY_BYTES = {32, 48, 64};
+
+    private static final int POOL_SIZE = 2 * Runtime.getRuntime().availableProcessors();
+
+    private static final long MAX_EXP_SECONDS = 253_402_300_799L; // 9999-12-31T23:59:59Z
+
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private final JsonFactory jsonFactory = JsonFactory.builder()
+            .enable(StreamReadFeature.STRICT_DUPLICATE_DETECTION)
+            .build();
+
+    private final byte[] keyBytes;
+
+    // idle buffers; verification is CPU-bound, so a couple per core covers every thread that can use one at once
+    private final BlockingQueue<Buffers> pool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    public HmacTokenVerifier(SecretKey key) {
+        this.keyBytes = key.getEncoded();
+    }
+
+    /**
+     * @return the verified claims, or {@code null} if the token is outside the fast path and jjwt has to decide
+     * @throws JwtTokenExpiredException with the same messages as the jjwt path when the signature does not match or
+     *                                  the token has expired
+     */
+    public VerifiedToken verify(String token) {
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            return null;
+        }
+
+        int alg = headerIndex(token, firstDot);
+        if (alg < 0) {
+            return null;
+        }
+
+        Buffers buf = pool.poll();
+        if (buf == null) {
+            buf = new Buffers(keyBytes);
+        }
+        try {
+            return verify(token, firstDot, secondDot, alg, buf);
+        } finally {
+            // dropped if the pool is full
+            pool.offer(buf);
+        }
+    }
+
+    private VerifiedToken verify(String token, int firstDot, int secondDot, int alg, Buffers buf) {
+        Mac mac = buf.mac(alg);
+        if (mac == null) {
+            return null;
+        }
+
+        int signatureLength = decode(token, secondDot + 1, token.length(), buf.signature);
+        if (signatureLength != mac.getMacLength()) {
+            return null;
+        }
+
+        buf.ensureInput(secondDot);
+        for (int i = 0; i < secondDot; i++) {
+            buf.input[i] = (byte) token.charAt(i);
+        }
+        mac.update(buf.input, 0, secondDot);
+        try {
+            mac.doFinal(buf.expected, 0);
+        } catch (GeneralSecurityException e) {
+            mac.reset();
+            return null;
+        }
+
+        if (!constantTimeEquals(buf.expected, buf.signature, signatureLength)) {
+            throw new JwtTokenExpiredException("invalid Jwt token");
+        }
+
+        buf.ensurePayload(secondDot - firstDot);
+        int payloadLength = decode(token, firstDot + 1, secondDot, buf.payload);
+        if (payloadLength < 0) {
+            return null;
+        }
+
+        VerifiedToken verified = readClaims(buf.payload, payloadLength);
+        if (verified != null && verified.expiresAt() != null
+                && System.currentTimeMillis() > verified.expiresAt().toEpochMilli()) {
+            throw new JwtTokenExpiredException("Token is Expired");
+        }
+        return verified;
+    }
+
+    private static boolean constantTimeEquals(byte[] a, byte[] b, int length) {
+        int diff = 0;
+        for (int i = 0; i < length; i++) {
+            diff |= a[i] ^ b[i];
+        }
+        return diff == 0;
+    }
+
+    private static int headerIndex(String token, int firstDot) {
+        for (int i = 0; i < HEADERS.length; i++) {
+            if (HEADERS[i].length() == firstDot && token.startsWith(HEADERS[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private VerifiedToken readClaims(byte[] payload, int length) {
+        String subject = null, type = null, jti = null, userId = null, family = null;
+        Long expiresAt = null, version = null, roleMask = null;
+        List<String> roles = List.of();
+
+        try (JsonParser parser = jsonFactory.createParser(payload, 0, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            JsonToken next;
+            while ((next = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+
+                switch (name) {
+                    case "sub" -> { if ((subject = text(parser, value)) == null) return null; }
+                    case "typ" -> { if ((type = text(parser, value)) == null) return null; }
+                    case "jti" -> { if ((jti = text(parser, value)) == null) return null; }
+                    case "id" -> { if ((userId = text(parser, value)) == null) return null; }
+                    case "fam" -> { if ((family = text(parser, value)) == null) return null; }
+                    case "exp" -> { if ((expiresAt = number(parser, value)) == null) return null; }
+                    case "ver" -> { if ((version = number(parser, value)) == null) return null; }
+                    case "rm" -> { if ((roleMask = number(parser, value)) == null) return null; }
+                    case "nbf" -> { return null; }
+                    case "roles" -> {
+                        if (value != JsonToken.START_ARRAY) return null;
+                        List<String> list = new ArrayList<>(2);
+                        while ((value = parser.nextToken()) == JsonToken.VALUE_STRING) {
+                            list.add(parser.getText());
+                        }
+                        if (value != JsonToken.END_ARRAY) return null;
+                        roles = list;
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (next != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                return null;
+            }
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+
+        // jjwt reads exp as seconds and converts to a Date; leave anything that could overflow to jjwt
+        if (expiresAt != null && (expiresAt < 0 || expiresAt > MAX_EXP_SECONDS)) {
+            return null;
+        }
+
+        return new VerifiedToken(subject, type, jti, roles, userId,
+                expiresAt == null ? null : Instant.ofEpochSecond(expiresAt), version, family, roleMask);
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+    }
+
+    private static Long number(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : null;
+    }
+
+    /**
+     * Decodes unpadded, canonical base64url from {@code src[from, to)} into {@code dst}.
+     *
+     * @return number of bytes written, or -1 if the input is not canonical base64url or does not fit
+     */
+    static int decode(String src, int from, int to, byte[] dst) {
+        int length = to - from;
+        if (length % 4 == 1) {
+            return -1;
+        }
+        int outLength = length * 3 / 4;
+        if (outLength > dst.length) {
+            return -1;
+        }
+
+        int out = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = from; i < to; i++) {
+            char c = src.charAt(i);
+            int v = c < 128 ? DECODE[c] : -1;
+            if (v < 0) {
+                return -1;
+            }
+            bits = (bits << 6) | v;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                dst[out++] = (byte) (bits >> bitCount);
+            }
+        }
+
+        // leftover bits must be zero, otherwise another encoding maps to the same bytes
+        if ((bits & ((1 << bitCount) - 1)) != 0) {
+            return -1;
+        }
+        return out;
+    }
+
+    private static final class Buffers {
+
+        private final byte[] keyBytes;
+        private final Mac[] macs = new Mac[MAC_ALGORITHMS.length];
+        private final byte[] signature = new byte[64];
+        private final byte[] expected = new byte[64];
+        private byte[] input = new byte[1024];
+        private byte[] payload = new byte[1024];
+
+        private Buffers(byte[] keyBytes) {
+            this.keyBytes = keyBytes;
+        }
+
+        private Mac mac(int alg) {
+            if (keyBytes.length < MIN_KEY_BYTES[alg]) {
+                return null;
+            }
+            if (macs[alg] == null) {
+                try {
+                    Mac mac = Mac.getInstance(MAC_ALGORITHMS[alg]);
+                    mac.init(new SecretKeySpec(keyBytes, MAC_ALGORITHMS[alg]));
+                    macs[alg] = mac;
+                } catch (GeneralSecurityException e) {
+                    return null;
+                }
+            }
+            return macs[alg];
+        }
+
+        private void ensureInput(int length) {
+            if (input.length < length) {
+                input = new byte[Math.max(length, input.length * 2)];
+            }
+        }
+
+        private void ensurePayload(int encodedLength) {
+            int length = encodedLength * 3 / 4 + 3;
+            if (payload.length < length) {
+                payload = new byte[Math.max(length, payload.length * 2)];
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,33 +26,42 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final UserDetailsServiceImpl userDetailsService;
 
+    private final UserVersionWatermark userVersionWatermark;
+
+    private final RoleRegistry roleRegistry;
+
+    // when enabled, the principal is rebuilt from the access-token claims instead of loading the user per request
+    @Value("${security.jwt.claims-trusted:false}")
+    private boolean claimsTrusted;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
 
         try{
             String authHeader = request.getHeader("Authorization");
-            String token = null;
-            String username = null;
-            
+
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
 
-                token = authHeader.substring(7);
-                username = jwtService.extractUserName(token);
-            }
+                // signature, expiry and claims are checked once here and reused below
+                VerifiedToken token = jwtService.verify(authHeader.substring(7));
+                String username = token.subject();
 
-            if (username != null && jwtService.isAccessToken(token) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                boolean validateToken = jwtService.validateToken(token, userDetails);
+                if (username != null && token.isAccessToken() && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UserDetails userDetails = claimsTrusted && userVersionWatermark.isCurrent(token)
+                            ? CustomUserDetails.fromClaims(token, roleRegistry.roleSetOf(token))
+                            : userDetailsService.loadUserByUsername(username);
+                    boolean validateToken = jwtService.validateToken(token, userDetails);
 
-                if (validateToken && userDetails.isEnabled()) {
-                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
+                    if (validateToken && userDetails.isEnabled()) {
+                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                                userDetails, null, userDetails.getAuthorities());
 
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                }
+                    }
 
+                }
             }
 
         } catch (JwtException | JwtTokenExpiredException ex) {
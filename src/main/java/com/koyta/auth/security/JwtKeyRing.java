@@ -0,0 +1,218 @@
+package com.koyta.auth.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Keys used to sign and verify our JWTs.
+ *
+ * <p>In HS256 mode every token is signed with the shared secret and carries no {@code kid}. In RS256/EdDSA mode new
+ * tokens are signed with the active private key and carry its {@code kid}; tokens are verified with the public key
+ * named by their {@code kid}, so tokens signed by a retired key keep verifying while that key is still listed.
+ * Tokens without a {@code kid} were issued before the switch and verify with the shared secret unless
+ * {@code accept-legacy-hmac} is turned off.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing extends LocatorAdapter<Key> {
+
+    private final SecretKey hmacKey;
+
+    private final boolean acceptLegacyHmac;
+
+    private final SigningKey active;
+
+    private final Map<String, VerificationKey> verificationKeys;
+
+    private final String jwksJson;
+
+    private final HmacTokenVerifier hmacVerifier;
+
+    @Autowired
+    public JwtKeyRing(@Value("${security.jwt.secret}") String secret, JwtSigningProperties properties) {
+
+        if (secret == null || secret.length() < 64) {
+            throw new IllegalStateException("JWT secret must be at least 64 characters. Provide via env JWT_SECRET.");
+        }
+        this.hmacKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.acceptLegacyHmac = properties.acceptLegacyHmac();
+
+        if ("HS256".equalsIgnoreCase(properties.algorithm())) {
+            this.active = null;
+            this.verificationKeys = Map.of();
+        } else {
+            Map<String, VerificationKey> keys = new LinkedHashMap<>();
+            SigningKey signing = null;
+
+            for (JwtSigningProperties.Key entry : properties.keys()) {
+                String algorithm = entry.algorithm() == null ? properties.algorithm() : entry.algorithm();
+                PublicKey publicKey = readPublicKey(algorithm, entry.publicKey());
+                keys.put(entry.kid(), new VerificationKey(entry.kid(), algorithm, publicKey));
+
+                if (entry.kid().equals(properties.activeKid())) {
+                    if (entry.privateKey() == null || entry.privateKey().isBlank()) {
+                        throw new IllegalStateException("Active JWT key " + entry.kid() + " has no private key");
+                    }
+                    signing = new SigningKey(entry.kid(), readPrivateKey(algorithm, entry.privateKey()), signatureAlgorithm(algorithm));
+                }
+            }
+
+            if (signing == null) {
+                if (properties.activeKid() != null && !properties.activeKid().isBlank()) {
+                    throw new IllegalStateException("Active JWT key " + properties.activeKid() + " is not configured");
+                }
+                // no keys configured: fine for local runs, but tokens will not survive a restart
+                KeyPair pair = generateKeyPair(properties.algorithm());
+                String kid = "ephemeral-" + UUID.randomUUID();
+                log.warn("No JWT signing keys configured for {}, using an ephemeral key pair ({})", properties.algorithm(), kid);
+                keys.put(kid, new VerificationKey(kid, properties.algorithm(), pair.getPublic()));
+                signing = new SigningKey(kid, pair.getPrivate(), signatureAlgorithm(properties.algorithm()));
+            }
+
+            this.active = signing;
+            this.verificationKeys = Map.copyOf(keys);
+        }
+
+        this.jwksJson = buildJwksJson();
+        this.hmacVerifier = active == null || acceptLegacyHmac ? new HmacTokenVerifier(hmacKey) : null;
+    }
+
+    public static JwtKeyRing hmac(String secret) {
+        return new JwtKeyRing(secret, JwtSigningProperties.hmac());
+    }
+
+    public JwtBuilder sign(JwtBuilder builder) {
+        if (active == null) {
+            return builder.signWith(hmacKey);
+        }
+        return builder.header().keyId(active.kid()).and()
+                .signWith(active.privateKey(), active.algorithm());
+    }
+
+    /**
+     * Fast verifier for kid-less HMAC tokens, or {@code null} when this ring does not accept them.
+     */
+    public HmacTokenVerifier hmacVerifier() {
+        return hmacVerifier;
+    }
+
+    public String activeKid() {
+        return active == null ? null : active.kid();
+    }
+
+    /**
+     * JWK Set with the public half of every verification key; empty in HS256 mode.
+     */
+    public String jwksJson() {
+        return jwksJson;
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+
+        if (kid == null) {
+            if (active == null || acceptLegacyHmac) {
+                return hmacKey;
+            }
+            throw new UnsupportedJwtException("Token has no key id");
+        }
+
+        VerificationKey key = verificationKeys.get(kid);
+        if (key == null) {
+            throw new UnsupportedJwtException("Unknown key id");
+        }
+        return key.publicKey();
+    }
+
+    private String buildJwksJson() {
+        String keys = verificationKeys.values().stream()
+                .map(key -> Jwks.json(Jwks.builder().key(key.publicKey())
+                        .id(key.kid())
+                        .algorithm(key.algorithm())
+                        .publicKeyUse("sig")
+                        .build()))
+                .collect(Collectors.joining(","));
+        return "{\"keys\":[" + keys + "]}";
+    }
+
+    private static SignatureAlgorithm signatureAlgorithm(String algorithm) {
+        return switch (algorithm.toUpperCase()) {
+            case "RS256" -> Jwts.SIG.RS256;
+            case "EDDSA" -> Jwts.SIG.EdDSA;
+            default -> throw new IllegalStateException("Unsupported JWT signing algorithm: " + algorithm);
+        };
+    }
+
+    private static String keyFactoryAlgorithm(String algorithm) {
+        return "RS256".equalsIgnoreCase(algorithm) ? "RSA" : "Ed25519";
+    }
+
+    private static KeyPair generateKeyPair(String algorithm) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(keyFactoryAlgorithm(algorithm));
+            if ("RS256".equalsIgnoreCase(algorithm)) {
+                generator.initialize(2048);
+            }
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to generate JWT key pair", e);
+        }
+    }
+
+    private static PublicKey readPublicKey(String algorithm, String pem) {
+        try {
+            return KeyFactory.getInstance(keyFactoryAlgorithm(algorithm))
+                    .generatePublic(new X509EncodedKeySpec(decodePem(pem)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid JWT public key", e);
+        }
+    }
+
+    private static PrivateKey readPrivateKey(String algorithm, String pem) {
+        try {
+            return KeyFactory.getInstance(keyFactoryAlgorithm(algorithm))
+                    .generatePrivate(new PKCS8EncodedKeySpec(decodePem(pem)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid JWT private key", e);
+        }
+    }
+
+    private static byte[] decodePem(String pem) {
+        String base64 = pem.replaceAll("-----(BEGIN|END) [A-Z ]+-----", "").replaceAll("\\s", "");
+        return Base64.getDecoder().decode(base64);
+    }
+
+    private record SigningKey(String kid, PrivateKey privateKey, SignatureAlgorithm algorithm) {
+    }
+
+    private record VerificationKey(String kid, String algorithm, PublicKey publicKey) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.koyta.auth.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Signing configuration under {@code security.jwt.signing}.
+ *
+ * <p>{@code algorithm} is HS256 (shared secret, the default), RS256 or EdDSA. For the asymmetric algorithms,
+ * {@code keys} lists every key that may still verify tokens; the one named by {@code active-kid} also signs new
+ * tokens and must carry a private key. Rotating means adding the new key, switching {@code active-kid}, and removing
+ * the old entry only after the refresh TTL has passed.
+ */
+@ConfigurationProperties(prefix = "security.jwt.signing")
+public record JwtSigningProperties(
+        String algorithm,
+        String activeKid,
+        Boolean acceptLegacyHmac,
+        Long jwksMaxAgeSeconds,
+        List<Key> keys
+) {
+
+    public JwtSigningProperties {
+        algorithm = algorithm == null || algorithm.isBlank() ? "HS256" : algorithm;
+        acceptLegacyHmac = acceptLegacyHmac == null || acceptLegacyHmac;
+        jwksMaxAgeSeconds = jwksMaxAgeSeconds == null ? 300L : jwksMaxAgeSeconds;
+        keys = keys == null ? List.of() : List.copyOf(keys);
+    }
+
+    public static JwtSigningProperties hmac() {
+        return new JwtSigningProperties("HS256", null, true, null, List.of());
+    }
+
+    /**
+     * @param algorithm  RS256 or EdDSA, defaults to the top-level algorithm
+     * @param privateKey PKCS#8 PEM, only needed for the active key
+     * @param publicKey  X.509 (SubjectPublicKeyInfo) PEM
+     */
+    public record Key(String kid, String algorithm, String privateKey, String publicKey) {
+    }
+}
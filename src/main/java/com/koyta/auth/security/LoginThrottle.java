@@ -0,0 +1,156 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.exceptions.LoginThrottledException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Refuses logins from an IP or for an email that is over its limit, see {@link LoginThrottleProperties}. Checked
+ * before the password is verified, so throttled attempts cost no BCrypt work.
+ *
+ * <p>Every attempt counts against the client IP, which catches credential stuffing across many emails. Only failed
+ * attempts count against the email, which catches password guessing from many IPs without locking out a user who
+ * simply logs in often.
+ */
+@Slf4j
+@Component
+public class LoginThrottle implements MeterBinder {
+
+    private final LoginThrottleProperties properties;
+
+    private final SlidingWindowSketch attemptsByIp;
+
+    private final SlidingWindowSketch failuresByEmail;
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    private final LongAdder throttledByIp = new LongAdder();
+    private final LongAdder throttledByEmail = new LongAdder();
+
+    @Autowired
+    public LoginThrottle(LoginThrottleProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    LoginThrottle(LoginThrottleProperties properties, LongSupplier clock) {
+        this.properties = properties;
+        SecureRandom random = new SecureRandom();
+        long windowNanos = properties.window().toNanos();
+        this.attemptsByIp = new SlidingWindowSketch(properties.sketchWidth(), properties.sketchDepth(), windowNanos,
+                random.nextLong(), clock);
+        this.failuresByEmail = new SlidingWindowSketch(properties.sketchWidth(), properties.sketchDepth(), windowNanos,
+                random.nextLong(), clock);
+        this.trustedProxies = properties.trustedProxies().stream().map(IpAddressMatcher::new).toList();
+    }
+
+    /**
+     * Returns the address of the client behind {@code request}: the remote address, or, when that is a trusted proxy,
+     * the nearest {@code X-Forwarded-For} hop that is not one.
+     */
+    public String clientIp(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        if (trustedProxies.isEmpty() || !isTrustedProxy(remote)) {
+            return remote;
+        }
+        String client = remote;
+        // proxies append, so the hops are walked from the right; the first untrusted one is the real client
+        List<String> headers = Collections.list(request.getHeaders("X-Forwarded-For"));
+        for (int h = headers.size() - 1; h >= 0; h--) {
+            String[] hops = headers.get(h).split(",");
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (hop.isEmpty()) {
+                    continue;
+                }
+                client = hop;
+                if (!isTrustedProxy(hop)) {
+                    return hop;
+                }
+            }
+        }
+        return client;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        for (IpAddressMatcher proxy : trustedProxies) {
+            try {
+                if (proxy.matches(address)) {
+                    return true;
+                }
+            } catch (IllegalArgumentException ex) {
+                // not an IP address, so not a proxy we know
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts a login attempt from {@code clientIp} and refuses it if the IP or the email is over its limit.
+     *
+     * @throws LoginThrottledException when the attempt must not go on to password verification
+     */
+    public void checkAttempt(String clientIp, String email) {
+        if (!properties.enabled()) {
+            return;
+        }
+        if (clientIp != null && attemptsByIp.add(clientIp) > properties.maxAttemptsPerIp()) {
+            throttledByIp.increment();
+            log.warn("Login throttled for client {}", clientIp);
+            throw throttled();
+        }
+        String key = normalize(email);
+        if (key != null && failuresByEmail.estimate(key) >= properties.maxFailuresPerEmail()) {
+            throttledByEmail.increment();
+            log.warn("Login throttled for an email after repeated failures");
+            throw throttled();
+        }
+    }
+
+    /**
+     * Counts a failed login for {@code email}.
+     */
+    public void recordFailure(String email) {
+        String key = normalize(email);
+        if (properties.enabled() && key != null) {
+            failuresByEmail.add(key);
+        }
+    }
+
+    private LoginThrottledException throttled() {
+        return new LoginThrottledException("Too many login attempts, try again later", properties.window());
+    }
+
+    private static String normalize(String email) {
+        return email == null || email.isBlank() ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public long throttledCount() {
+        return throttledByIp.sum() + throttledByEmail.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.login.throttled", throttledByIp, LongAdder::sum)
+                .tag("key", "ip")
+                .description("Login attempts refused before password verification")
+                .register(registry);
+        FunctionCounter.builder("auth.login.throttled", throttledByEmail, LongAdder::sum)
+                .tag("key", "email")
+                .description("Login attempts refused before password verification")
+                .register(registry);
+    }
+}
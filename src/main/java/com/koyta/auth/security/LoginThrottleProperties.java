@@ -0,0 +1,42 @@
+package com.koyta.auth.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Login throttle configuration under {@code security.login-throttle}.
+ *
+ * <p>Within a sliding {@code window}, a client IP may make {@code max-attempts-per-ip} login attempts and an email may
+ * collect {@code max-failures-per-email} failed ones; past either limit logins are refused with a 429 before the
+ * password is checked. Counts live in count-min sketches of {@code sketch-depth} rows by {@code sketch-width}
+ * counters, so memory is fixed however many keys an attacker sprays; a larger width means fewer keys sharing a
+ * counter and fewer innocent keys over-counted.
+ *
+ * <p>The client IP is the connection's remote address. Behind a load balancer or reverse proxy that is the proxy's
+ * address for everyone, so list the proxies in {@code trusted-proxies} (addresses or CIDR ranges): a request arriving
+ * from one of them is attributed to the nearest {@code X-Forwarded-For} hop that is not itself trusted. Hops further
+ * left were written by the client and are never used. With the list empty the header is ignored.
+ */
+@ConfigurationProperties(prefix = "security.login-throttle")
+public record LoginThrottleProperties(
+        Boolean enabled,
+        Duration window,
+        Integer maxAttemptsPerIp,
+        Integer maxFailuresPerEmail,
+        Integer sketchWidth,
+        Integer sketchDepth,
+        List<String> trustedProxies
+) {
+
+    public LoginThrottleProperties {
+        enabled = enabled == null || enabled;
+        window = window == null ? Duration.ofMinutes(1) : window;
+        maxAttemptsPerIp = maxAttemptsPerIp == null ? 60 : maxAttemptsPerIp;
+        maxFailuresPerEmail = maxFailuresPerEmail == null ? 10 : maxFailuresPerEmail;
+        sketchWidth = sketchWidth == null ? 4096 : sketchWidth;
+        sketchDepth = sketchDepth == null ? 4 : sketchDepth;
+        trustedProxies = trustedProxies == null ? List.of() : List.copyOf(trustedProxies);
+    }
+}
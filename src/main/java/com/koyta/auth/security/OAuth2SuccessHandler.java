@@ -3,9 +3,10 @@ package com.koyta.auth.security;
 import com.koyta.auth.entities.Provider;
 import com.koyta.auth.entities.RefreshToken;
 import com.koyta.auth.entities.User;
-import com.koyta.auth.repositories.RefreshTokenRepository;
+import com.koyta.auth.repositories.RefreshTokenStore;
 import com.koyta.auth.repositories.UserRepository;
 import com.koyta.auth.services.JwtService;
+import com.koyta.auth.util.IdGenerator;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -20,7 +21,6 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.time.Instant;
-import java.util.UUID;
 
 @Component
 public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
@@ -29,28 +29,35 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
 
     private final UserRepository userRepository;
 
+    private final UserCache userCache;
+
     private final JwtService jwtService;
 
     private final CookieService cookieService;
 
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenStore refreshTokenStore;
 
     private final long refreshTtlSeconds;
 
+    private final IdGenerator idGenerator;
+
     @Value("${app.auth.frontend.success-redirect}")
     private String frontEndSuccessUrl;
 
     public OAuth2SuccessHandler(UserRepository userRepository,
+                                UserCache userCache,
                                 JwtService jwtService,
                                 CookieService cookieService,
-                                RefreshTokenRepository refreshTokenRepository,
-                                @Value("${security.jwt.refresh-ttl-seconds:1209600}") long refreshTtlSeconds
-                              ) {
+                                RefreshTokenStore refreshTokenStore,
+                                @Value("${security.jwt.refresh-ttl-seconds:1209600}") long refreshTtlSeconds,
+                                IdGenerator idGenerator) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
         this.jwtService = jwtService;
         this.cookieService = cookieService;
-        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenStore = refreshTokenStore;
         this.refreshTtlSeconds = refreshTtlSeconds;
+        this.idGenerator = idGenerator;
     }
 
     @Override
@@ -87,7 +94,7 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
                         .providerId(googleId)
                         .build();
 
-                user = userRepository.findByEmail(email).orElseGet(() -> userRepository.save(newUser));
+                user = userCache.findByEmail(email).orElseGet(() -> userRepository.save(newUser));
             }
             case "github" -> {
                 String githubId = oAuth2User.getAttributes().getOrDefault("id", "").toString();
@@ -107,23 +114,24 @@ public class OAuth2SuccessHandler implements AuthenticationSuccessHandler {
                         .provider(Provider.GITHUB)
                         .providerId(githubId)
                         .build();
-                user = userRepository.findByEmail(email).orElseGet(() -> userRepository.save(newUser));
+                user = userCache.findByEmail(email).orElseGet(() -> userRepository.save(newUser));
             }
             default -> throw new RuntimeException("Invalid registration id");
         }
 
 
         //        refresh token bana ke dunga:
-        String jti = UUID.randomUUID().toString();
+        String jti = idGenerator.nextString();
         RefreshToken refreshTokenOb = RefreshToken.builder()
                 .jti(jti)
+                .familyId(jti)
                 .user(user)
                 .revoked(false)
                 .createdAt(Instant.now())
                 .expiresAt(Instant.now().plusSeconds(refreshTtlSeconds))
                 .build();
 
-        refreshTokenRepository.save(refreshTokenOb);
+        refreshTokenStore.save(refreshTokenOb);
 
         String accessToken = jwtService.generateAccessToken(user);
         String refreshToken = jwtService.generateRefreshToken(user, refreshTokenOb.getJti());
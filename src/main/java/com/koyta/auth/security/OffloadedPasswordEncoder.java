@@ -0,0 +1,54 @@
+package com.koyta.auth.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link PasswordEncoder} that runs {@code encode} and {@code matches} of its delegate on the
+ * {@link PasswordHashingExecutor}. This covers {@code AuthenticationManager.authenticate} too, since the DAO
+ * provider verifies passwords through the encoder bean.
+ */
+public class OffloadedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final PasswordHashingExecutor executor;
+
+    public OffloadedPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Hashes on the pool without blocking the caller.
+     *
+     * @throws com.koyta.auth.exceptions.PasswordHashingRejectedException when the pool queue is full
+     */
+    public CompletableFuture<String> encodeInBackground(CharSequence rawPassword) {
+        return executor.submit(() -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * The wrapped encoder, which hashes on the calling thread. For callers that already run on a bounded pool of
+     * their own and must not take slots from logins.
+     */
+    public PasswordEncoder inline() {
+        return delegate;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
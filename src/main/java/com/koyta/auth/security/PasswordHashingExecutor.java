@@ -0,0 +1,195 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.exceptions.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Fixed pool that runs password hashing and verification off the request threads, see
+ * {@link PasswordHashingProperties}.
+ *
+ * <p>The caller still waits for the result, but only {@code threads} hashes burn CPU at once and the queue in front of
+ * them is bounded, so a login burst queues or is shed instead of starving every other endpoint. A task that has not
+ * started within {@code max-wait} is pulled from the queue and the caller is rejected; a task that already started is
+ * always awaited.
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor implements MeterBinder, AutoCloseable {
+
+    private final ThreadPoolExecutor executor;
+
+    private final PasswordHashingProperties properties;
+
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+
+    public PasswordHashingExecutor(PasswordHashingProperties properties) {
+        this.properties = properties;
+        this.executor = new ThreadPoolExecutor(properties.threads(), properties.threads(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.queueCapacity())), threadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Runs {@code task} on the pool and returns its result.
+     *
+     * @throws PasswordHashingRejectedException when the queue is full or the task did not start within max-wait
+     */
+    public <T> T execute(Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+        FutureTask<T> future = new FutureTask<>(() -> timed(enqueuedAt, task));
+
+        try {
+            executor.execute(future);
+        } catch (RejectedExecutionException e) {
+            rejectedQueueFull.increment();
+            throw rejected("Password hashing queue is full");
+        }
+
+        try {
+            return await(future);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            executor.remove(future);
+            throw rejected("Interrupted while waiting for password hashing");
+        }
+    }
+
+    /**
+     * Queues {@code task} without waiting for it, for work nobody is blocked on such as rehashing after login.
+     * Background tasks are not subject to max-wait.
+     *
+     * @throws PasswordHashingRejectedException when the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(timed(enqueuedAt, task));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedQueueFull.increment();
+            throw rejected("Password hashing queue is full");
+        }
+        return result;
+    }
+
+    private <T> T timed(long enqueuedAt, Supplier<T> task) {
+        long startedAt = System.nanoTime();
+        waitCount.increment();
+        waitNanos.add(startedAt - enqueuedAt);
+        try {
+            return task.get();
+        } finally {
+            hashCount.increment();
+            hashNanos.add(System.nanoTime() - startedAt);
+        }
+    }
+
+    private <T> T await(FutureTask<T> future) throws InterruptedException {
+        try {
+            try {
+                return future.get(properties.maxWait().toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (executor.remove(future)) {
+                    rejectedTimeout.increment();
+                    throw rejected("Password hashing did not start within " + properties.maxWait());
+                }
+                // already running, a single hash is bounded
+                return future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    private PasswordHashingRejectedException rejected(String message) {
+        log.warn("{}, rejecting request", message);
+        return new PasswordHashingRejectedException("Too many login requests, try again later",
+                properties.retryAfter());
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public int queueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    public long rejectedCount() {
+        return rejectedQueueFull.sum() + rejectedTimeout.sum();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.password_hash.queue.depth", this, PasswordHashingExecutor::queueDepth)
+                .description("Password hashes waiting for a pool thread")
+                .register(registry);
+        Gauge.builder("auth.password_hash.active", this, PasswordHashingExecutor::activeCount)
+                .register(registry);
+        FunctionTimer.builder("auth.password_hash.wait", this,
+                        e -> e.waitCount.sum(), e -> e.waitNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time a password hash spent queued before it started")
+                .register(registry);
+        FunctionTimer.builder("auth.password_hash.duration", this,
+                        e -> e.hashCount.sum(), e -> e.hashNanos.sum(), TimeUnit.NANOSECONDS)
+                .register(registry);
+        FunctionCounter.builder("auth.password_hash.rejected", rejectedQueueFull, LongAdder::sum)
+                .tag("reason", "queue_full")
+                .register(registry);
+        FunctionCounter.builder("auth.password_hash.rejected", rejectedTimeout, LongAdder::sum)
+                .tag("reason", "timeout")
+                .register(registry);
+    }
+}
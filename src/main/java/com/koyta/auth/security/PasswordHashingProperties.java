@@ -0,0 +1,43 @@
+package com.koyta.auth.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Password hashing configuration under {@code security.password-hashing}.
+ *
+ * <p>At most {@code threads} hashes run at once and at most {@code queue-capacity} wait for a thread. A caller that
+ * finds the queue full, or whose hash has not started within {@code max-wait}, is turned away with a 503 carrying
+ * {@code retry-after}. By default half the cores hash, so a login burst cannot take the CPU from other endpoints.
+ *
+ * <p>New hashes use {@code algorithm}. A BCrypt {@code strength} of 0 means calibrate at startup: the highest cost
+ * whose hash takes about {@code target-hash-time} on this machine, kept within {@code min-strength} and
+ * {@code max-strength}. Hashes below the current algorithm or cost are upgraded on the next successful login.
+ */
+@ConfigurationProperties(prefix = "security.password-hashing")
+public record PasswordHashingProperties(
+        Integer threads,
+        Integer queueCapacity,
+        Duration maxWait,
+        Duration retryAfter,
+        String algorithm,
+        Integer strength,
+        Duration targetHashTime,
+        Integer minStrength,
+        Integer maxStrength
+) {
+
+    public PasswordHashingProperties {
+        threads = threads == null || threads <= 0
+                ? Math.max(1, Runtime.getRuntime().availableProcessors() / 2) : threads;
+        queueCapacity = queueCapacity == null ? threads * 16 : queueCapacity;
+        maxWait = maxWait == null ? Duration.ofSeconds(2) : maxWait;
+        retryAfter = retryAfter == null ? Duration.ofSeconds(1) : retryAfter;
+        algorithm = algorithm == null || algorithm.isBlank() ? "bcrypt" : algorithm;
+        strength = strength == null ? 0 : strength;
+        targetHashTime = targetHashTime == null ? Duration.ofMillis(250) : targetHashTime;
+        minStrength = minStrength == null ? 10 : minStrength;
+        maxStrength = maxStrength == null ? 16 : maxStrength;
+    }
+}
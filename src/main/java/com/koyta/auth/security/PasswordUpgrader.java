@@ -0,0 +1,90 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.entities.User;
+import com.koyta.auth.exceptions.PasswordHashingRejectedException;
+import com.koyta.auth.repositories.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rehashes a password after a successful login when the stored hash uses an older algorithm or a lower cost than
+ * the encoder is configured for. The raw password is only known at login, so that is the one chance to upgrade.
+ *
+ * <p>The new hash is computed in the background on the hashing pool and written only if the stored hash is still the
+ * one that was checked, so a password change in the meantime wins. The user version is left alone: the password
+ * itself did not change, and bumping it would distrust the access token the login just issued. A busy pool skips
+ * the upgrade until the next login.
+ */
+@Slf4j
+@Component
+public class PasswordUpgrader implements MeterBinder {
+
+    private final OffloadedPasswordEncoder passwordEncoder;
+
+    private final UserRepository userRepository;
+
+    private final UserCache userCache;
+
+    private final LongAdder upgraded = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public PasswordUpgrader(OffloadedPasswordEncoder passwordEncoder, UserRepository userRepository,
+                            UserCache userCache) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+    }
+
+    /**
+     * Schedules a rehash if {@code user}'s stored hash needs one. Never blocks and never throws.
+     */
+    public void upgradeIfNeeded(User user, String rawPassword) {
+        String storedHash = user.getPassword();
+        if (storedHash == null || rawPassword == null || !passwordEncoder.upgradeEncoding(storedHash)) {
+            return;
+        }
+
+        try {
+            passwordEncoder.encodeInBackground(rawPassword)
+                    .thenAccept(newHash -> {
+                        if (userRepository.updatePasswordIfUnchanged(user.getId(), storedHash, newHash) == 1) {
+                            upgraded.increment();
+                            // same version, so only cached copies of this version are dropped
+                            userCache.invalidateUpTo(user.getId(), user.getVersion());
+                        } else {
+                            skipped.increment();
+                        }
+                    })
+                    .exceptionally(e -> {
+                        failed.increment();
+                        log.warn("Password hash upgrade failed for user {}", user.getId(), e);
+                        return null;
+                    });
+        } catch (PasswordHashingRejectedException e) {
+            skipped.increment();
+        }
+    }
+
+    public long upgradedCount() {
+        return upgraded.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.password_hash.upgrades", upgraded, LongAdder::sum)
+                .tag("result", "upgraded")
+                .register(registry);
+        FunctionCounter.builder("auth.password_hash.upgrades", skipped, LongAdder::sum)
+                .tag("result", "skipped")
+                .register(registry);
+        FunctionCounter.builder("auth.password_hash.upgrades", failed, LongAdder::sum)
+                .tag("result", "failed")
+                .register(registry);
+    }
+}
@@ -0,0 +1,133 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.repositories.RefreshTokenRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes expired and long-revoked rows from {@code refresh_token}, see {@link RefreshTokenPurgeProperties}.
+ *
+ * <p>Rows are found by walking the primary key in order from the last id seen (keyset pagination), and each batch is
+ * deleted by id in its own short transaction. Deleting revoked rows does not weaken reuse detection: a replayed token
+ * whose row is gone still fails rotation and revokes its family through the family claim.
+ * Only used with the JPA refresh-token store; the in-memory store evicts by expiry on its own.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "security.jwt.refresh-store.engine", havingValue = "jpa", matchIfMissing = true)
+public class RefreshTokenPurgeJob implements MeterBinder {
+
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final RefreshTokenPurgeProperties properties;
+
+    private final LongAdder purged = new LongAdder();
+
+    private volatile Instant lastRunAt;
+
+    // last time a run got through the whole backlog; lag grows while runs keep stopping at max-batches-per-run
+    private volatile Instant lastDrainedAt = Instant.now();
+
+    public RefreshTokenPurgeJob(RefreshTokenRepository refreshTokenRepository, RefreshTokenPurgeProperties properties) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.refresh-purge.interval:PT10M}",
+            initialDelayString = "${security.jwt.refresh-purge.interval:PT10M}")
+    public void scheduledPurge() {
+        if (properties.enabled()) {
+            purge();
+        }
+    }
+
+    /**
+     * Runs one purge pass and returns the number of rows deleted.
+     */
+    public int purge() {
+        Instant cutoff = Instant.now().minus(properties.retention());
+        PageRequest batch = PageRequest.of(0, properties.batchSize());
+        UUID after = FIRST_ID;
+        int deleted = 0;
+        boolean drained = false;
+
+        for (int i = 0; i < properties.maxBatchesPerRun(); i++) {
+            List<UUID> ids = refreshTokenRepository.findPurgeableIds(after, cutoff, batch);
+            if (!ids.isEmpty()) {
+                int count = refreshTokenRepository.deleteByIdIn(ids);
+                deleted += count;
+                purged.add(count);
+                after = ids.get(ids.size() - 1);
+            }
+            if (ids.size() < properties.batchSize()) {
+                drained = true;
+                break;
+            }
+            if (!pause(properties.pauseBetweenBatches())) {
+                break;
+            }
+        }
+
+        lastRunAt = Instant.now();
+        if (drained) {
+            lastDrainedAt = lastRunAt;
+        } else {
+            log.warn("Refresh token purge stopped after {} rows with rows still due, lag {}s", deleted, lagSeconds());
+        }
+        log.debug("Refresh token purge deleted {} rows", deleted);
+        return deleted;
+    }
+
+    public long purgedRows() {
+        return purged.sum();
+    }
+
+    public double lastRunEpochSeconds() {
+        Instant last = lastRunAt;
+        return last == null ? 0 : last.getEpochSecond();
+    }
+
+    public double lagSeconds() {
+        return Duration.between(lastDrainedAt, Instant.now()).toSeconds();
+    }
+
+    private static boolean pause(Duration pause) {
+        if (pause.isZero() || pause.isNegative()) {
+            return true;
+        }
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.refresh_token.purge.rows", this, RefreshTokenPurgeJob::purgedRows)
+                .register(registry);
+        Gauge.builder("auth.refresh_token.purge.last_run", this, RefreshTokenPurgeJob::lastRunEpochSeconds)
+                .baseUnit("seconds").description("Epoch seconds of the last finished purge run")
+                .register(registry);
+        Gauge.builder("auth.refresh_token.purge.lag", this, RefreshTokenPurgeJob::lagSeconds)
+                .baseUnit("seconds").description("Seconds since a purge run last cleared every due row")
+                .register(registry);
+    }
+}
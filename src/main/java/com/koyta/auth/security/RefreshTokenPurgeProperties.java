@@ -0,0 +1,33 @@
+package com.koyta.auth.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Purge configuration under {@code security.jwt.refresh-purge}.
+ *
+ * <p>Rows whose token expired more than {@code retention} ago, and revoked rows created more than {@code retention}
+ * ago, are deleted every {@code interval}. Each run deletes at most {@code max-batches-per-run} batches of
+ * {@code batch-size} rows and sleeps {@code pause-between-batches} between them, so it never holds locks for long
+ * and leaves room for regular traffic; whatever is left is picked up by the next run.
+ */
+@ConfigurationProperties(prefix = "security.jwt.refresh-purge")
+public record RefreshTokenPurgeProperties(
+        Boolean enabled,
+        Duration interval,
+        Duration retention,
+        Integer batchSize,
+        Integer maxBatchesPerRun,
+        Duration pauseBetweenBatches
+) {
+
+    public RefreshTokenPurgeProperties {
+        enabled = enabled == null || enabled;
+        interval = interval == null ? Duration.ofMinutes(10) : interval;
+        retention = retention == null ? Duration.ofDays(7) : retention;
+        batchSize = batchSize == null ? 1000 : batchSize;
+        maxBatchesPerRun = maxBatchesPerRun == null ? 100 : maxBatchesPerRun;
+        pauseBetweenBatches = pauseBetweenBatches == null ? Duration.ofMillis(50) : pauseBetweenBatches;
+    }
+}
@@ -0,0 +1,282 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.entities.Role;
+import com.koyta.auth.repositories.RoleRepository;
+import com.koyta.auth.util.AppConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Role rows kept in memory. Roles are reference data that only change on deploy, so they are loaded at startup, with
+ * the built-in {@code USER} and {@code ADMIN} roles created if missing, and looked up by name afterwards without a
+ * query. The returned entities are detached; they are only ever used as the target of a user's role association.
+ *
+ * <p>Every role owns one bit of a {@code long}, stored in {@code roles.role_bit} so that it stays the same across
+ * restarts and nodes; a set of roles travels as that mask in access tokens and the user cache, and is turned back
+ * into a shared {@link RoleSet} holding one {@link Role} and one {@link GrantedAuthority} instance per role. Method
+ * security checks roles through {@link #hasRole} against the mask instead of comparing authority strings.
+ *
+ * <p>Call {@link #reload()} after changing the {@code roles} table directly.
+ */
+@Slf4j
+@Component
+public class RoleRegistry implements InitializingBean {
+
+    // the sign bit stays clear so masks are positive wherever they are written out
+    public static final int MAX_ROLES = Long.SIZE - 1;
+
+    private static final List<String> BUILT_IN = List.of(AppConstants.USER, AppConstants.ADMIN);
+
+    private final RoleRepository roleRepository;
+
+    private volatile State state = new State(Map.of(), new Role[0], new GrantedAuthority[0]);
+
+    // not synchronized: a virtual thread blocked on the database inside a monitor pins its carrier
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        reload();
+    }
+
+    /**
+     * Rereads every role, creating the built-in ones first if they are missing and giving a bit to any role that has
+     * none yet.
+     */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            load();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void load() {
+        for (String name : BUILT_IN) {
+            if (roleRepository.findByName(name).isEmpty()) {
+                create(name);
+            }
+        }
+
+        List<Role> roles = roleRepository.findAll();
+        if (assignBits(roles)) {
+            roles = roleRepository.findAll();
+        }
+
+        Map<String, Role> byName = new HashMap<>();
+        Role[] byBit = new Role[MAX_ROLES];
+        GrantedAuthority[] authorities = new GrantedAuthority[MAX_ROLES];
+        for (Role role : roles) {
+            byName.put(role.getName(), role);
+            if (role.getBit() != null) {
+                byBit[role.getBit()] = role;
+                authorities[role.getBit()] = new SimpleGrantedAuthority("ROLE_" + role.getName());
+            }
+        }
+        state = new State(byName, byBit, authorities);
+        log.debug("Loaded roles {}", byName.keySet());
+    }
+
+    /**
+     * Returns the role called {@code name}.
+     *
+     * @throws IllegalStateException if there is no such role
+     */
+    public Role require(String name) {
+        Role role = state.byName().get(name);
+        if (role != null) {
+            return role;
+        }
+        // added to the table since startup
+        if (roleRepository.findByName(name).isEmpty()) {
+            throw new IllegalStateException(name + " role not found");
+        }
+        reload();
+        return state.byName().get(name);
+    }
+
+    /**
+     * Returns the mask of {@code roles}, matched by name. Roles the registry does not know are left out.
+     */
+    public long maskOf(Collection<Role> roles) {
+        if (roles == null) {
+            return 0;
+        }
+        Map<String, Role> byName = state.byName();
+        long mask = 0;
+        for (Role role : roles) {
+            mask |= bitOf(byName.get(role.getName()));
+        }
+        return mask;
+    }
+
+    public long maskOfNames(Collection<String> names) {
+        Map<String, Role> byName = state.byName();
+        long mask = 0;
+        for (String name : names) {
+            mask |= bitOf(byName.get(name));
+        }
+        return mask;
+    }
+
+    public RoleSet roleSet(long mask) {
+        return state.roleSet(mask);
+    }
+
+    public RoleSet roleSetOf(Collection<Role> roles) {
+        return roleSet(maskOf(roles));
+    }
+
+    /**
+     * Roles of an access token: the {@code rm} mask when present, otherwise the role names of a token issued before
+     * masks were added.
+     */
+    public RoleSet roleSetOf(VerifiedToken token) {
+        return roleSet(token.roleMask() != null ? token.roleMask() : maskOfNames(token.roles()));
+    }
+
+    /**
+     * For {@code @PreAuthorize}: true if the authenticated principal has the role called {@code name}. Principals
+     * built by this application are checked against their mask; any other principal, such as a test user, by its
+     * authorities.
+     */
+    public boolean hasRole(Authentication authentication, String name) {
+        if (authentication == null) {
+            return false;
+        }
+        if (authentication.getPrincipal() instanceof CustomUserDetails details) {
+            return (details.getRoleSet().mask() & bitOf(state.byName().get(name))) != 0;
+        }
+        Role role = state.byName().get(name);
+        if (role == null || role.getBit() == null) {
+            return false;
+        }
+        String authority = state.authorities()[role.getBit()].getAuthority();
+        for (GrantedAuthority granted : authentication.getAuthorities()) {
+            if (authority.equals(granted.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean hasAnyRole(Authentication authentication, String... names) {
+        for (String name : names) {
+            if (hasRole(authentication, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long bitOf(Role role) {
+        return role == null || role.getBit() == null ? 0 : 1L << role.getBit();
+    }
+
+    // built-in roles first, so they get the same bits in every database
+    private boolean assignBits(List<Role> roles) {
+        List<Role> unassigned = roles.stream()
+                .filter(role -> role.getBit() == null)
+                .sorted(Comparator.comparingInt((Role role) -> {
+                    int index = BUILT_IN.indexOf(role.getName());
+                    return index < 0 ? BUILT_IN.size() : index;
+                }).thenComparing(Role::getName))
+                .toList();
+        if (unassigned.isEmpty()) {
+            return false;
+        }
+
+        Set<Integer> taken = new LinkedHashSet<>();
+        roles.stream().map(Role::getBit).filter(bit -> bit != null).forEach(taken::add);
+        int next = 0;
+        for (Role role : unassigned) {
+            while (taken.contains(next)) {
+                next++;
+            }
+            if (next >= MAX_ROLES) {
+                throw new IllegalStateException("More than " + MAX_ROLES + " roles");
+            }
+            role.setBit(next);
+            taken.add(next);
+            try {
+                roleRepository.saveAndFlush(role);
+            } catch (DataIntegrityViolationException e) {
+                // another node gave the bit to a different role first; the reread picks up its choice
+                log.debug("Bit {} taken concurrently, role {} gets one on the next reload", next, role.getName());
+            }
+        }
+        return true;
+    }
+
+    private void create(String name) {
+        try {
+            roleRepository.saveAndFlush(new Role(null, name));
+        } catch (DataIntegrityViolationException e) {
+            // another node created it first
+            log.debug("Role {} created concurrently", name);
+        }
+    }
+
+    private record State(Map<String, Role> byName, Role[] byBit, GrantedAuthority[] authorities, long known,
+                         Map<Long, RoleSet> sets) {
+
+        State(Map<String, Role> byName, Role[] byBit, GrantedAuthority[] authorities) {
+            this(Map.copyOf(byName), byBit, authorities, knownBits(byBit), new ConcurrentHashMap<>());
+        }
+
+        private static long knownBits(Role[] byBit) {
+            long known = 0;
+            for (int bit = 0; bit < byBit.length; bit++) {
+                if (byBit[bit] != null) {
+                    known |= 1L << bit;
+                }
+            }
+            return known;
+        }
+
+        // unknown bits are dropped first, so there is one entry per combination of known roles
+        RoleSet roleSet(long mask) {
+            long key = mask & known;
+            if (key == 0) {
+                return RoleSet.NONE;
+            }
+            RoleSet cached = sets.get(key);
+            return cached != null ? cached : sets.computeIfAbsent(key, this::build);
+        }
+
+        private RoleSet build(long mask) {
+            Set<Role> roles = new LinkedHashSet<>();
+            Set<String> names = new LinkedHashSet<>();
+            List<GrantedAuthority> granted = new ArrayList<>();
+            for (int bit = 0; bit < byBit.length; bit++) {
+                if ((mask & (1L << bit)) != 0) {
+                    roles.add(byBit[bit]);
+                    names.add(byBit[bit].getName());
+                    granted.add(authorities[bit]);
+                }
+            }
+            return new RoleSet(mask, Set.copyOf(roles), Set.copyOf(names), List.copyOf(granted));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.entities.Role;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable set of roles as a bitmask, see {@link RoleRegistry}. Instances are shared per mask, and the roles and
+ * authorities in them are the registry's single instance per role, so checking or listing them allocates nothing.
+ */
+public record RoleSet(long mask, Set<Role> roles, Set<String> names, List<GrantedAuthority> authorities) {
+
+    public static final RoleSet NONE = new RoleSet(0, Set.of(), Set.of(), List.of());
+
+    public boolean has(String name) {
+        return names.contains(name);
+    }
+}
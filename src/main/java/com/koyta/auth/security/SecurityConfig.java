@@ -15,11 +15,17 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.util.ClassUtils;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -74,6 +80,7 @@ public class SecurityConfig {
 
         http.authorizeHttpRequests(authorize -> {
             authorize.requestMatchers("/api/v1/auth/**",
+                    "/.well-known/jwks.json",
                     "/v3/api-docs",
                     "/v3/api-docs/**",
                     "/swagger-ui.html",
@@ -117,8 +124,28 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public OffloadedPasswordEncoder passwordEncoder(PasswordHashingProperties properties,
+                                                   PasswordHashingExecutor passwordHashingExecutor) {
+        int strength = properties.strength() > 0 ? properties.strength()
+                : BCryptCostCalibrator.calibrate(properties.targetHashTime(), properties.minStrength(),
+                properties.maxStrength());
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        encoders.put("bcrypt", bcrypt);
+        // Argon2 needs BouncyCastle on the classpath
+        if (ClassUtils.isPresent("org.bouncycastle.crypto.generators.Argon2BytesGenerator", null)) {
+            encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        }
+        if (!encoders.containsKey(properties.algorithm())) {
+            throw new IllegalStateException("Unsupported password hashing algorithm: " + properties.algorithm());
+        }
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(properties.algorithm(), encoders);
+        // hashes stored before the {id} prefix was introduced are plain BCrypt
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        return new OffloadedPasswordEncoder(delegating, passwordHashingExecutor);
 	//  return NoOpPasswordEncoder.getInstance();
 
     }
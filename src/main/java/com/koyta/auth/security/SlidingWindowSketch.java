@@ -0,0 +1,126 @@
+package com.koyta.auth.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-min sketch of events per key over a sliding window, in fixed memory and without locks.
+ *
+ * <p>Each key maps to one counter in each of {@code depth} rows, and its count is the smallest of those counters; it
+ * can be over-counted when other keys share all its counters, never under-counted. Counters sit in an
+ * {@link AtomicLongArray}, so concurrent increments only contend when they hit the same slot. The window is
+ * approximated the usual way with two fixed buckets: the current one plus the previous one weighted by how much of
+ * it still overlaps the sliding window. Rotating to a new bucket is a single compare-and-set.
+ *
+ * <p>Keys are hashed with a per-instance random seed, so colliding keys cannot be precomputed to lock someone out.
+ */
+class SlidingWindowSketch {
+
+    private final int width;
+
+    private final int depth;
+
+    private final long windowNanos;
+
+    private final long seed;
+
+    private final LongSupplier clock;
+
+    private final AtomicReference<Buckets> buckets;
+
+    SlidingWindowSketch(int width, int depth, long windowNanos, long seed, LongSupplier clock) {
+        this.width = width;
+        this.depth = depth;
+        this.windowNanos = windowNanos;
+        this.seed = seed;
+        this.clock = clock;
+        this.buckets = new AtomicReference<>(new Buckets(clock.getAsLong(), newCounters(), newCounters()));
+    }
+
+    /**
+     * Counts one event for {@code key} and returns the key's estimated count in the window, this event included.
+     */
+    long add(String key) {
+        long now = clock.getAsLong();
+        Buckets current = rotate(now);
+        long hash = hash(key);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, current.current().incrementAndGet(slot(hash, row)));
+        }
+        return min + weightedPrevious(current, hash, now);
+    }
+
+    /**
+     * Returns the estimated count of {@code key} in the window.
+     */
+    long estimate(String key) {
+        long now = clock.getAsLong();
+        Buckets current = rotate(now);
+        long hash = hash(key);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, current.current().get(slot(hash, row)));
+        }
+        return min + weightedPrevious(current, hash, now);
+    }
+
+    private long weightedPrevious(Buckets buckets, long hash, long now) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, buckets.previous().get(slot(hash, row)));
+        }
+        if (min == 0) {
+            return 0;
+        }
+        double overlap = 1.0 - (double) (now - buckets.start()) / windowNanos;
+        return (long) Math.ceil(min * Math.max(0, overlap));
+    }
+
+    private Buckets rotate(long now) {
+        while (true) {
+            Buckets current = buckets.get();
+            long elapsed = now - current.start();
+            if (elapsed < windowNanos) {
+                return current;
+            }
+            long windows = elapsed / windowNanos;
+            // the old current bucket only still overlaps the sliding window if exactly one window went by
+            AtomicLongArray previous = windows == 1 ? current.current() : newCounters();
+            Buckets next = new Buckets(current.start() + windows * windowNanos, newCounters(), previous);
+            if (buckets.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private AtomicLongArray newCounters() {
+        return new AtomicLongArray(width * depth);
+    }
+
+    private int slot(long hash, int row) {
+        long mixed = mix(hash + (row + 1) * 0x9E3779B97F4A7C15L);
+        return row * width + (int) Long.remainderUnsigned(mixed, width);
+    }
+
+    // FNV-1a over the chars, started from the seed
+    private long hash(String key) {
+        long h = seed ^ 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private record Buckets(long start, AtomicLongArray current, AtomicLongArray previous) {
+    }
+}
@@ -0,0 +1,330 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.entities.Provider;
+import com.koyta.auth.entities.User;
+import com.koyta.auth.entities.UserInvalidation;
+import com.koyta.auth.repositories.UserInvalidationRepository;
+import com.koyta.auth.repositories.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache of users by id and by email, see {@link UserCacheProperties}. Entries are immutable snapshots
+ * and every lookup returns a fresh detached {@link User}, so callers may change what they get without touching the
+ * cache; write through {@link UserRepository} and then call {@link #invalidateUpTo}. Emails are matched trimmed and
+ * lower-cased, as the {@code user_email} column collation does. Missing users are not cached.
+ *
+ * <p>An invalidation evicts the user here and writes a {@code user_invalidation} row that
+ * {@link UserInvalidationPoller} applies on the other nodes. A load that raced an invalidation is not cached, and an
+ * older version never replaces a newer one.
+ */
+@Slf4j
+@Component
+public class UserCache implements MeterBinder {
+
+    private final UserRepository userRepository;
+
+    private final UserInvalidationRepository invalidationRepository;
+
+    private final UserCacheProperties properties;
+
+    private final RoleRegistry roleRegistry;
+
+    private final LongSupplier clock;
+
+    private final long ttlNanos;
+
+    private final Map<UUID, Entry> byId = new ConcurrentHashMap<>();
+
+    private final Map<String, UUID> byEmail = new ConcurrentHashMap<>();
+
+    // bumped by every invalidation, so a load that started before one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder localInvalidations = new LongAdder();
+    private final LongAdder remoteInvalidations = new LongAdder();
+
+    @Autowired
+    public UserCache(UserRepository userRepository, UserInvalidationRepository invalidationRepository,
+                     UserCacheProperties properties, RoleRegistry roleRegistry) {
+        this(userRepository, invalidationRepository, properties, roleRegistry, System::nanoTime);
+    }
+
+    UserCache(UserRepository userRepository, UserInvalidationRepository invalidationRepository,
+              UserCacheProperties properties, RoleRegistry roleRegistry, LongSupplier clock) {
+        this.userRepository = userRepository;
+        this.invalidationRepository = invalidationRepository;
+        this.properties = properties;
+        this.roleRegistry = roleRegistry;
+        this.clock = clock;
+        this.ttlNanos = properties.ttl().toNanos();
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled() && properties.maxSize() > 0;
+    }
+
+    public Optional<User> findById(UUID id) {
+        if (!isEnabled() || id == null) {
+            return userRepository.findById(id);
+        }
+
+        Entry cached = live(id);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached.snapshot().toUser(roleRegistry));
+        }
+
+        misses.increment();
+        long loadedAt = generation.get();
+        Optional<User> user = userRepository.findById(id);
+        user.ifPresent(loaded -> put(loaded, loadedAt));
+        return user;
+    }
+
+    public Optional<User> findByEmail(String email) {
+        String key = normalize(email);
+        if (!isEnabled() || key == null) {
+            return userRepository.findByEmail(email);
+        }
+
+        UUID id = byEmail.get(key);
+        Entry cached = id == null ? null : live(id);
+        // the email may have moved to another user since this key was written
+        if (cached != null && key.equals(normalize(cached.snapshot().email()))) {
+            hits.increment();
+            return Optional.of(cached.snapshot().toUser(roleRegistry));
+        }
+
+        misses.increment();
+        long loadedAt = generation.get();
+        Optional<User> user = userRepository.findByEmail(email);
+        user.ifPresent(loaded -> put(loaded, loadedAt));
+        return user;
+    }
+
+    /**
+     * Evicts the user on every node: snapshots with a version up to and including {@code staleVersion} are dropped.
+     * Pass the version the user had before the change, or {@code null} for a deleted user. Call after the change is
+     * saved; inside a transaction the eviction is repeated after commit, and the invalidation row is only seen by
+     * other nodes if the transaction commits.
+     */
+    public void invalidateUpTo(UUID userId, Long staleVersion) {
+        if (!isEnabled() || userId == null) {
+            return;
+        }
+        evict(userId);
+        localInvalidations.increment();
+
+        try {
+            invalidationRepository.save(UserInvalidation.builder()
+                    .userId(userId)
+                    .staleVersion(staleVersion)
+                    .createdAt(Instant.now())
+                    .build());
+        } catch (DataAccessException ex) {
+            // the change itself is saved; other nodes fall back to the ttl
+            log.warn("Could not record user cache invalidation for {}", userId, ex);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Applies an invalidation recorded by another node.
+     */
+    void applyRemote(UUID userId, Long staleVersion) {
+        generation.incrementAndGet();
+        Entry cached = byId.get(userId);
+        if (cached != null && (staleVersion == null || versionOf(cached) <= staleVersion)
+                && remove(userId, cached)) {
+            remoteInvalidations.increment();
+        }
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        byId.clear();
+        byEmail.clear();
+    }
+
+    private void put(User user, long loadedAt) {
+        if (user.getId() == null) {
+            return;
+        }
+        if (byId.size() >= properties.maxSize()) {
+            evictSome();
+        }
+        if (generation.get() != loadedAt) {
+            return;
+        }
+
+        Entry entry = new Entry(Snapshot.of(user, roleRegistry), clock.getAsLong() + ttlNanos);
+        Entry current = byId.merge(user.getId(), entry,
+                (old, loaded) -> versionOf(old) > versionOf(loaded) ? old : loaded);
+        if (current != entry) {
+            return;
+        }
+        String key = normalize(user.getEmail());
+        if (key != null) {
+            byEmail.put(key, user.getId());
+        }
+
+        // an invalidation ran between the check above and the put
+        if (generation.get() != loadedAt) {
+            remove(user.getId(), entry);
+        }
+    }
+
+    private Entry live(UUID id) {
+        Entry cached = byId.get(id);
+        if (cached != null && cached.expiresAt() - clock.getAsLong() < 0) {
+            if (remove(id, cached)) {
+                evictions.increment();
+            }
+            return null;
+        }
+        return cached;
+    }
+
+    private void evict(UUID userId) {
+        generation.incrementAndGet();
+        Entry cached = byId.get(userId);
+        if (cached != null) {
+            remove(userId, cached);
+        }
+    }
+
+    private boolean remove(UUID id, Entry entry) {
+        if (!byId.remove(id, entry)) {
+            return false;
+        }
+        String key = normalize(entry.snapshot().email());
+        if (key != null) {
+            byEmail.remove(key, id);
+        }
+        return true;
+    }
+
+    // drops expired entries, then an arbitrary slice so loads stay cheap once the cache is full of live users
+    private void evictSome() {
+        long now = clock.getAsLong();
+        int toFree = Math.max(1, properties.maxSize() / 16);
+        int freed = 0;
+
+        Iterator<Map.Entry<UUID, Entry>> it = byId.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<UUID, Entry> next = it.next();
+            if (next.getValue().expiresAt() - now < 0 || freed < toFree) {
+                if (remove(next.getKey(), next.getValue())) {
+                    evictions.increment();
+                    freed++;
+                }
+            }
+        }
+        // keys of users whose email changed while cached
+        byEmail.values().removeIf(id -> !byId.containsKey(id));
+    }
+
+    private static long versionOf(Entry entry) {
+        Long version = entry.snapshot().version();
+        return version == null ? -1 : version;
+    }
+
+    private static String normalize(String email) {
+        return email == null || email.isBlank() ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public double hitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.user_cache.requests", this, UserCache::hits)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("auth.user_cache.requests", this, UserCache::misses)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("auth.user_cache.evictions", this, UserCache::evictions)
+                .description("Users dropped for size or ttl")
+                .register(registry);
+        FunctionCounter.builder("auth.user_cache.invalidations", localInvalidations, LongAdder::sum)
+                .tag("source", "local").register(registry);
+        FunctionCounter.builder("auth.user_cache.invalidations", remoteInvalidations, LongAdder::sum)
+                .tag("source", "remote").register(registry);
+        Gauge.builder("auth.user_cache.size", this, UserCache::size)
+                .register(registry);
+        Gauge.builder("auth.user_cache.hit_ratio", this, UserCache::hitRatio)
+                .description("Hits over all lookups since startup")
+                .register(registry);
+    }
+
+    private record Entry(Snapshot snapshot, long expiresAt) {
+    }
+
+    // roles are kept as a RoleRegistry mask and come back as the registry's own instances
+    private record Snapshot(UUID id, Long version, String name, String email, String password, String image,
+                            boolean enable, Instant createdAt, Instant updatedAt, Provider provider,
+                            String providerId, long roleMask) {
+
+        static Snapshot of(User user, RoleRegistry roleRegistry) {
+            return new Snapshot(user.getId(), user.getVersion(), user.getName(), user.getEmail(), user.getPassword(),
+                    user.getImage(), user.isEnable(), user.getCreatedAt(), user.getUpdatedAt(), user.getProvider(),
+                    user.getProviderId(), roleRegistry.maskOf(user.getRoles()));
+        }
+
+        // keeps the version, so JPA treats the copy as detached rather than new
+        User toUser(RoleRegistry roleRegistry) {
+            return new User(id, version, name, email, password, image, enable, createdAt, updatedAt, provider,
+                    providerId, new HashSet<>(roleRegistry.roleSet(roleMask).roles()));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.koyta.auth.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * User cache configuration under {@code app.user-cache}.
+ *
+ * <p>Up to {@code max-size} users are kept for at most {@code ttl}. A change made on another node is picked up by the
+ * next poll of the {@code user_invalidation} table, every {@code poll-interval}; the ttl bounds staleness if polling
+ * stops. Rows older than {@code retention} are deleted, so it must be far longer than the poll interval. Every node
+ * sharing a database should use the same {@code enabled} setting, since a disabled node neither writes nor reads
+ * invalidations.
+ */
+@ConfigurationProperties(prefix = "app.user-cache")
+public record UserCacheProperties(
+        Boolean enabled,
+        Integer maxSize,
+        Duration ttl,
+        Duration pollInterval,
+        Duration retention
+) {
+
+    public UserCacheProperties {
+        enabled = enabled == null || enabled;
+        maxSize = maxSize == null ? 10_000 : maxSize;
+        ttl = ttl == null ? Duration.ofMinutes(5) : ttl;
+        pollInterval = pollInterval == null ? Duration.ofSeconds(5) : pollInterval;
+        retention = retention == null ? Duration.ofHours(1) : retention;
+    }
+}
@@ -1,7 +1,6 @@
 package com.koyta.auth.security;
 
 import com.koyta.auth.entities.User;
-import com.koyta.auth.repositories.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -12,13 +11,15 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
 
-    private final UserRepository userRepository;
+    private final UserCache userCache;
+
+    private final RoleRegistry roleRegistry;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
-        User user = userRepository.findByEmail(username).orElseThrow(() -> new UsernameNotFoundException("invalid Email"));
+        User user = userCache.findByEmail(username).orElseThrow(() -> new UsernameNotFoundException("invalid Email"));
 
-        return new CustomUserDetails(user);
+        return new CustomUserDetails(user, roleRegistry.roleSetOf(user.getRoles()));
     }
 }
@@ -0,0 +1,184 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.entities.UserInvalidation;
+import com.koyta.auth.repositories.UserInvalidationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Applies other nodes' {@code user_invalidation} rows to the local {@link UserCache} and
+ * {@link UserVersionWatermark}. The watermark is the highest id
+ * up to which every row has been applied; each poll reads the rows after it, starting from the newest id at
+ * startup, when the cache is still empty.
+ *
+ * <p>Auto-increment ids are handed out at insert but become visible at commit, so a row can appear after a higher
+ * one was already read. Ids skipped that way are remembered for a grace period and the watermark stays below them
+ * until they show up or the grace period ends (an id that never shows up belonged to a rolled back insert). Rows
+ * older than the configured retention are deleted as polling goes.
+ */
+@Slf4j
+@Component
+public class UserInvalidationPoller implements InitializingBean, MeterBinder {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int MAX_TRACKED_GAPS = 1000;
+
+    private static final Duration GAP_GRACE = Duration.ofMinutes(1);
+
+    private static final Duration PURGE_EVERY = Duration.ofMinutes(10);
+
+    private final UserInvalidationRepository invalidationRepository;
+
+    private final UserCache userCache;
+
+    private final UserVersionWatermark userVersionWatermark;
+
+    private final UserCacheProperties properties;
+
+    private final LongSupplier clock;
+
+    // every row up to here is applied or given up on
+    private long watermark;
+
+    // highest row applied
+    private long highestId;
+
+    // ids below highestId not seen yet, with the time they were first missed
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+    private long lastPurgeAt;
+
+    // guards the fields above; not synchronized, as polls block on the database, see RoleRegistry
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile Instant lastPolledAt = Instant.now();
+
+    @Autowired
+    public UserInvalidationPoller(UserInvalidationRepository invalidationRepository, UserCache userCache,
+                                  UserVersionWatermark userVersionWatermark, UserCacheProperties properties) {
+        this(invalidationRepository, userCache, userVersionWatermark, properties, System::nanoTime);
+    }
+
+    UserInvalidationPoller(UserInvalidationRepository invalidationRepository, UserCache userCache,
+                           UserVersionWatermark userVersionWatermark, UserCacheProperties properties,
+                           LongSupplier clock) {
+        this.invalidationRepository = invalidationRepository;
+        this.userCache = userCache;
+        this.userVersionWatermark = userVersionWatermark;
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        lock.lock();
+        try {
+            if (userCache.isEnabled()) {
+                watermark = highestId = invalidationRepository.findMaxId();
+            }
+            lastPurgeAt = clock.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.user-cache.poll-interval:PT5S}",
+            initialDelayString = "${app.user-cache.poll-interval:PT5S}")
+    public void scheduledPoll() {
+        if (!userCache.isEnabled()) {
+            return;
+        }
+        try {
+            poll();
+        } catch (DataAccessException ex) {
+            log.warn("User cache invalidation poll failed, lag {}s", lagSeconds(), ex);
+        }
+    }
+
+    /**
+     * Applies every invalidation row not applied yet and returns how many there were.
+     */
+    public int poll() {
+        lock.lock();
+        try {
+            return pollLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int pollLocked() {
+        long now = clock.getAsLong();
+        long after = watermark;
+        int applied = 0;
+        List<UserInvalidation> rows;
+        do {
+            rows = invalidationRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(BATCH_SIZE));
+            for (UserInvalidation row : rows) {
+                long id = row.getId();
+                if (id > highestId) {
+                    for (long missing = highestId + 1; missing < id && gaps.size() < MAX_TRACKED_GAPS; missing++) {
+                        gaps.put(missing, now);
+                    }
+                    highestId = id;
+                } else if (gaps.remove(id) == null) {
+                    // applied by an earlier poll
+                    continue;
+                }
+                userCache.applyRemote(row.getUserId(), row.getStaleVersion());
+                userVersionWatermark.invalidateUpTo(row.getUserId(), row.getStaleVersion());
+                applied++;
+            }
+            if (!rows.isEmpty()) {
+                after = rows.get(rows.size() - 1).getId();
+            }
+        } while (rows.size() == BATCH_SIZE);
+
+        gaps.values().removeIf(missedAt -> now - missedAt > GAP_GRACE.toNanos());
+        watermark = gaps.isEmpty() ? highestId : gaps.firstKey() - 1;
+        lastPolledAt = Instant.now();
+
+        if (now - lastPurgeAt > PURGE_EVERY.toNanos()) {
+            lastPurgeAt = now;
+            int purged = invalidationRepository.deleteCreatedBefore(Instant.now().minus(properties.retention()));
+            log.debug("Purged {} user invalidation rows", purged);
+        }
+        return applied;
+    }
+
+    long watermark() {
+        lock.lock();
+        try {
+            return watermark;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double lagSeconds() {
+        return Duration.between(lastPolledAt, Instant.now()).toMillis() / 1000.0;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.user_cache.poll.lag", this, UserInvalidationPoller::lagSeconds)
+                .baseUnit("seconds").description("Seconds since invalidations from other nodes were last applied")
+                .register(registry);
+    }
+}
@@ -0,0 +1,139 @@
+package com.koyta.auth.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers, per user, the highest user version whose access tokens are no longer trusted after the user
+ * was changed, disabled or deleted.
+ * An entry is only needed while tokens issued before the change can still be alive, so it is dropped once
+ * the access-token TTL has passed.
+ *
+ * <p>Changes made on this node are recorded directly; changes made on other nodes arrive through
+ * {@link UserInvalidationPoller}, which only runs while the user cache ({@code app.user-cache.enabled}) is on.
+ * With the user cache off, trusted claims are only safe on a single node.
+ *
+ * <p>Marks only live in memory and the poller starts from the newest row, so changes made before this node started
+ * are never seen here. Tokens issued before startup are therefore never trusted and always load the user.
+ *
+ * <p>At most {@code maxEntries} marks are kept. When there are more that have not expired, the oldest are dropped
+ * and every token issued before the newest dropped mark stops being trusted, so those fall back to loading the user.
+ */
+@Component
+public class UserVersionWatermark {
+
+    private static final int MAX_ENTRIES = 10_000;
+
+    private final Map<UUID, Mark> marks = new ConcurrentHashMap<>();
+
+    private final long accessTtlSeconds;
+
+    private final int maxEntries;
+
+    // tokens issued up to here are not trusted: marks from before startup were never seen, later ones may be dropped
+    private volatile Instant untrustedBefore;
+
+    // not synchronized, see RoleRegistry
+    private final ReentrantLock trimLock = new ReentrantLock();
+
+    @Autowired
+    public UserVersionWatermark(@Value("${security.jwt.access-ttl-seconds:3600}") long accessTtlSeconds) {
+        this(accessTtlSeconds, MAX_ENTRIES);
+    }
+
+    UserVersionWatermark(long accessTtlSeconds, int maxEntries) {
+        this.accessTtlSeconds = accessTtlSeconds;
+        this.maxEntries = maxEntries;
+        this.untrustedBefore = Instant.now();
+    }
+
+    /**
+     * Tokens of this user issued with a version up to and including {@code version} are no longer trusted.
+     * Pass the version the user had before the change. A {@code null} version (deleted user, unknown version)
+     * distrusts every token of the user.
+     */
+    public void invalidateUpTo(UUID userId, Long version) {
+        if (userId == null) {
+            return;
+        }
+        long staleVersion = version == null ? Long.MAX_VALUE : version;
+        marks.merge(userId, new Mark(staleVersion, Instant.now()),
+                (old, mark) -> new Mark(Math.max(old.staleVersion(), mark.staleVersion()), mark.recordedAt()));
+
+        if (marks.size() > maxEntries) {
+            trim();
+        }
+    }
+
+    /**
+     * True if the token carries a user id and version that no later change has invalidated.
+     */
+    public boolean isCurrent(VerifiedToken token) {
+        if (token.userId() == null || token.version() == null) {
+            return false;
+        }
+
+        Mark mark;
+        try {
+            mark = marks.get(UUID.fromString(token.userId()));
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+
+        if (mark == null || isExpired(mark)) {
+            return token.expiresAt() != null
+                    && token.expiresAt().minusSeconds(accessTtlSeconds).isAfter(untrustedBefore);
+        }
+        return token.version() > mark.staleVersion();
+    }
+
+    public int size() {
+        return marks.size();
+    }
+
+    void purgeExpired() {
+        marks.values().removeIf(this::isExpired);
+    }
+
+    private void trim() {
+        if (!trimLock.tryLock()) {
+            // another thread is trimming already
+            return;
+        }
+        try {
+            purgeExpired();
+            int excess = marks.size() - maxEntries;
+            if (excess <= 0) {
+                return;
+            }
+            // drop a quarter more than needed so that the next few changes do not trim again
+            List<Map.Entry<UUID, Mark>> oldest = marks.entrySet().stream()
+                    .sorted(Comparator.comparing(entry -> entry.getValue().recordedAt()))
+                    .limit(excess + maxEntries / 4)
+                    .toList();
+            Instant newestDropped = oldest.get(oldest.size() - 1).getValue().recordedAt();
+            if (newestDropped.isAfter(untrustedBefore)) {
+                untrustedBefore = newestDropped;
+            }
+            oldest.forEach(entry -> marks.remove(entry.getKey(), entry.getValue()));
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    private boolean isExpired(Mark mark) {
+        return mark.recordedAt().plusSeconds(accessTtlSeconds).isBefore(Instant.now());
+    }
+
+    private record Mark(long staleVersion, Instant recordedAt) {
+    }
+}
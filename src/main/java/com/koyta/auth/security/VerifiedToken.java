@@ -0,0 +1,48 @@
+package com.koyta.auth.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Claims of a JWT whose signature has already been checked by {@link com.koyta.auth.services.JwtService#verify(String)}.
+ * Parse the token once, then read everything the request needs from this object.
+ * {@code family} is only set on refresh tokens: the jti of the login that started the rotation chain.
+ * {@code roleMask} is the access token's roles as {@link RoleRegistry} bits; tokens issued before it was added only
+ * carry {@code roles}.
+ */
+public record VerifiedToken(
+        String subject,
+        String type,
+        String jti,
+        List<String> roles,
+        String userId,
+        Instant expiresAt,
+        Long version,
+        String family,
+        Long roleMask
+) {
+
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
+    public VerifiedToken {
+        roles = roles == null ? List.of() : List.copyOf(roles);
+    }
+
+    public VerifiedToken(String subject, String type, String jti, List<String> roles, String userId,
+                         Instant expiresAt, Long version) {
+        this(subject, type, jti, roles, userId, expiresAt, version, null, null);
+    }
+
+    public boolean isAccessToken() {
+        return ACCESS.equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return REFRESH.equals(type);
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.isBefore(Instant.now());
+    }
+}
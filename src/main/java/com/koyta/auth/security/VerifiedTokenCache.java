@@ -0,0 +1,154 @@
+package com.koyta.auth.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache of tokens that already passed signature verification, keyed by the SHA-256 digest of the
+ * full compact token (header, payload and signature). Only {@link com.koyta.auth.services.JwtService} puts
+ * entries, and only after a successful verify, so a tampered token never hits. Entries are dropped at the
+ * token's expiry.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    // cloned per digest: cheaper than getInstance, and unlike a thread-local not rebuilt for every virtual thread
+    private static final MessageDigest SHA_256;
+
+    static {
+        try {
+            SHA_256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private final Map<Digest, VerifiedToken> entries = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${security.jwt.verified-cache.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public static VerifiedTokenCache disabled() {
+        return new VerifiedTokenCache(0);
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public VerifiedToken get(String token) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        Digest key = Digest.of(token);
+        VerifiedToken cached = entries.get(key);
+
+        if (cached != null && cached.isExpired()) {
+            if (entries.remove(key, cached)) {
+                evictions.increment();
+            }
+            cached = null;
+        }
+
+        if (cached == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * Must only be called with a token whose signature and expiry were just verified.
+     */
+    public void put(String token, VerifiedToken verified) {
+        if (!isEnabled() || verified.expiresAt() == null || verified.isExpired()) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(Digest.of(token), verified);
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // drops expired entries, then an arbitrary slice so puts stay cheap once the cache is full of live tokens
+    private void evict() {
+        Instant now = Instant.now();
+        int toFree = Math.max(1, maxSize / 16);
+        int freed = 0;
+
+        Iterator<VerifiedToken> it = entries.values().iterator();
+        while (it.hasNext()) {
+            VerifiedToken next = it.next();
+            if (next.expiresAt().isBefore(now) || freed < toFree) {
+                it.remove();
+                evictions.increment();
+                freed++;
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("auth.jwt.verified_cache.requests", this, VerifiedTokenCache::hits)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("auth.jwt.verified_cache.requests", this, VerifiedTokenCache::misses)
+                .tag("result", "miss").register(registry);
+        FunctionCounter.builder("auth.jwt.verified_cache.evictions", this, VerifiedTokenCache::evictions)
+                .register(registry);
+        Gauge.builder("auth.jwt.verified_cache.size", this, VerifiedTokenCache::size)
+                .register(registry);
+    }
+
+    private record Digest(long a, long b, long c, long d) {
+
+        static Digest of(String token) {
+            MessageDigest md;
+            try {
+                md = (MessageDigest) SHA_256.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("SHA-256 digest cannot be cloned", e);
+            }
+            ByteBuffer hash = ByteBuffer.wrap(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+            return new Digest(hash.getLong(), hash.getLong(), hash.getLong(), hash.getLong());
+        }
+    }
+}
@@ -6,7 +6,7 @@ import jakarta.servlet.http.HttpServletResponse;
 
 public interface AuthService {
 
-    TokenResponse login(LoginRequest loginRequest, HttpServletResponse response);
+    TokenResponse login(LoginRequest loginRequest, HttpServletRequest request, HttpServletResponse response);
 
     UserDto registerUser(RegisterUserRequest request);
 
@@ -1,6 +1,7 @@
 package com.koyta.auth.services;
 
 import com.koyta.auth.entities.User;
+import com.koyta.auth.security.VerifiedToken;
 import org.springframework.security.core.userdetails.UserDetails;
 
 public interface JwtService {
@@ -9,6 +10,16 @@ public interface JwtService {
 
     String generateRefreshToken(User user, String jti);
 
+    /**
+     * Refresh token that continues the rotation chain {@code familyId}.
+     */
+    String generateRefreshToken(User user, String jti, String familyId);
+
+    /**
+     * Verifies the signature and expiry of the token and returns its claims in one pass.
+     */
+    VerifiedToken verify(String token);
+
     boolean isAccessToken(String token);
 
     boolean isRefreshToken(String token);
@@ -17,9 +28,15 @@ public interface JwtService {
 
     String getJti(String token);
 
+    /**
+     * Rotation family of a refresh token, or {@code null} for tokens issued before families existed.
+     */
+    String getFamilyId(String token);
+
     String extractUserName(String token);
 
     Boolean validateToken(String token, UserDetails userDetails);
 
+    boolean validateToken(VerifiedToken token, UserDetails userDetails);
 
 }
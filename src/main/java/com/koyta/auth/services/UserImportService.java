@@ -0,0 +1,19 @@
+package com.koyta.auth.services;
+
+import com.koyta.auth.dtos.ImportRowResult;
+import com.koyta.auth.dtos.ImportSummary;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface UserImportService {
+
+    enum Format { NDJSON, CSV }
+
+    /**
+     * Creates a {@code USER} for every valid row of {@code body}, starting at line {@code fromLine}. Rows are handled
+     * in batches; {@code results} receives each batch's row results in line order once the batch is committed.
+     */
+    ImportSummary importUsers(Reader body, Format format, long fromLine, Consumer<List<ImportRowResult>> results);
+}
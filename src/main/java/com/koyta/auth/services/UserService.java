@@ -1,9 +1,12 @@
 package com.koyta.auth.services;
 
 import com.koyta.auth.dtos.UserDto;
+import com.koyta.auth.dtos.UserPage;
+import com.koyta.auth.entities.Provider;
 import com.koyta.auth.entities.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
 
@@ -18,4 +21,15 @@ public interface UserService {
     UserDto getUserById(String userId);
 
     List<UserDto> getAllUsers();
+
+    /**
+     * Up to {@code limit} users in creation order, starting after {@code cursor} (null for the first page). Null
+     * filters match everything.
+     */
+    UserPage listUsers(String cursor, int limit, Provider provider, Boolean enabled, String role);
+
+    /**
+     * Hands every matching user to {@code sink} in creation order, one at a time, and returns how many there were.
+     */
+    long exportUsers(Provider provider, Boolean enabled, String role, Consumer<UserDto> sink);
 }
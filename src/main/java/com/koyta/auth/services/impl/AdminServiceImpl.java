@@ -5,12 +5,14 @@ import com.koyta.auth.dtos.CreateAdminRequest;
 import com.koyta.auth.entities.Role;
 import com.koyta.auth.entities.User;
 import com.koyta.auth.exceptions.ResourceNotFoundException;
+import com.koyta.auth.mappers.UserMapper;
 import com.koyta.auth.repositories.RoleRepository;
 import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.security.UserCache;
+import com.koyta.auth.security.UserVersionWatermark;
 import com.koyta.auth.services.AdminService;
 import com.koyta.auth.util.AppConstants;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -30,7 +32,11 @@ public class AdminServiceImpl implements AdminService {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
+
+    private final UserVersionWatermark userVersionWatermark;
+
+    private final UserCache userCache;
 
     public AdminResponse createAdmin( CreateAdminRequest request) {
 
@@ -67,12 +73,15 @@ public class AdminServiceImpl implements AdminService {
             throw new IllegalArgumentException("User is already ADMIN");
         }
 
+        Long previousVersion = user.getVersion();
         user.getRoles().add(adminRole);
         userRepository.save(user);
+        userVersionWatermark.invalidateUpTo(userId, previousVersion);
+        userCache.invalidateUpTo(userId, previousVersion);
     }
 
     private AdminResponse mapToDto(User admin) {
-        return modelMapper.map(admin , AdminResponse.class);
+        return userMapper.toAdminResponse(admin);
     }
 }
 
@@ -5,16 +5,23 @@ import com.koyta.auth.entities.Provider;
 import com.koyta.auth.entities.RefreshToken;
 import com.koyta.auth.entities.User;
 import com.koyta.auth.exceptions.AuthenticationFailedException;
-import com.koyta.auth.repositories.RefreshTokenRepository;
+import com.koyta.auth.mappers.UserMapper;
+import com.koyta.auth.repositories.RefreshTokenStore;
 import com.koyta.auth.security.CookieService;
 import com.koyta.auth.security.CustomUserDetails;
+import com.koyta.auth.security.LoginThrottle;
+import com.koyta.auth.security.PasswordUpgrader;
+import com.koyta.auth.security.UserCache;
+import com.koyta.auth.security.VerifiedToken;
 import com.koyta.auth.services.AuthService;
 import com.koyta.auth.services.JwtService;
 import com.koyta.auth.services.UserService;
+import com.koyta.auth.util.IdGenerator;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.modelmapper.ModelMapper;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -26,8 +33,8 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.util.UUID;
 
+@Slf4j
 @Service
 public class AuthServiceImpl implements AuthService {
 
@@ -43,32 +50,55 @@ public class AuthServiceImpl implements AuthService {
 
     private final long refreshTtlSeconds;
 
-    private final ModelMapper modelMapper;
+    private final long refreshReuseGraceSeconds;
 
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserMapper userMapper;
+
+    private final RefreshTokenStore refreshTokenStore;
+
+    private final UserCache userCache;
 
     private final CookieService cookieService;
 
+    private final IdGenerator idGenerator;
+
+    private final PasswordUpgrader passwordUpgrader;
+
+    private final LoginThrottle loginThrottle;
+
     public AuthServiceImpl(UserService userService,
                            AuthenticationManager authenticationManager,
                            PasswordEncoder passwordEncoder,
                            JwtService jwtService,
                            @Value("${security.jwt.access-ttl-seconds:3600}") long accessTtlSeconds,
                            @Value("${security.jwt.refresh-ttl-seconds:1209600}") long refreshTtlSeconds,
-                           ModelMapper modelMapper, RefreshTokenRepository refreshTokenRepository, CookieService cookieService) {
+                           @Value("${security.jwt.refresh-reuse-grace-seconds:10}") long refreshReuseGraceSeconds,
+                           UserMapper userMapper, RefreshTokenStore refreshTokenStore, UserCache userCache,
+                           CookieService cookieService,
+                           IdGenerator idGenerator,
+                           PasswordUpgrader passwordUpgrader,
+                           LoginThrottle loginThrottle) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.accessTtlSeconds = accessTtlSeconds;
         this.refreshTtlSeconds = refreshTtlSeconds;
-        this.modelMapper = modelMapper;
-        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshReuseGraceSeconds = refreshReuseGraceSeconds;
+        this.userMapper = userMapper;
+        this.refreshTokenStore = refreshTokenStore;
+        this.userCache = userCache;
         this.cookieService = cookieService;
+        this.idGenerator = idGenerator;
+        this.passwordUpgrader = passwordUpgrader;
+        this.loginThrottle = loginThrottle;
     }
 
     @Override
-    public TokenResponse login(LoginRequest loginRequest, HttpServletResponse response) {
+    public TokenResponse login(LoginRequest loginRequest, HttpServletRequest request, HttpServletResponse response) {
+
+        // before authenticate, so a throttled attempt costs no password hash
+        loginThrottle.checkAttempt(loginThrottle.clientIp(request), loginRequest.email());
 
         try {
             Authentication authenticate = authenticationManager.authenticate(
@@ -84,10 +114,14 @@ public class AuthServiceImpl implements AuthService {
                 throw new DisabledException("Account is disabled. Please verify your email.");
             }
 
+            // stored hash below the current algorithm or cost: rehash in the background
+            passwordUpgrader.upgradeIfNeeded(customUserDetails.getUser(), loginRequest.password());
+
 
-            String jti = UUID.randomUUID().toString();
+            String jti = idGenerator.nextString();
             RefreshToken refreshTokenOb = RefreshToken.builder()
                     .jti(jti)
+                    .familyId(jti)
                     .user(customUserDetails.getUser())
                     .createdAt(Instant.now())
                     .expiresAt(Instant.now().plusSeconds(refreshTtlSeconds))
@@ -95,7 +129,7 @@ public class AuthServiceImpl implements AuthService {
                     .build();
 
             // refresh token save
-            refreshTokenRepository.save(refreshTokenOb);
+            refreshTokenStore.save(refreshTokenOb);
 
             // access token generated
             String accessToken = jwtService.generateAccessToken(customUserDetails.getUser());
@@ -105,11 +139,12 @@ public class AuthServiceImpl implements AuthService {
             cookieService.attachRefreshCookie(response, refreshToken, (int) refreshTtlSeconds);
             cookieService.addNoStoreHeader(response);
 
-            return TokenResponse.of(accessToken, accessTtlSeconds, modelMapper.map(customUserDetails.getUser(), UserDto.class)
+            return TokenResponse.of(accessToken, accessTtlSeconds, userMapper.toUserDto(customUserDetails.getUser())
             );
 
 
         } catch (BadCredentialsException ex) {
+            loginThrottle.recordFailure(loginRequest.email());
             throw new AuthenticationFailedException("Invalid email or password");
         } catch (DisabledException ex) {
             throw new AuthenticationFailedException("Account is disabled. Please verify your email.");
@@ -132,68 +167,74 @@ public class AuthServiceImpl implements AuthService {
     }
 
     @Override
+    // reuse detection revokes the family and then rejects the request, that revocation has to commit
+    @Transactional(dontRollbackOn = BadCredentialsException.class)
     public TokenResponse readRefreshTokenRequest(RefreshTokenRequest body, HttpServletRequest request, HttpServletResponse response) {
 
         String refreshToken = cookieService.readRefreshTokenFromRequest(body, request).orElseThrow(() -> new BadCredentialsException("Invalid Refresh Token"));
 
-        if(!jwtService.isRefreshToken(refreshToken)){
+        // verified once, the claims below are read from it
+        VerifiedToken verified = jwtService.verify(refreshToken);
+        if(!verified.isRefreshToken()){
             throw new BadCredentialsException("Invalid Refresh Token Type");
         }
 
-        String jti = jwtService.getJti(refreshToken);
-        String userId = jwtService.getUserId(refreshToken);
-        RefreshToken storedRefreshToken = refreshTokenRepository.findByJti(jti)
-                .orElseThrow(() -> new BadCredentialsException("Refresh token not recognized"));
-
-        if(storedRefreshToken.isRevoked()){
+        String jti = verified.jti();
+        String userId = verified.subject();
+        String familyId = verified.family();
+
+        //refresh token ko rotate: only one concurrent refresh can flip revoked, the row count decides who
+        String newJti= idGenerator.nextString();
+        Instant now = Instant.now();
+        if (!refreshTokenStore.revokeForRotation(jti, userId, newJti, now)) {
+            // a token rotated a while ago and presented again is stolen; a concurrent refresh of the same token
+            // (two tabs, a client retry) just loses, the winner's new token stays valid
+            if (familyId != null && refreshTokenStore.findByJti(jti).filter(rt -> isReplay(rt, now)).isPresent()) {
+                int revoked = refreshTokenStore.revokeFamily(familyId);
+                log.warn("Refresh token reuse detected for {}, revoked {} live tokens of family {}", userId, revoked, familyId);
+            }
             throw new BadCredentialsException("Refresh token expired or revoked");
         }
 
-        if(storedRefreshToken.getExpiresAt().isBefore(Instant.now())){
-            throw new BadCredentialsException("Refresh token expired");
-        }
-
-        if(!storedRefreshToken.getUser().getEmail().equals(userId)){
-            throw new BadCredentialsException("Refresh token does not belong to this user");
-        }
-
-        //refresh token ko rotate:
-        storedRefreshToken.setRevoked(true);
-        String newJti= UUID.randomUUID().toString();
-        storedRefreshToken.setReplacedByToken(newJti);
-
-        refreshTokenRepository.save(storedRefreshToken);
-
-        User user = storedRefreshToken.getUser();
+        User user = userCache.findByEmail(userId)
+                .orElseThrow(() -> new BadCredentialsException("Refresh token does not belong to this user"));
 
         var newRefreshTokenOb = RefreshToken.builder()
                 .jti(newJti)
+                .familyId(familyId != null ? familyId : jti)
                 .user(user)
                 .createdAt(Instant.now())
                 .expiresAt(Instant.now().plusSeconds(refreshTtlSeconds))
                 .revoked(false)
                 .build();
 
-        refreshTokenRepository.save(newRefreshTokenOb);
+        refreshTokenStore.save(newRefreshTokenOb);
         String newAccessToken= jwtService.generateAccessToken(user);
-        String newRefreshToken = jwtService.generateRefreshToken(user, newRefreshTokenOb.getJti());
+        String newRefreshToken = jwtService.generateRefreshToken(user, newRefreshTokenOb.getJti(), newRefreshTokenOb.getFamilyId());
 
         cookieService.attachRefreshCookie(response, newRefreshToken, (int) refreshTtlSeconds);
         cookieService.addNoStoreHeader(response);
 
-        return TokenResponse.of(newAccessToken, accessTtlSeconds, modelMapper.map(user, UserDto.class));
+        return TokenResponse.of(newAccessToken, accessTtlSeconds, userMapper.toUserDto(user));
+
+    }
 
+    private boolean isReplay(RefreshToken token, Instant now) {
+        return token.isRevoked() && token.getReplacedByToken() != null
+                && (token.getRevokedAt() == null
+                || token.getRevokedAt().isBefore(now.minusSeconds(refreshReuseGraceSeconds)));
     }
 
     @Override
     public void logout(HttpServletRequest request, HttpServletResponse response) {
        cookieService.readRefreshTokenFromRequest(null, request).ifPresent(token -> {
             try {
-                if (jwtService.isRefreshToken(token)) {
-                    String jti = jwtService.getJti(token);
-                    refreshTokenRepository.findByJti(jti).ifPresent(rt -> {
+                VerifiedToken verified = jwtService.verify(token);
+                if (verified.isRefreshToken()) {
+                    String jti = verified.jti();
+                    refreshTokenStore.findByJti(jti).ifPresent(rt -> {
                         rt.setRevoked(true);
-                        refreshTokenRepository.save(rt);
+                        refreshTokenStore.save(rt);
                     });
                 }
             } catch (JwtException ignored) {
@@ -0,0 +1,148 @@
+package com.koyta.auth.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.koyta.auth.exceptions.ContractValidationException;
+import com.koyta.auth.services.UserImportService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads an import upload one row at a time, so the file is never held in memory. NDJSON rows are JSON objects; CSV
+ * rows become objects keyed by the header line, with empty cells left out. Either way the object is what gets
+ * validated against the create-user schema. Blank lines are skipped but still counted, so line numbers match the
+ * file.
+ */
+class ImportRecordReader {
+
+    record Row(long line, JsonNode node, String error) {
+    }
+
+    private final BufferedReader reader;
+
+    private final UserImportService.Format format;
+
+    private final ObjectMapper mapper;
+
+    private List<String> header;
+
+    private long line;
+
+    ImportRecordReader(Reader reader, UserImportService.Format format, ObjectMapper mapper) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        this.format = format;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Returns the next row, or {@code null} at the end of the input.
+     */
+    Row next() {
+        String text;
+        while ((text = readLine()) != null) {
+            if (text.isBlank()) {
+                continue;
+            }
+            if (format == UserImportService.Format.NDJSON) {
+                return parseJson(text);
+            }
+            if (header == null) {
+                List<String> names = splitCsv(text);
+                if (names == null) {
+                    throw new ContractValidationException("Malformed CSV header");
+                }
+                header = names.stream().map(String::trim).toList();
+                continue;
+            }
+            return parseCsv(text);
+        }
+        return null;
+    }
+
+    /**
+     * Number of the last line read.
+     */
+    long lastLine() {
+        return line;
+    }
+
+    private Row parseJson(String text) {
+        try {
+            JsonNode node = mapper.readTree(text);
+            if (!node.isObject()) {
+                return new Row(line, null, "Row is not a JSON object");
+            }
+            return new Row(line, node, null);
+        } catch (JsonProcessingException e) {
+            return new Row(line, null, "Malformed JSON row");
+        }
+    }
+
+    private Row parseCsv(String text) {
+        List<String> cells = splitCsv(text);
+        if (cells == null) {
+            return new Row(line, null, "Unterminated quoted CSV field");
+        }
+        if (cells.size() > header.size()) {
+            return new Row(line, null, "Row has more fields than the header");
+        }
+        ObjectNode node = mapper.createObjectNode();
+        for (int i = 0; i < cells.size(); i++) {
+            if (!cells.get(i).isEmpty()) {
+                node.put(header.get(i), cells.get(i));
+            }
+        }
+        return new Row(line, node, null);
+    }
+
+    // RFC 4180 fields on a single line: quoted fields may contain commas and "" for a quote, but no line breaks
+    static List<String> splitCsv(String text) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    cell.append(c);
+                } else if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+
+    private String readLine() {
+        try {
+            String text = reader.readLine();
+            if (text != null) {
+                line++;
+            }
+            return text;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -3,25 +3,28 @@ package com.koyta.auth.services.impl;
 import com.koyta.auth.entities.Role;
 import com.koyta.auth.entities.User;
 import com.koyta.auth.exceptions.JwtTokenExpiredException;
+import com.koyta.auth.security.HmacTokenVerifier;
+import com.koyta.auth.security.JwtKeyRing;
+import com.koyta.auth.security.RoleRegistry;
+import com.koyta.auth.security.VerifiedToken;
+import com.koyta.auth.security.VerifiedTokenCache;
 import com.koyta.auth.services.JwtService;
+import com.koyta.auth.util.IdGenerator;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Getter
@@ -29,34 +32,62 @@ import java.util.stream.Collectors;
 @Service
 public class JwtServiceImpl implements JwtService {
 
-    private final SecretKey key;
+    private final JwtKeyRing keyRing;
     private final long accessTtlSeconds;
 
     @Getter
     private final long refreshTtlSeconds;
     private final String issuer;
 
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final IdGenerator idGenerator;
+
+    // null in tests that build the service by hand: tokens then carry role names only
+    private final RoleRegistry roleRegistry;
+
+    public JwtServiceImpl(String secret, long accessTtlSeconds, long refreshTtlSeconds, String issuer) {
+        this(secret, accessTtlSeconds, refreshTtlSeconds, issuer, VerifiedTokenCache.disabled());
+    }
+
+    public JwtServiceImpl(String secret, long accessTtlSeconds, long refreshTtlSeconds, String issuer,
+                          VerifiedTokenCache verifiedTokenCache) {
+        this(JwtKeyRing.hmac(secret), accessTtlSeconds, refreshTtlSeconds, issuer, verifiedTokenCache,
+                IdGenerator.timeOrdered());
+    }
+
+    public JwtServiceImpl(JwtKeyRing keyRing, long accessTtlSeconds, long refreshTtlSeconds, String issuer,
+                          VerifiedTokenCache verifiedTokenCache, IdGenerator idGenerator) {
+        this(keyRing, accessTtlSeconds, refreshTtlSeconds, issuer, verifiedTokenCache, idGenerator, null);
+    }
+
+    @Autowired
     public JwtServiceImpl(
-            @Value("${security.jwt.secret}") String secret,
+            JwtKeyRing keyRing,
             @Value("${security.jwt.access-ttl-seconds:3600}") long accessTtlSeconds,         // 60 minutes
             @Value("${security.jwt.refresh-ttl-seconds:1209600}") long refreshTtlSeconds,   // 14 days
-            @Value("${security.jwt.issuer:auth-backend}") String issuer) {
+            @Value("${security.jwt.issuer:auth-backend}") String issuer,
+            VerifiedTokenCache verifiedTokenCache,
+            IdGenerator idGenerator,
+            RoleRegistry roleRegistry) {
 
-        if (secret == null || secret.length() < 64) {
-            throw new IllegalStateException("JWT secret must be at least 64 characters. Provide via env JWT_SECRET.");
-        }
-        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.keyRing = keyRing;
         this.accessTtlSeconds = accessTtlSeconds;
         this.refreshTtlSeconds = refreshTtlSeconds;
         this.issuer = issuer;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.idGenerator = idGenerator;
+        this.roleRegistry = roleRegistry;
     }
 
     public String generateAccessToken(User user) {
         Instant now = Instant.now();
         List<String> roles = user.getRoles() == null ? List.of() :
                 user.getRoles().stream().map(Role::getName).collect(Collectors.toList());
-        return Jwts.builder()
-                .id(UUID.randomUUID().toString())
+        // names stay for clients reading the token; the mask is what this service reads back
+        Long roleMask = roleRegistry == null ? null : roleRegistry.maskOf(user.getRoles());
+        return keyRing.sign(Jwts.builder()
+                .id(idGenerator.nextString())
                 .subject(user.getEmail())
                 .issuer(issuer)
                 .issuedAt(Date.from(now))
@@ -65,29 +96,34 @@ public class JwtServiceImpl implements JwtService {
                      //   "email", user.getEmail(),
                             "id",  user.getId(),
                         "roles", roles,
-                        "typ", "access"
+                        "typ", VerifiedToken.ACCESS
                 ))
-                .signWith(key)
+                .claim("ver", user.getVersion())
+                .claim("rm", roleMask))
                 .compact();
     }
 
     public String generateRefreshToken(User user, String jti) {
+        return generateRefreshToken(user, jti, jti);
+    }
+
+    public String generateRefreshToken(User user, String jti, String familyId) {
         Instant now = Instant.now();
-        return Jwts.builder()
+        return keyRing.sign(Jwts.builder()
                 .id(jti)
                 .subject(user.getEmail())
                 .issuer(issuer)
                 .issuedAt(Date.from(now))
                 .expiration(Date.from(now.plusSeconds(refreshTtlSeconds)))
-                .claim("typ", "refresh")
-                .signWith(key)
+                .claim("typ", VerifiedToken.REFRESH)
+                .claim("fam", familyId))
                 .compact();
     }
 
     private Claims extractAllClaims(String token) {
         try {
             return	Jwts.parser()
-                    .verifyWith(key)
+                    .keyLocator(keyRing)
                     .build()
                     .parseSignedClaims(token)
                     .getPayload();
@@ -101,44 +137,85 @@ public class JwtServiceImpl implements JwtService {
         }
     }
 
+    @Override
+    public VerifiedToken verify(String token) {
+        VerifiedToken cached = verifiedTokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+
+        VerifiedToken verified = verifyHmac(token);
+        if (verified == null) {
+            verified = toVerifiedToken(extractAllClaims(token));
+        }
+        verifiedTokenCache.put(token, verified);
+        return verified;
+    }
+
+    // our own kid-less HMAC tokens skip the jjwt parser; anything unusual returns null and goes through jjwt
+    private VerifiedToken verifyHmac(String token) {
+        HmacTokenVerifier hmacVerifier = keyRing.hmacVerifier();
+        return hmacVerifier == null ? null : hmacVerifier.verify(token);
+    }
+
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        Object id = claims.get("id");
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.get("typ", String.class),
+                claims.getId(),
+                extractRoles(claims),
+                id == null ? null : id.toString(),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant(),
+                claims.get("ver") instanceof Number ver ? ver.longValue() : null,
+                claims.get("fam") instanceof String fam ? fam : null,
+                claims.get("rm") instanceof Number mask ? mask.longValue() : null
+        );
+    }
+
     public boolean isAccessToken(String token) {
-        Claims claims = extractAllClaims(token);
-        return "access".equals(claims.get("typ"));
+        return verify(token).isAccessToken();
     }
 
     public boolean isRefreshToken(String token) {
-        Claims claims = extractAllClaims(token);
-        return "refresh".equals(claims.get("typ"));
+        return verify(token).isRefreshToken();
     }
 
     public String getUserId(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.getSubject();
+        return verify(token).subject();
     }
 
     public String getJti(String token) {
-        return extractAllClaims(token).getId();
+        return verify(token).jti();
+    }
+
+    public String getFamilyId(String token) {
+        return verify(token).family();
     }
 
     @Override
     public String extractUserName(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.getSubject();
+        return verify(token).subject();
     }
 
     @Override
     public Boolean validateToken(String token, UserDetails userDetails) {
-        String userName = extractUserName(token);
-        return userName.equalsIgnoreCase(userDetails.getUsername()) && !isTokenExpired(token);
+        return validateToken(verify(token), userDetails);
     }
 
-    private Boolean isTokenExpired(String token) {
-        Claims claims = extractAllClaims(token);
-        Date expirationDate = claims.getExpiration();
-
-        // 27 Dec(today) - 28 Dec(Expir)
-        return expirationDate.before(new Date());
+    @Override
+    public boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+        return token.subject() != null
+                && token.subject().equalsIgnoreCase(userDetails.getUsername())
+                && !token.isExpired();
     }
 
+    private List<String> extractRoles(Claims claims) {
+        Object roles = claims.get("roles");
+        if (!(roles instanceof List<?> list)) {
+            return List.of();
+        }
+        return list.stream().map(String::valueOf).toList();
+    }
 
 }
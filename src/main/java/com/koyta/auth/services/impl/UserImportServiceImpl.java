@@ -0,0 +1,252 @@
+package com.koyta.auth.services.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koyta.auth.contract.JsonContractValidator;
+import com.koyta.auth.dtos.ImportRowResult;
+import com.koyta.auth.dtos.ImportSummary;
+import com.koyta.auth.entities.Provider;
+import com.koyta.auth.entities.Role;
+import com.koyta.auth.entities.User;
+import com.koyta.auth.helpers.UserHelper;
+import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.security.OffloadedPasswordEncoder;
+import com.koyta.auth.security.RoleRegistry;
+import com.koyta.auth.services.UserImportService;
+import com.koyta.auth.util.AppConstants;
+import com.networknt.schema.JsonSchema;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Bulk user import. Each batch of rows costs one query for already registered emails, parallel BCrypt on a dedicated
+ * fork-join pool, and one transaction whose inserts Hibernate sends as JDBC batches
+ * ({@code hibernate.jdbc.batch_size}). Results are only reported once their batch is committed, so every row a client
+ * has seen is durable and an interrupted import can be resumed from the line after the last result. Rows whose email
+ * is already registered are reported as {@code EXISTS}, so rerunning a whole file is also safe.
+ *
+ * <p>The hashing pool is separate from the {@link com.koyta.auth.security.PasswordHashingExecutor}, so an import
+ * cannot fill the queue that logins wait in, and it is shared by all imports, so concurrent imports do not multiply
+ * the number of hashing threads.
+ */
+@Slf4j
+@Service
+public class UserImportServiceImpl implements UserImportService, DisposableBean {
+
+    static final String SCHEMA = "contracts/user/create-user.schema.json";
+
+    private final UserRepository userRepository;
+
+    private final RoleRegistry roleRegistry;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final JsonContractValidator validator;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final JsonSchema schema;
+
+    private final ForkJoinPool hashPool;
+
+    private final int batchSize;
+
+    public UserImportServiceImpl(UserRepository userRepository,
+                                 RoleRegistry roleRegistry,
+                                 OffloadedPasswordEncoder passwordEncoder,
+                                 JsonContractValidator validator,
+                                 EntityManager entityManager,
+                                 ObjectMapper objectMapper,
+                                 @Value("${app.user-import.batch-size:500}") int batchSize,
+                                 @Value("${app.user-import.hash-parallelism:0}") int hashParallelism) {
+        this.userRepository = userRepository;
+        this.roleRegistry = roleRegistry;
+        this.passwordEncoder = passwordEncoder.inline();
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.schema = validator.loadSchema(SCHEMA);
+        this.batchSize = Math.max(1, batchSize);
+        int parallelism = hashParallelism > 0
+                ? hashParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.hashPool = new ForkJoinPool(parallelism);
+    }
+
+    @Override
+    public ImportSummary importUsers(Reader body, Format format, long fromLine,
+                                     Consumer<List<ImportRowResult>> results) {
+        ImportRecordReader reader = new ImportRecordReader(body, format, objectMapper);
+        Map<ImportRowResult.Status, Long> counts = new LinkedHashMap<>();
+        List<ImportRecordReader.Row> batch = new ArrayList<>(batchSize);
+
+        ImportRecordReader.Row row;
+        while ((row = reader.next()) != null) {
+            if (row.line() < fromLine) {
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                report(importBatch(batch), counts, results);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            report(importBatch(batch), counts, results);
+        }
+
+        ImportSummary summary = new ImportSummary(
+                counts.getOrDefault(ImportRowResult.Status.CREATED, 0L),
+                counts.getOrDefault(ImportRowResult.Status.EXISTS, 0L),
+                counts.getOrDefault(ImportRowResult.Status.INVALID, 0L),
+                counts.getOrDefault(ImportRowResult.Status.FAILED, 0L),
+                reader.lastLine());
+        log.info("User import done: {}", summary);
+        return summary;
+    }
+
+    private void report(List<ImportRowResult> batchResults, Map<ImportRowResult.Status, Long> counts,
+                        Consumer<List<ImportRowResult>> results) {
+        batchResults.forEach(result -> counts.merge(result.status(), 1L, Long::sum));
+        results.accept(batchResults);
+    }
+
+    private List<ImportRowResult> importBatch(List<ImportRecordReader.Row> rows) {
+        List<ImportRowResult> results = new ArrayList<>(rows.size());
+        Map<String, Pending> pending = new LinkedHashMap<>();
+
+        for (ImportRecordReader.Row row : rows) {
+            if (row.error() != null) {
+                results.add(ImportRowResult.invalid(row.line(), null, row.error()));
+                continue;
+            }
+            String error = validator.firstError(schema, row.node()).orElse(null);
+            if (error != null) {
+                results.add(ImportRowResult.invalid(row.line(), row.node().path("email").textValue(), error));
+                continue;
+            }
+            // stored lower case like every other way in, so duplicates are found whatever the case in the file
+            String email = row.node().get("email").textValue().trim().toLowerCase(Locale.ROOT);
+            if (pending.containsKey(email)) {
+                // repeated within the file
+                results.add(ImportRowResult.exists(row.line(), email));
+            } else {
+                pending.put(email, new Pending(row.line(), email, row.node()));
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            Set<String> existing = userRepository.findExistingEmails(pending.keySet());
+            for (Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Pending> entry = it.next();
+                if (existing.contains(entry.getKey())) {
+                    results.add(ImportRowResult.exists(entry.getValue().line(), entry.getKey()));
+                    it.remove();
+                }
+            }
+        }
+        if (!pending.isEmpty()) {
+            results.addAll(insert(hash(List.copyOf(pending.values()))));
+        }
+
+        results.sort(Comparator.comparingLong(ImportRowResult::line));
+        return results;
+    }
+
+    // parallel streams run on the pool that submitted them
+    private List<Pending> hash(List<Pending> rows) {
+        Role userRole = roleRegistry.require(AppConstants.USER);
+        return hashPool.submit(() -> rows.parallelStream()
+                        .map(row -> row.withUser(toUser(row.node(), row.email(), userRole)))
+                        .toList())
+                .join();
+    }
+
+    private User toUser(JsonNode node, String email, Role userRole) {
+        User user = new User();
+        user.setName(node.get("name").textValue());
+        user.setEmail(email);
+        user.setPassword(passwordEncoder.encode(node.get("password").textValue()));
+        if (node.hasNonNull("image")) {
+            user.setImage(node.get("image").textValue());
+        }
+        if (node.hasNonNull("provider")) {
+            user.setProvider(Provider.valueOf(node.get("provider").textValue()));
+        }
+        user.setEnable(true);
+        user.setRoles(Set.of(userRole));
+        return user;
+    }
+
+    private List<ImportRowResult> insert(List<Pending> rows) {
+        List<ImportRowResult> results = new ArrayList<>(rows.size());
+        try {
+            userRepository.saveAllAndFlush(rows.stream().map(Pending::user).toList());
+            rows.forEach(row -> results.add(created(row)));
+        } catch (DataIntegrityViolationException ex) {
+            // an email was registered after the existence check; insert one by one to tell which
+            log.debug("Import batch hit a constraint, retrying {} rows one at a time", rows.size());
+            rows.forEach(row -> results.add(insertOne(row)));
+        } finally {
+            // the request may hold one persistence context for the whole import
+            entityManager.clear();
+        }
+        return results;
+    }
+
+    private ImportRowResult insertOne(Pending row) {
+        User user = row.user();
+        // ids and versions assigned by the rolled back batch
+        user.setId(null);
+        user.setVersion(null);
+        try {
+            userRepository.saveAndFlush(user);
+            return created(row);
+        } catch (DataIntegrityViolationException ex) {
+            if (UserHelper.isUniqueViolation(ex)) {
+                return ImportRowResult.exists(row.line(), user.getEmail());
+            }
+            log.warn("Could not import line {}", row.line(), ex);
+            return ImportRowResult.failed(row.line(), user.getEmail(), "Could not save user");
+        }
+    }
+
+    private static ImportRowResult created(Pending row) {
+        return ImportRowResult.created(row.line(), row.user().getEmail(), row.user().getId());
+    }
+
+    @Override
+    public void destroy() {
+        hashPool.shutdownNow();
+    }
+
+    private record Pending(long line, String email, JsonNode node, User user) {
+
+        Pending(long line, String email, JsonNode node) {
+            this(line, email, node, null);
+        }
+
+        Pending withUser(User user) {
+            return new Pending(line, email, node, user);
+        }
+    }
+}
@@ -1,34 +1,60 @@
 package com.koyta.auth.services.impl;
 
+import com.koyta.auth.dtos.RoleDto;
 import com.koyta.auth.dtos.UserDto;
+import com.koyta.auth.dtos.UserPage;
+import com.koyta.auth.entities.Provider;
 import com.koyta.auth.entities.Role;
 import com.koyta.auth.entities.User;
+import com.koyta.auth.exceptions.ExistDataException;
 import com.koyta.auth.exceptions.ResourceNotFoundException;
+import com.koyta.auth.helpers.UserCursor;
 import com.koyta.auth.helpers.UserHelper;
-import com.koyta.auth.repositories.RoleRepository;
+import com.koyta.auth.mappers.UserMapper;
+import com.koyta.auth.repositories.RefreshTokenStore;
 import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.repositories.UserRoleRow;
+import com.koyta.auth.security.RoleRegistry;
+import com.koyta.auth.security.UserCache;
+import com.koyta.auth.security.UserVersionWatermark;
 import com.koyta.auth.services.UserService;
 import com.koyta.auth.util.AppConstants;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+
  // @Autowired
     private final UserRepository userRepository;
 
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
+
+    private final RoleRegistry roleRegistry;
+
+    private final UserVersionWatermark userVersionWatermark;
 
-    private final RoleRepository roleRepository;
+    private final RefreshTokenStore refreshTokenStore;
+
+    private final UserCache userCache;
 
 
     @Override
@@ -39,12 +65,7 @@ public class UserServiceImpl implements UserService {
             throw new IllegalArgumentException("Email is required");
         }
 
-        if(userRepository.existsByEmail(user.getEmail())){
-            throw new IllegalArgumentException("Email already exists");
-        }
-
-        Role userRole = roleRepository.findByName(AppConstants.USER)
-                .orElseGet(() -> roleRepository.save(new Role(null, AppConstants.USER)));
+        Role userRole = roleRegistry.require(AppConstants.USER);
 
         user.setRoles(Set.of(userRole));
         user.setEnable(true);
@@ -53,31 +74,41 @@ public class UserServiceImpl implements UserService {
         // assign roles here (NO save inside)
         // assignDefaultRoles(user);
 
-        User saveUser = userRepository.save(user);
-        return modelMapper.map(saveUser, UserDto.class);
+        // no exists check first: the unique user_email index decides, which also settles concurrent registrations
+        User saveUser;
+        try {
+            saveUser = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException ex) {
+            if (UserHelper.isUniqueViolation(ex)) {
+                throw new ExistDataException("Email already exists");
+            }
+            throw ex;
+        }
+        return userMapper.toUserDto(saveUser);
     }
 
     @Override
     public UserDto getUserByEmail(String email) {
-        User user = userRepository.findByEmail(email).orElseThrow(() -> new ResourceNotFoundException("User Not Found"));
-        return modelMapper.map(user,UserDto.class);
+        User user = userCache.findByEmail(email).orElseThrow(() -> new ResourceNotFoundException("User Not Found"));
+        return userMapper.toUserDto(user);
     }
 
     @Override
     public UserDto updateUser(UserDto userDto, String userId) {
         UUID uid = UserHelper.parseUUID(userId);
         User user = userRepository.findById(uid).orElseThrow(() -> new ResourceNotFoundException("User Not Found"));
+        Long previousVersion = user.getVersion();
         // email id is Unique so Not Update
 
         if(userDto.getName() != null) user.setName(userDto.getName());
         if(userDto.getImage() != null) user.setImage(userDto.getImage());
-        if(userDto.getProvider() != null) user.setProvider(userDto.getProvider());
-        if(userDto.getPassword() != null) user.setPassword(userDto.getPassword());
-        user.setEnable(userDto.isEnable());
+        // password, provider and status have their own flows; the update contract only allows name and image
         user.setUpdatedAt(Instant.now());
         User updateUser = userRepository.save(user);
+        userVersionWatermark.invalidateUpTo(uid, previousVersion);
+        userCache.invalidateUpTo(uid, previousVersion);
 
-        return modelMapper.map(updateUser , UserDto.class);
+        return userMapper.toUserDto(updateUser);
     }
 
     @Override
@@ -85,21 +116,94 @@ public class UserServiceImpl implements UserService {
 
         UUID uid = UserHelper.parseUUID(userId);
         User user = userRepository.findById(uid).orElseThrow(() -> new ResourceNotFoundException("User Not Found"));
+        refreshTokenStore.deleteAllForUser(uid);
         userRepository.delete(user);
+        userVersionWatermark.invalidateUpTo(uid, null);
+        userCache.invalidateUpTo(uid, null);
 
     }
 
     @Override
     public UserDto getUserById(String userId) {
         UUID uid = UserHelper.parseUUID(userId);
-        User user = userRepository.findById(uid).orElseThrow(() -> new ResourceNotFoundException("User Not Found"));
-        return modelMapper.map(user,UserDto.class);
+        User user = userCache.findById(uid).orElseThrow(() -> new ResourceNotFoundException("User Not Found"));
+        return userMapper.toUserDto(user);
     }
 
     @Override
     @Transactional
     public List<UserDto> getAllUsers() {
-        return userRepository.findAll().stream().map(user -> modelMapper.map(user, UserDto.class))
+        return userRepository.findAll().stream().map(userMapper::toUserDto)
                 .toList();
     }
+
+    @Override
+    public UserPage listUsers(String cursor, int limit, Provider provider, Boolean enabled, String role) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        UserCursor after = UserCursor.decode(cursor);
+
+        // one id more than asked for tells whether there is a next page
+        List<UUID> ids = userRepository.findPageIds(after.createdAt(), after.id(), provider, enabled, role,
+                Limit.of(limit + 1));
+        boolean hasMore = ids.size() > limit;
+        if (hasMore) {
+            ids = ids.subList(0, limit);
+        }
+        if (ids.isEmpty()) {
+            return new UserPage(List.of(), null);
+        }
+
+        // roles are fetched in the same query instead of one eager select per user
+        Map<UUID, User> byId = userRepository.findWithRolesByIdIn(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<User> users = ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+
+        String nextCursor = null;
+        if (hasMore && !users.isEmpty()) {
+            User last = users.get(users.size() - 1);
+            nextCursor = new UserCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new UserPage(users.stream().map(userMapper::toUserDto).toList(), nextCursor);
+    }
+
+    @Override
+    @Transactional
+    public long exportUsers(Provider provider, Boolean enabled, String role, Consumer<UserDto> sink) {
+        long count = 0;
+        try (Stream<UserRoleRow> rows = userRepository.streamWithRoles(provider, enabled, role)) {
+            UserDto current = null;
+            for (Iterator<UserRoleRow> it = rows.iterator(); it.hasNext(); ) {
+                UserRoleRow row = it.next();
+                // a user's rows are adjacent, one per role
+                if (current == null || !current.getId().equals(row.id())) {
+                    if (current != null) {
+                        sink.accept(current);
+                        count++;
+                    }
+                    current = toDto(row);
+                }
+                if (row.roleId() != null) {
+                    current.getRoles().add(new RoleDto(row.roleId(), row.roleName()));
+                }
+            }
+            if (current != null) {
+                sink.accept(current);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static UserDto toDto(UserRoleRow row) {
+        UserDto dto = new UserDto();
+        dto.setId(row.id());
+        dto.setName(row.name());
+        dto.setEmail(row.email());
+        dto.setImage(row.image());
+        dto.setEnable(row.enable());
+        dto.setProvider(row.provider());
+        return dto;
+    }
 }
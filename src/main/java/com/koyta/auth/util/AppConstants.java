@@ -25,11 +25,12 @@ public final class AppConstants {
     public static final String ADMIN = "ADMIN";
     public static final String DEFAULT_ADMIN_PSWD = "admin@123";
     public static final String DEFAULT_ADMIN_EMAIL = "admin@system.com";
-    public static final String ROLE_ADMIN = "hasRole('ADMIN')";
+    // checked against the principal's role mask, see RoleRegistry#hasRole
+    public static final String ROLE_ADMIN = "@roleRegistry.hasRole(authentication, 'ADMIN')";
 
-    public static final String ROLE_USER = "hasRole('USER')";
+    public static final String ROLE_USER = "@roleRegistry.hasRole(authentication, 'USER')";
 
-    public static final String ROLE_USER_ADMIN = "hasAnyRole('USER','ADMIN')";
+    public static final String ROLE_USER_ADMIN = "@roleRegistry.hasAnyRole(authentication, 'USER', 'ADMIN')";
 
 
 }
@@ -0,0 +1,39 @@
+package com.koyta.auth.util;
+
+import java.util.UUID;
+
+/**
+ * Source of UUIDs for entity ids and token jtis. Picked with {@code app.ids.strategy}: {@code uuid7} (default) or
+ * {@code random}.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    UUID next();
+
+    default String nextString() {
+        return next().toString();
+    }
+
+    /**
+     * Version 4 UUIDs from the shared {@link java.security.SecureRandom}, the old behaviour.
+     */
+    static IdGenerator random() {
+        return UUID::randomUUID;
+    }
+
+    /**
+     * Version 7 UUIDs, see {@link TimeOrderedIdGenerator}.
+     */
+    static IdGenerator timeOrdered() {
+        return TimeOrderedIdGenerator.INSTANCE;
+    }
+
+    static IdGenerator of(String strategy) {
+        return switch (strategy == null ? "uuid7" : strategy.toLowerCase()) {
+            case "uuid7" -> timeOrdered();
+            case "random", "uuid4" -> random();
+            default -> throw new IllegalStateException("Unknown id strategy: " + strategy);
+        };
+    }
+}
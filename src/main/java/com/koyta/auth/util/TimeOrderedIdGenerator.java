@@ -0,0 +1,54 @@
+package com.koyta.auth.util;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RFC 9562 version 7 UUIDs: 48-bit Unix millisecond timestamp, then a 12-bit sequence, then 62 random bits.
+ *
+ * <p>Ids sort by creation time, so inserts append to the right edge of a primary-key index instead of landing on a
+ * random page. Ids are strictly increasing across all threads: timestamp and sequence are advanced together with one
+ * compare-and-set, the sequence starts at a random value each millisecond and, if it runs out, borrows the next
+ * millisecond. Keeping that state shared rather than per thread means it survives virtual threads that live for a
+ * single request. Entropy comes from {@link ThreadLocalRandom}, so there is no contention on a shared
+ * {@code SecureRandom}; that is fine for ids and for jtis, which only ever travel inside a signed token, but these
+ * values must not be used as secrets.
+ */
+public final class TimeOrderedIdGenerator implements IdGenerator {
+
+    static final TimeOrderedIdGenerator INSTANCE = new TimeOrderedIdGenerator();
+
+    private static final int SEQUENCE_BITS = 12;
+
+    private static final int MAX_SEQUENCE = (1 << SEQUENCE_BITS) - 1;
+
+    // millis << 12 | sequence of the last id handed out
+    private final AtomicLong last = new AtomicLong();
+
+    private TimeOrderedIdGenerator() {
+    }
+
+    @Override
+    public UUID next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+
+        long previous;
+        long current;
+        do {
+            previous = last.get();
+            if (now > previous >>> SEQUENCE_BITS) {
+                // leave headroom so a burst within the same millisecond rarely has to borrow the next one
+                current = (now << SEQUENCE_BITS) | random.nextInt(MAX_SEQUENCE / 2);
+            } else {
+                // a full sequence carries into the millisecond
+                current = previous + 1;
+            }
+        } while (!last.compareAndSet(previous, current));
+
+        long msb = ((current >>> SEQUENCE_BITS) << 16) | 0x7000L | (current & MAX_SEQUENCE);
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+}
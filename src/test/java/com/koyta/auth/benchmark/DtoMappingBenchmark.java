@@ -0,0 +1,60 @@
+package com.koyta.auth.benchmark;
+
+import com.koyta.auth.dtos.UserDto;
+import com.koyta.auth.entities.Provider;
+import com.koyta.auth.entities.Role;
+import com.koyta.auth.entities.User;
+import com.koyta.auth.mappers.UserMapper;
+import com.koyta.auth.mappers.UserMapperImpl;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code User -> UserDto} as done on every login, refresh and user read: ModelMapper's reflective matching vs the
+ * MapStruct-generated {@link UserMapper}. The ModelMapper instance is shared and warm, as the old singleton bean was,
+ * so its one-off type map creation is not counted.
+ * Run with {@code -Dbenchmark.include=DtoMapping} and add {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private ModelMapper modelMapper;
+    private UserMapper userMapper;
+    private User user;
+
+    @Setup
+    public void setup() {
+        modelMapper = new ModelMapper();
+        userMapper = new UserMapperImpl();
+
+        user = new User();
+        user.setId(UUID.randomUUID());
+        user.setName("Bench User");
+        user.setEmail("bench@test.com");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOa5gHfMIvbGqXz0KqGCFe7wDqTp1BTiK");
+        user.setEnable(true);
+        user.setProvider(Provider.LOCAL);
+        user.setRoles(new HashSet<>(Set.of(new Role(UUID.randomUUID(), "USER"), new Role(UUID.randomUUID(), "ADMIN"))));
+        user.setVersion(1L);
+    }
+
+    @Benchmark
+    public UserDto modelMapper() {
+        return modelMapper.map(user, UserDto.class);
+    }
+
+    @Benchmark
+    public UserDto generated() {
+        return userMapper.toUserDto(user);
+    }
+}
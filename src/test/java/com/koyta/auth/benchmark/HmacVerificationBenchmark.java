@@ -0,0 +1,66 @@
+package com.koyta.auth.benchmark;
+
+import com.koyta.auth.entities.Role;
+import com.koyta.auth.entities.User;
+import com.koyta.auth.security.HmacTokenVerifier;
+import com.koyta.auth.security.JwtKeyRing;
+import com.koyta.auth.security.VerifiedTokenCache;
+import com.koyta.auth.services.impl.JwtServiceImpl;
+import com.koyta.auth.util.IdGenerator;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single signature check on one of our access tokens, jjwt parser vs {@link HmacTokenVerifier}.
+ * Run with {@code -Dbenchmark.include=HmacVerification} and add {@code -prof gc} to compare allocation rates; the
+ * virtual-thread variant minus the cost of starting a thread should stay close to {@code fastPath}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HmacVerificationBenchmark {
+
+    private JwtKeyRing keyRing;
+    private HmacTokenVerifier verifier;
+    private String token;
+
+    @Setup
+    public void setup() {
+        keyRing = JwtKeyRing.hmac("this-is-a-very-long-secret-key-at-least-64-characters-long-123456");
+        verifier = keyRing.hmacVerifier();
+
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("bench@test.com");
+        user.setRoles(Set.of(new Role(UUID.randomUUID(), "USER")));
+        user.setVersion(1L);
+
+        token = new JwtServiceImpl(keyRing, 3600, 7200, "issuer",
+                VerifiedTokenCache.disabled(), IdGenerator.timeOrdered()).generateAccessToken(user);
+    }
+
+    @Benchmark
+    public Object jjwtParser() {
+        return Jwts.parser().keyLocator(keyRing).build().parseSignedClaims(token).getPayload();
+    }
+
+    @Benchmark
+    public Object fastPath() {
+        return verifier.verify(token);
+    }
+
+    // one verification per new virtual thread, as each request gets in the virtual-thread mode
+    @Benchmark
+    public Object fastPathOnNewVirtualThread() throws InterruptedException {
+        Object[] verified = new Object[1];
+        Thread.ofVirtual().start(() -> verified[0] = verifier.verify(token)).join();
+        return verified[0];
+    }
+}
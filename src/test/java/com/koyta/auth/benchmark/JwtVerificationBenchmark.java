@@ -0,0 +1,61 @@
+package com.koyta.auth.benchmark;
+
+import com.koyta.auth.entities.Role;
+import com.koyta.auth.entities.User;
+import com.koyta.auth.security.CustomUserDetails;
+import com.koyta.auth.security.RoleSet;
+import com.koyta.auth.security.VerifiedToken;
+import com.koyta.auth.services.impl.JwtServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of reading an access token in JwtAuthenticationFilter:
+ * the old flow parsed the token once per claim, the new flow verifies it once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private JwtServiceImpl jwtService;
+    private CustomUserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtServiceImpl(
+                "this-is-a-very-long-secret-key-at-least-64-characters-long-123456", 3600, 7200, "issuer");
+
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("bench@test.com");
+        user.setRoles(Set.of(new Role(UUID.randomUUID(), "USER")));
+
+        userDetails = new CustomUserDetails(user, RoleSet.NONE);
+        token = jwtService.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public void parsePerClaim(Blackhole bh) {
+        // extractUserName, isAccessToken, then validateToken re-reading subject and expiry
+        bh.consume(jwtService.extractUserName(token));
+        bh.consume(jwtService.isAccessToken(token));
+        bh.consume(jwtService.extractUserName(token));
+        bh.consume(jwtService.getJti(token));
+    }
+
+    @Benchmark
+    public void parseOnce(Blackhole bh) {
+        VerifiedToken verified = jwtService.verify(token);
+        bh.consume(verified.isAccessToken());
+        bh.consume(jwtService.validateToken(verified, userDetails));
+    }
+}
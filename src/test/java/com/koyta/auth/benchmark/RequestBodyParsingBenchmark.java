@@ -0,0 +1,61 @@
+package com.koyta.auth.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koyta.auth.dtos.LoginRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Getting a login body from the wire to a {@link LoginRequest} on a contract-validated route, schema check excluded
+ * as both flows run it on the same tree. The old flow read the body into a String, parsed it for the schema,
+ * re-encoded it for the cached request and let the Jackson converter parse it again; the new flow reads the bytes
+ * once and binds from the validated tree.
+ * Run with {@code -Dbenchmark.include=RequestBodyParsing} and add {@code -prof gc} to compare allocations per login.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBodyParsingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper();
+        body = """
+                {
+                  "email": "bench@test.com",
+                  "password": "password123"
+                }
+                """.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public LoginRequest parseTwice() throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+        String text = reader.lines().collect(Collectors.joining());
+        JsonNode validated = objectMapper.readTree(text);
+        byte[] cached = text.getBytes(StandardCharsets.UTF_8);
+        return validated == null ? null : objectMapper.readValue(new ByteArrayInputStream(cached), LoginRequest.class);
+    }
+
+    @Benchmark
+    public LoginRequest parseOnce() throws IOException {
+        byte[] read = new ByteArrayInputStream(body).readAllBytes();
+        JsonNode validated = objectMapper.readTree(read);
+        return objectMapper.treeToValue(validated, LoginRequest.class);
+    }
+}
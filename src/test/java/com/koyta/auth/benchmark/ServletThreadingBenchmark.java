@@ -0,0 +1,98 @@
+package com.koyta.auth.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koyta.auth.AuthenticationServiceApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load on an authenticated read, {@code GET /api/v1/user/{id}}, which loads the caller and the requested
+ * user from the database, with the application on platform threads (Tomcat's pool of 200) and on virtual threads.
+ * 256 client threads keep more requests in flight than the platform pool has threads; compare ops/s and the p0.99
+ * line of the sample-time run.
+ * Run with {@code -Dbenchmark.include=ServletThreading}. Against the in-memory H2 database requests hardly block, so
+ * both modes are CPU-bound; set {@code TEST_DB} to a MySQL URL (and {@code -jvmArgsAppend} the credentials as
+ * {@code -Dspring.datasource.*}) to measure the mode where it matters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(1)
+public class ServletThreadingBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threading;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest getUser;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, InterruptedException {
+        context = new SpringApplicationBuilder(AuthenticationServiceApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + threading.equals("virtual"),
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        String base = "http://localhost:" + port + "/api/v1";
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        String email = "bench-" + System.nanoTime() + "@test.com";
+        send(HttpRequest.newBuilder(URI.create(base + "/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("""
+                        {"name": "Bench", "email": "%s", "password": "password123"}
+                        """.formatted(email)))
+                .build());
+        JsonNode login = new ObjectMapper().readTree(send(HttpRequest.newBuilder(URI.create(base + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("""
+                        {"email": "%s", "password": "password123"}
+                        """.formatted(email)))
+                .build()));
+
+        getUser = HttpRequest.newBuilder(URI.create(base + "/user/" + login.at("/user/id").asText()))
+                .header("Authorization", "Bearer " + login.get("accessToken").asText())
+                .GET()
+                .build();
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException(request.uri() + " answered " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getUser() throws IOException, InterruptedException {
+        int status = client.send(getUser, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("GET user answered " + status);
+        }
+        return status;
+    }
+}
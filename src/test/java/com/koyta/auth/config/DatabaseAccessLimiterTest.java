@@ -0,0 +1,68 @@
+package com.koyta.auth.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseAccessLimiterTest {
+
+    @Mock
+    private DataSource pool;
+
+    @Mock
+    private Connection connection;
+
+    private final DatabaseAccessLimiter limiter = new DatabaseAccessLimiter(1, Duration.ofMillis(50));
+
+    @Test
+    void shouldHoldPermitUntilConnectionIsClosed() throws SQLException {
+        when(pool.getConnection()).thenReturn(connection);
+        DataSource limited = limiter.wrap(pool);
+
+        Connection first = limited.getConnection();
+        assertEquals(0, limiter.available());
+        assertThrows(SQLTransientConnectionException.class, limited::getConnection);
+        assertEquals(1, limiter.timeouts());
+
+        first.close();
+        first.close();
+        verify(connection, times(2)).close();
+        assertEquals(1, limiter.available());
+
+        limited.getConnection().close();
+        assertEquals(1, limiter.available());
+    }
+
+    @Test
+    void shouldReleasePermitWhenPoolFails() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLTransientConnectionException("pool timeout"));
+        DataSource limited = limiter.wrap(pool);
+
+        assertThrows(SQLTransientConnectionException.class, limited::getConnection);
+        assertEquals(1, limiter.available());
+        assertEquals(0, limiter.timeouts());
+    }
+
+    @Test
+    void shouldPassConnectionErrorsThroughUnwrapped() throws SQLException {
+        when(pool.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement("select 1")).thenThrow(new SQLException("broken"));
+
+        try (Connection limited = limiter.wrap(pool).getConnection()) {
+            SQLException ex = assertThrows(SQLException.class, () -> limited.prepareStatement("select 1"));
+            assertEquals("broken", ex.getMessage());
+        }
+        assertEquals(1, limiter.available());
+    }
+}
@@ -0,0 +1,73 @@
+package com.koyta.auth.config;
+
+import com.koyta.auth.AuthenticationServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fails on any {@code synchronized} method or block in the application classes. On Java 21 a virtual thread that
+ * blocks inside a monitor pins its carrier, so code that may wait on the database, a file or another thread takes a
+ * {@link java.util.concurrent.locks.ReentrantLock} instead.
+ */
+class NoPinningMonitorsTest {
+
+    @Test
+    void shouldNotUseMonitorsInApplicationCode() throws Exception {
+        Path classes = Path.of(AuthenticationServiceApplication.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+        List<String> offenders = new ArrayList<>();
+
+        try (Stream<Path> files = Files.walk(classes)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".class")).toList()) {
+                scan(file, offenders);
+            }
+        }
+
+        assertTrue(offenders.isEmpty(), "synchronized in " + offenders);
+    }
+
+    private static void scan(Path file, List<String> offenders) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            new ClassReader(in).accept(new ClassVisitor(Opcodes.ASM9) {
+
+                private String className;
+
+                @Override
+                public void visit(int version, int access, String name, String signature, String superName,
+                                  String[] interfaces) {
+                    className = name.replace('/', '.');
+                }
+
+                @Override
+                public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                                 String[] exceptions) {
+                    String method = className + "." + name;
+                    if ((access & Opcodes.ACC_SYNCHRONIZED) != 0) {
+                        offenders.add(method);
+                    }
+                    return new MethodVisitor(Opcodes.ASM9) {
+                        @Override
+                        public void visitInsn(int opcode) {
+                            if (opcode == Opcodes.MONITORENTER) {
+                                offenders.add(method);
+                            }
+                        }
+                    };
+                }
+            }, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        }
+    }
+}
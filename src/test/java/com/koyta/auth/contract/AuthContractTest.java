@@ -21,6 +21,16 @@ class AuthContractTest {
 
     // ================= LOGIN CONTRACT =================
 
+    @Test
+    void shouldRejectLoginBodyOverSizeCap() throws Exception {
+        String json = "{\"email\": \"test@test.com\", \"password\": \"" + "x".repeat(70_000) + "\"}";
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
     @Test
     void shouldFailWhenLoginEmailMissing() throws Exception {
         String json = """
@@ -0,0 +1,120 @@
+package com.koyta.auth.contract;
+
+import com.koyta.auth.exceptions.ContractValidationException;
+import com.networknt.schema.JsonSchema;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonSchemaRegistryTest {
+
+    private static final String LOGIN = "contracts/auth/login.schema.json";
+
+    @TempDir
+    Path dir;
+
+    private JsonSchemaRegistry registry(String location, boolean hotReload) {
+        JsonSchemaRegistry registry = new JsonSchemaRegistry(
+                new ContractSchemaProperties(location, hotReload, Duration.ofSeconds(1), null, null, null));
+        registry.afterPropertiesSet();
+        return registry;
+    }
+
+    private Path write(String name, String json, long modifiedAt) throws IOException {
+        Path file = dir.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, json);
+        file.toFile().setLastModified(modifiedAt);
+        return file;
+    }
+
+    @Test
+    void shouldCompileEveryBundledSchemaOnce() {
+        JsonSchemaRegistry registry = registry(null, false);
+
+        assertTrue(registry.paths().containsAll(Set.of(LOGIN,
+                "contracts/auth/register-user.schema.json",
+                "contracts/user/user-response.schema.json",
+                "contracts/common/api-error.schema.json")));
+        assertSame(registry.schema(LOGIN), registry.schema(LOGIN));
+        assertThrows(IllegalArgumentException.class, () -> registry.schema("contracts/auth/missing.schema.json"));
+    }
+
+    @Test
+    void shouldFailFastOnInvalidSchemas() throws IOException {
+        write("auth/ok.schema.json", "{\"type\": \"object\"}", 1_000);
+        write("auth/bad-type.schema.json", "{\"type\": 12}", 1_000);
+        write("common/broken.schema.json", "{\"type\": ", 1_000);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> registry(dir.toUri().toString(), false));
+
+        assertTrue(ex.getMessage().contains("contracts/auth/bad-type.schema.json"));
+        assertTrue(ex.getMessage().contains("contracts/common/broken.schema.json"));
+        assertFalse(ex.getMessage().contains("ok.schema.json"));
+    }
+
+    @Test
+    void shouldReloadChangedSchemasAndKeepOldOnesWhenAnEditIsBroken() throws IOException {
+        Path file = write("auth/login.schema.json", "{\"type\": \"object\"}", 1_000);
+        JsonSchemaRegistry registry = registry(dir.toUri().toString(), true);
+        JsonSchema first = registry.schema(LOGIN);
+
+        registry.reloadIfChanged();
+        assertSame(first, registry.schema(LOGIN));
+
+        write("auth/login.schema.json", "{\"type\": \"object\", \"required\": [\"email\"]}", 2_000);
+        registry.reloadIfChanged();
+        JsonSchema second = registry.schema(LOGIN);
+        assertNotSame(first, second);
+
+        write("auth/login.schema.json", "{\"required\": \"email\"}", 3_000);
+        registry.reloadIfChanged();
+        registry.reloadIfChanged();
+        assertSame(second, registry.schema(LOGIN));
+        assertEquals(1, registry.failedReloads());
+
+        Files.delete(file);
+        registry.reloadIfChanged();
+        assertTrue(registry.paths().isEmpty());
+    }
+
+    @Test
+    void shouldNotReloadWhenHotReloadIsOff() throws IOException {
+        write("auth/login.schema.json", "{\"type\": \"object\"}", 1_000);
+        JsonSchemaRegistry registry = registry(dir.toUri().toString(), false);
+        JsonSchema first = registry.schema(LOGIN);
+
+        write("auth/login.schema.json", "{\"type\": \"array\"}", 2_000);
+        registry.reloadIfChanged();
+
+        assertSame(first, registry.schema(LOGIN));
+        assertEquals(1, registry.reloads());
+    }
+
+    @Test
+    void shouldPublishValidationTimePerSchema() {
+        JsonSchemaRegistry registry = registry(null, false);
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        registry.bindTo(meters);
+        JsonContractValidator validator = new JsonContractValidator(registry);
+
+        validator.validate("{\"email\": \"a@test.com\", \"password\": \"password123\"}", LOGIN);
+        assertThrows(ContractValidationException.class,
+                () -> validator.validate("{\"email\": \"a@test.com\"}", LOGIN));
+        assertThrows(ContractValidationException.class, () -> validator.validate("{", LOGIN));
+
+        // malformed bodies never reach the schema
+        assertEquals(2, meters.get("auth.contract.validation").tag("schema", "auth/login").functionTimer().count());
+        assertEquals(1, meters.get("auth.contract.validation.failures").tag("schema", "auth/login")
+                .functionCounter().count());
+    }
+}
@@ -0,0 +1,75 @@
+package com.koyta.auth.contract;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseContractCheckerTest {
+
+    private static final String USER_RESPONSE = "contracts/user/user-response.schema.json";
+
+    private static final String ROUTE = "GET:/api/v1/user/{userid}";
+
+    private ResponseContractChecker checker(Double sampleRate, Executor executor) {
+        JsonSchemaRegistry registry = new JsonSchemaRegistry(
+                new ContractSchemaProperties(null, false, null, null, null, null));
+        registry.afterPropertiesSet();
+        return new ResponseContractChecker(new JsonContractValidator(registry),
+                new ContractSchemaProperties(null, false, null, null, sampleRate, 1), executor);
+    }
+
+    private static byte[] json(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void shouldCountValidResponsesAndViolationsPerRoute() {
+        ResponseContractChecker checker = checker(1.0, Runnable::run);
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        checker.bindTo(meters);
+
+        checker.submit(ROUTE, USER_RESPONSE, json("""
+                {"id": "0190c0de-7e57-7000-8000-000000000001", "name": "Abhishek", "email": "abhi@test.com",
+                 "enable": true, "provider": "LOCAL", "roles": [{"name": "USER"}]}
+                """));
+        checker.submit(ROUTE, USER_RESPONSE, json("{\"id\": \"0190c0de-7e57-7000-8000-000000000001\"}"));
+        checker.submit(ROUTE, USER_RESPONSE, json("{\"id\": "));
+
+        assertEquals(1, checker.valid(ROUTE));
+        assertEquals(1, checker.violations(ROUTE));
+        assertEquals(0, checker.violations("POST:/api/v1/user"));
+        assertEquals(1, meters.get("auth.contract.response.checks")
+                .tags("route", ROUTE, "result", "violation").functionCounter().count());
+        assertEquals(1, meters.get("auth.contract.response.checks")
+                .tags("route", ROUTE, "result", "malformed").functionCounter().count());
+    }
+
+    @Test
+    void shouldDropSamplesWhenTheQueueIsFull() {
+        ResponseContractChecker checker = checker(1.0, task -> {
+            throw new RejectedExecutionException();
+        });
+
+        checker.submit(ROUTE, USER_RESPONSE, json("{}"));
+
+        assertEquals(1, checker.dropped());
+        assertEquals(0, checker.valid(ROUTE) + checker.violations(ROUTE));
+    }
+
+    @Test
+    void shouldSampleAccordingToRate() {
+        assertTrue(checker(1.0, Runnable::run).shouldSample());
+
+        ResponseContractChecker off = checker(0.0, Runnable::run);
+        assertFalse(off.isEnabled());
+        assertFalse(off.shouldSample());
+
+        // out-of-range rates are clamped rather than rejected
+        assertTrue(checker(7.0, Runnable::run).shouldSample());
+    }
+}
@@ -13,7 +13,10 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.UUID;
+
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -164,8 +167,36 @@ class UserContractTest {
                 .andExpect(status().isBadRequest());
     }
 
+    //    UPDATE ROUTE HAS A PATH VARIABLE
+    @Test
+    @WithMockUser
+    void shouldFailWhenUpdateChangesEmail() throws Exception {
 
+        String json = """
+    {
+      "email": "other@test.com"
+    }
+    """;
 
+        mockMvc.perform(put("/api/v1/user/{id}", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isBadRequest());
+    }
 
+    //    ONLY NAME AND IMAGE ARE UPDATABLE
+    @Test
+    @WithMockUser
+    void shouldFailWhenUpdateChangesPasswordOrStatus() throws Exception {
+
+        for (String json : new String[]{
+                "{\"password\": \"newpassword123\"}",
+                "{\"enable\": false}",
+                "{\"provider\": \"GOOGLE\"}"}) {
+            mockMvc.perform(put("/api/v1/user/{id}", UUID.randomUUID())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(json))
+                    .andExpect(status().isBadRequest());
+        }
+    }
 }
-
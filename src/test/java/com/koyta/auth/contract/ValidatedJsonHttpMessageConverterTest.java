@@ -0,0 +1,78 @@
+package com.koyta.auth.contract;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koyta.auth.dtos.LoginRequest;
+import com.koyta.auth.filter.ContractValidationFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidatedJsonHttpMessageConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ValidatedJsonHttpMessageConverter converter = new ValidatedJsonHttpMessageConverter(objectMapper);
+
+    // the body stream must not be touched when a validated tree is there
+    private final HttpInputMessage unreadable = new HttpInputMessage() {
+        @Override
+        public InputStream getBody() {
+            throw new AssertionError("body read again");
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+    };
+
+    @AfterEach
+    void cleanup() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private void validated(String json) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+        if (json != null) {
+            request.setAttribute(ContractValidationFilter.VALIDATED_BODY, objectMapper.readTree(json));
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @Test
+    void shouldBindFromValidatedTree() throws Exception {
+        validated("{\"email\": \"a@test.com\", \"password\": \"password123\"}");
+
+        assertTrue(converter.canRead(LoginRequest.class, null, MediaType.APPLICATION_JSON));
+        LoginRequest login = (LoginRequest) converter.read(LoginRequest.class, null, unreadable);
+
+        assertEquals(new LoginRequest("a@test.com", "password123"), login);
+    }
+
+    @Test
+    void shouldLeaveOtherRequestsToTheRegularConverter() throws Exception {
+        assertFalse(converter.canRead(LoginRequest.class, null, MediaType.APPLICATION_JSON));
+
+        validated(null);
+        assertFalse(converter.canRead(LoginRequest.class, null, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(LoginRequest.class, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void shouldRejectTreeThatDoesNotFitTheType() throws Exception {
+        validated("{\"email\": {\"nested\": true}}");
+
+        assertThrows(HttpMessageNotReadableException.class,
+                () -> converter.read(LoginRequest.class, null, unreadable));
+    }
+}
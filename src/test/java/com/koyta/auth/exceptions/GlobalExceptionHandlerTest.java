@@ -3,9 +3,12 @@ package com.koyta.auth.exceptions;
 import com.koyta.auth.dtos.ApiError;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.DisabledException;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -63,4 +66,22 @@ public class GlobalExceptionHandlerTest {
         assertEquals(400, response.getStatusCodeValue());
         assertEquals("Contract Validation Failed", response.getBody().error());
     }
+
+    @Test
+    void shouldHandlePasswordHashingRejectedWithRetryAfter() {
+
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
+
+        PasswordHashingRejectedException ex =
+                new PasswordHashingRejectedException("Too many login requests", Duration.ofSeconds(2));
+
+        ResponseEntity<ApiError> response =
+                handler.handlePasswordHashingRejected(ex, request);
+
+        assertEquals(503, response.getStatusCodeValue());
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
 }
@@ -0,0 +1,54 @@
+package com.koyta.auth.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContractRoutesTest {
+
+    private final ContractRoutes routes = new ContractRoutes(Map.of(
+            "POST:/api/v1/user", "create",
+            "PUT:/api/v1/user/{userid}", "update",
+            "GET:/api/v1/user/*", "read",
+            "GET:/api/v1/user/email/*", "read-by-email",
+            "GET:/api/v1/user/me", "me"
+    ));
+
+    @Test
+    void shouldMatchLiteralRoutesOnMethodAndPath() {
+        assertEquals("create", routes.match("POST", "/api/v1/user"));
+        assertNull(routes.match("GET", "/api/v1/user"));
+        assertNull(routes.match("DELETE", "/api/v1/user/42"));
+        assertNull(routes.match("POST", "/api/v1/users"));
+        assertNull(routes.match("POST", "/api/v1/use"));
+    }
+
+    @Test
+    void shouldMatchWildcardsAndVariablesAsOneSegment() {
+        assertEquals("update", routes.match("PUT", "/api/v1/user/0190c0de-7e57-7000-8000-000000000001"));
+        assertEquals("read", routes.match("GET", "/api/v1/user/42"));
+        assertEquals("read-by-email", routes.match("GET", "/api/v1/user/email/a@test.com"));
+
+        assertNull(routes.match("PUT", "/api/v1/user/"));
+        assertNull(routes.match("PUT", "/api/v1/user/42/roles"));
+        assertNull(routes.match("PUT", "/api/v1/user//42"));
+    }
+
+    @Test
+    void shouldPreferLiteralSegmentButFallBackToWildcard() {
+        assertEquals("me", routes.match("GET", "/api/v1/user/me"));
+        // "email" is a literal child, but /email alone only fits the wildcard
+        assertEquals("read", routes.match("GET", "/api/v1/user/email"));
+    }
+
+    @Test
+    void shouldRejectMalformedOrConflictingRoutes() {
+        assertThrows(IllegalArgumentException.class, () -> new ContractRoutes(Map.of("/api/v1/user", "a")));
+        assertThrows(IllegalArgumentException.class, () -> new ContractRoutes(Map.of("GET:/api//user", "a")));
+        assertThrows(IllegalArgumentException.class, () -> new ContractRoutes(Map.of(
+                "GET:/api/v1/user/*", "a",
+                "GET:/api/v1/user/{id}", "b")));
+    }
+}
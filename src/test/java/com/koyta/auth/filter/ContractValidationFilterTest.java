@@ -1,19 +1,29 @@
 package com.koyta.auth.filter;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.koyta.auth.contract.ContractSchemaProperties;
 import com.koyta.auth.contract.JsonContractValidator;
 import com.koyta.auth.exceptions.ContractValidationException;
 import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletRequest;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
 
-import java.io.BufferedReader;
-import java.io.PrintWriter;
-import java.io.StringReader;
-import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,20 +37,22 @@ class ContractValidationFilterTest {
         ContractValidationFilter filter =
                 new ContractValidationFilter(validator);
 
-        HttpServletRequest request = mock(HttpServletRequest.class);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+        request.setContent("{\"a\":\n1}".getBytes(StandardCharsets.UTF_8));
         HttpServletResponse response = mock(HttpServletResponse.class);
         FilterChain chain = mock(FilterChain.class);
 
-        when(request.getMethod()).thenReturn("POST");
-        when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
-
-        when(request.getReader())
-                .thenReturn(new BufferedReader(new StringReader("{\"a\":1}")));
+        JsonNode tree = JsonNodeFactory.instance.objectNode().put("a", 1);
+        when(validator.validate(any(byte[].class), eq("contracts/auth/login.schema.json"))).thenReturn(tree);
 
         filter.doFilterInternal(request, response, chain);
 
-        verify(validator).validate(anyString(), anyString());
-        verify(chain).doFilter(any(), eq(response));
+        ArgumentCaptor<ServletRequest> passed = ArgumentCaptor.forClass(ServletRequest.class);
+        verify(chain).doFilter(passed.capture(), eq(response));
+        // the body is passed on unchanged, newlines included, with the tree it parsed to
+        assertEquals("{\"a\":\n1}", new String(passed.getValue().getInputStream().readAllBytes(),
+                StandardCharsets.UTF_8));
+        assertSame(tree, passed.getValue().getAttribute(ContractValidationFilter.VALIDATED_BODY));
     }
 
     @Test
@@ -51,27 +63,83 @@ class ContractValidationFilterTest {
         ContractValidationFilter filter =
                 new ContractValidationFilter(validator);
 
-        HttpServletRequest request = mock(HttpServletRequest.class);
-        HttpServletResponse response = mock(HttpServletResponse.class);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+        request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
         FilterChain chain = mock(FilterChain.class);
 
-        when(request.getMethod()).thenReturn("POST");
-        when(request.getRequestURI()).thenReturn("/api/v1/auth/login");
+        doThrow(new ContractValidationException("Invalid"))
+                .when(validator).validate(any(byte[].class), any(String.class));
 
-        when(request.getReader())
-                .thenReturn(new BufferedReader(new StringReader("{}")));
+        filter.doFilterInternal(request, response, chain);
 
-        PrintWriter writer = new PrintWriter(new StringWriter());
-        when(response.getWriter()).thenReturn(writer);
+        assertEquals(HttpServletResponse.SC_BAD_REQUEST, response.getStatus());
+        assertEquals("{\"error\": \"Invalid\"}", response.getContentAsString());
+        verify(chain, never()).doFilter(any(), any());
+    }
 
-        doThrow(new ContractValidationException("Invalid"))
-                .when(validator).validate(anyString(), anyString());
+    @Test
+    void shouldRejectOversizedBodyWithoutValidating() throws Exception {
+
+        JsonContractValidator validator = mock(JsonContractValidator.class);
+
+        ContractValidationFilter filter = new ContractValidationFilter(validator,
+                new ContractSchemaProperties(null, null, null, DataSize.ofBytes(16), null, null));
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+        request.setContent("{\"email\": \"someone@example.com\"}".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = mock(FilterChain.class);
 
         filter.doFilterInternal(request, response, chain);
 
-        verify(response).setStatus(HttpServletResponse.SC_BAD_REQUEST);
-        verify(response).getWriter();
-        verify(chain, never()).doFilter(any(), any());
+        assertEquals(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, response.getStatus());
+        verifyNoInteractions(validator, chain);
+    }
+
+    @Test
+    void shouldValidateEveryMappedRoute() throws Exception {
+
+        JsonContractValidator validator = mock(JsonContractValidator.class);
+
+        ContractValidationFilter filter =
+                new ContractValidationFilter(validator);
+
+        doThrow(new ContractValidationException("Invalid"))
+                .when(validator).validate(any(byte[].class), any(String.class));
+
+        for (Map.Entry<String, String> route : ContractValidationFilter.SCHEMA_MAPPING.entrySet()) {
+            String[] methodAndPath = route.getKey().split(":", 2);
+            String uri = methodAndPath[1].replaceAll("\\{[^/]+}|\\*", "0190c0de-7e57-7000-8000-000000000001");
+            MockHttpServletRequest request = new MockHttpServletRequest(methodAndPath[0], uri);
+            request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            FilterChain chain = mock(FilterChain.class);
+
+            filter.doFilterInternal(request, response, chain);
+
+            assertEquals(HttpServletResponse.SC_BAD_REQUEST, response.getStatus(), route.getKey());
+            verify(validator).validate(any(byte[].class), eq(route.getValue()));
+            verifyNoInteractions(chain);
+            clearInvocations(validator);
+        }
+    }
+
+    @Test
+    void shouldFailStartupWhenMappedSchemaIsMissing() {
+
+        JsonContractValidator validator = mock(JsonContractValidator.class);
+        when(validator.loadSchema(anyString())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0).equals("contracts/user/update-user.schema.json")) {
+                throw new IllegalArgumentException("Unknown contract schema");
+            }
+            return null;
+        });
+
+        ContractValidationFilter filter =
+                new ContractValidationFilter(validator);
+
+        assertThrows(IllegalArgumentException.class, filter::afterPropertiesSet);
     }
 
     //  KEY NOT FOUND CASE
@@ -0,0 +1,111 @@
+package com.koyta.auth.filter;
+
+import com.koyta.auth.contract.JsonContractValidator;
+import com.koyta.auth.contract.ResponseContractChecker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseContractFilterTest {
+
+    private static final String BODY = "{\"id\": \"0190c0de-7e57-7000-8000-000000000001\"}";
+
+    @Mock
+    private JsonContractValidator validator;
+
+    @Mock
+    private ResponseContractChecker checker;
+
+    @InjectMocks
+    private ResponseContractFilter filter;
+
+    private static FilterChain writing(int status, String contentType, String body) {
+        return (request, response) -> {
+            HttpServletResponse http = (HttpServletResponse) response;
+            http.setStatus(status);
+            http.setContentType(contentType);
+            http.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    @Test
+    void shouldPassSampledBodyThroughAndCheckACopy() throws Exception {
+        when(checker.shouldSample()).thenReturn(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilterInternal(new MockHttpServletRequest("GET", "/api/v1/user/42"), response,
+                writing(200, "application/json", BODY));
+
+        assertEquals(BODY, response.getContentAsString());
+        verify(checker).submit(eq("GET:/api/v1/user/{userid}"), eq("contracts/user/user-response.schema.json"),
+                aryEq(BODY.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void shouldCheckErrorResponsesAgainstTheErrorContract() throws Exception {
+        when(checker.shouldSample()).thenReturn(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilterInternal(new MockHttpServletRequest("POST", "/api/v1/auth/login"), response,
+                writing(401, "application/json", "{\"status\": 401}"));
+
+        assertEquals(401, response.getStatus());
+        verify(checker).submit(eq("POST:/api/v1/auth/login"), eq(ResponseContractFilter.ERROR_SCHEMA), any());
+    }
+
+    @Test
+    void shouldNotBufferUnsampledOrUnmappedResponses() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        MockHttpServletRequest unmapped = new MockHttpServletRequest("DELETE", "/api/v1/user/42");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilterInternal(unmapped, response, chain);
+
+        when(checker.shouldSample()).thenReturn(false);
+        MockHttpServletRequest unsampled = new MockHttpServletRequest("GET", "/api/v1/user/42");
+        filter.doFilterInternal(unsampled, response, chain);
+
+        verify(chain).doFilter(unmapped, response);
+        verify(chain).doFilter(unsampled, response);
+        verify(checker, never()).submit(anyString(), anyString(), any());
+    }
+
+    @Test
+    void shouldSkipResponsesWithoutJsonBody() throws Exception {
+        when(checker.shouldSample()).thenReturn(true);
+
+        filter.doFilterInternal(new MockHttpServletRequest("PUT", "/api/v1/user/42"),
+                new MockHttpServletResponse(), writing(200, "text/plain", "ok"));
+        filter.doFilterInternal(new MockHttpServletRequest("PUT", "/api/v1/user/42"),
+                new MockHttpServletResponse(), writing(200, "application/json", ""));
+
+        verify(checker, never()).submit(anyString(), anyString(), any());
+    }
+
+    @Test
+    void shouldFailStartupWhenMappedSchemaIsMissing() {
+        when(validator.loadSchema(anyString())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0).equals(ResponseContractFilter.ERROR_SCHEMA)) {
+                throw new IllegalArgumentException("Unknown contract schema");
+            }
+            return null;
+        });
+
+        assertThrows(IllegalArgumentException.class, filter::afterPropertiesSet);
+    }
+}
@@ -1,10 +1,13 @@
 package com.koyta.auth.filter.wrapper;
 
+import com.koyta.auth.exceptions.PayloadTooLargeException;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
 
 import java.io.BufferedReader;
+import java.nio.charset.StandardCharsets;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -125,5 +128,53 @@ class CachedBodyHttpServletRequestTest {
         assertTrue(result);
     }
 
+    @Test
+    void shouldReadDeclaredLengthIntoExactArray() throws Exception {
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent("{\"a\":\n1}".getBytes(StandardCharsets.UTF_8));
+
+        byte[] body = CachedBodyHttpServletRequest.readBody(request, 64);
+
+        assertEquals("{\"a\":\n1}", new String(body, StandardCharsets.UTF_8));
+        assertEquals(8, body.length);
+    }
+
+    @Test
+    void shouldRejectDeclaredLengthOverCapBeforeReading() throws Exception {
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContentLengthLong()).thenReturn(65L);
+
+        assertThrows(PayloadTooLargeException.class, () -> CachedBodyHttpServletRequest.readBody(request, 64));
+        verify(request, never()).getInputStream();
+    }
+
+    @Test
+    void shouldCapBodyWithoutDeclaredLength() throws Exception {
 
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContentLengthLong()).thenReturn(-1L);
+        when(request.getInputStream()).thenReturn(new CachedBodyHttpServletRequest(request, "x".repeat(65))
+                .getInputStream());
+
+        assertThrows(PayloadTooLargeException.class, () -> CachedBodyHttpServletRequest.readBody(request, 64));
+
+        when(request.getInputStream()).thenReturn(new CachedBodyHttpServletRequest(request, "x".repeat(64))
+                .getInputStream());
+        assertEquals(64, CachedBodyHttpServletRequest.readBody(request, 64).length);
+    }
+
+    @Test
+    void shouldServeBulkReadsAndLengthFromCachedArray() throws Exception {
+
+        HttpServletRequest request = mock(HttpServletRequest.class);
+
+        CachedBodyHttpServletRequest wrapper =
+                new CachedBodyHttpServletRequest(request, "test-body".getBytes(StandardCharsets.UTF_8));
+
+        assertArrayEquals("test-body".getBytes(StandardCharsets.UTF_8), wrapper.getInputStream().readAllBytes());
+        assertEquals(9, wrapper.getContentLength());
+        assertEquals(9L, wrapper.getContentLengthLong());
+    }
 }
@@ -0,0 +1,33 @@
+package com.koyta.auth.helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCursorTest {
+
+    @Test
+    void shouldRoundTripThroughOpaqueString() {
+        UserCursor cursor = new UserCursor(Instant.parse("2026-03-01T10:15:30.123456Z"), UUID.randomUUID());
+
+        String encoded = cursor.encode();
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+        assertEquals(cursor, UserCursor.decode(encoded));
+    }
+
+    @Test
+    void shouldStartAtTheBeginningWhenBlank() {
+        assertEquals(UserCursor.START, UserCursor.decode(null));
+        assertEquals(UserCursor.START, UserCursor.decode(""));
+    }
+
+    @Test
+    void shouldRejectForgedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> UserCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> UserCursor.decode("bm8tc2VwYXJhdG9y"));
+    }
+}
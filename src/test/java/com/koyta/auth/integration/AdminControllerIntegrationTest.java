@@ -5,6 +5,8 @@ import com.koyta.auth.dtos.CreateAdminRequest;
 import com.koyta.auth.entities.Role;
 import com.koyta.auth.repositories.RoleRepository;
 import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.security.RoleRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +40,9 @@ class AdminControllerIntegrationTest {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private RoleRegistry roleRegistry;
+
     CreateAdminRequest validAdminRequest;
 
     @BeforeEach
@@ -47,6 +52,7 @@ class AdminControllerIntegrationTest {
 
         // ✅ EXACT SAME NAME as AppConstants.ADMIN
         roleRepository.save(new Role(null, "ADMIN"));
+        roleRegistry.reload();
 
         validAdminRequest = new CreateAdminRequest();
         validAdminRequest.setName("Admin User");
@@ -54,6 +60,12 @@ class AdminControllerIntegrationTest {
         validAdminRequest.setPassword("password123");
     }
 
+    // roles were deleted above; put the built-in ones back for the contexts sharing this database
+    @AfterEach
+    void restoreRoles() {
+        roleRegistry.reload();
+    }
+
     // ==========================
     // ✅ CREATE ADMIN
     // ==========================
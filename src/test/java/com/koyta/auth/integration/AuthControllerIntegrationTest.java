@@ -2,17 +2,36 @@ package com.koyta.auth.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.koyta.auth.dtos.RegisterUserRequest;
+import com.koyta.auth.entities.RefreshToken;
+import com.koyta.auth.entities.User;
 import com.koyta.auth.repositories.RefreshTokenRepository;
 import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.services.JwtService;
+import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
-
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -34,6 +53,9 @@ class AuthControllerIntegrationTest {
     @Autowired
     private RefreshTokenRepository refreshTokenRepository;
 
+    @Autowired
+    private JwtService jwtService;
+
     RegisterUserRequest validRequest;
 
     @BeforeEach
@@ -72,6 +94,43 @@ class AuthControllerIntegrationTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    void shouldLetOnlyOneConcurrentRegistrationWin() throws Exception {
+        String body = objectMapper.writeValueAsString(validRequest);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                statuses.add(pool.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/v1/auth/register")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(body))
+                            .andReturn().getResponse().getStatus();
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            int conflicts = 0;
+            for (Future<Integer> status : statuses) {
+                int code = status.get(30, TimeUnit.SECONDS);
+                if (code == 201) {
+                    created++;
+                } else if (code == 409) {
+                    conflicts++;
+                }
+            }
+            assertEquals(1, created);
+            assertEquals(threads - 1, conflicts);
+            assertTrue(userRepository.findByEmail("abhi@test.com").isPresent());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     @Test
     void shouldFailWhenEmailInvalid() throws Exception {
         validRequest.setEmail("invalid");
@@ -142,6 +201,38 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.accessToken").exists());
     }
 
+    @Test
+    void shouldUpgradeLegacyHashOnLogin() throws Exception {
+        User legacy = new User();
+        legacy.setEmail("legacy@test.com");
+        legacy.setPassword(new BCryptPasswordEncoder(4).encode("password123")); // stored before {id} prefixes
+        legacy.setEnable(true);
+        UUID id = userRepository.save(legacy).getId();
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"email": "legacy@test.com", "password": "password123"}
+                                """))
+                .andExpect(status().isCreated());
+
+        // the rehash runs in the background
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        String stored = userRepository.findById(id).orElseThrow().getPassword();
+        while (!stored.startsWith("{bcrypt}") && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            stored = userRepository.findById(id).orElseThrow().getPassword();
+        }
+        assertTrue(stored.startsWith("{bcrypt}"));
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"email": "legacy@test.com", "password": "password123"}
+                                """))
+                .andExpect(status().isCreated());
+    }
+
     @Test
     void shouldFailLoginInvalidCredentials() throws Exception {
 
@@ -197,6 +288,145 @@ class AuthControllerIntegrationTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    private Cookie loginAndGetRefreshCookie() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(validRequest)));
+
+        MvcResult login = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                        {
+                          "email": "abhi@test.com",
+                          "password": "password123"
+                        }
+                        """))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        return login.getResponse().getCookie("refresh_token");
+    }
+
+    private int refresh(Cookie cookie) throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/refresh")
+                        .cookie(cookie)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Test
+    void shouldRotateRefreshTokenOnlyOnce() throws Exception {
+        Cookie cookie = loginAndGetRefreshCookie();
+
+        assertEquals(200, refresh(cookie));
+        assertEquals(401, refresh(cookie));
+
+        RefreshToken old = refreshTokenRepository.findByJti(jwtService.getJti(cookie.getValue())).orElseThrow();
+        assertTrue(old.isRevoked());
+        assertTrue(refreshTokenRepository.findByJti(old.getReplacedByToken()).isPresent());
+    }
+
+    @Test
+    void shouldFailWhenStoredRefreshTokenExpired() throws Exception {
+        Cookie cookie = loginAndGetRefreshCookie();
+
+        RefreshToken stored = refreshTokenRepository.findByJti(jwtService.getJti(cookie.getValue())).orElseThrow();
+        stored.setExpiresAt(Instant.now().minusSeconds(1));
+        refreshTokenRepository.save(stored);
+
+        assertEquals(401, refresh(cookie));
+    }
+
+    @Test
+    void shouldRevokeWholeFamilyWhenRotatedTokenIsReplayed() throws Exception {
+        Cookie stolen = loginAndGetRefreshCookie();
+
+        Cookie rotated = mockMvc.perform(post("/api/v1/auth/refresh")
+                        .cookie(stolen)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie("refresh_token");
+
+        // replayed after the grace period for concurrent refreshes
+        RefreshToken old = refreshTokenRepository.findByJti(jwtService.getJti(stolen.getValue())).orElseThrow();
+        old.setRevokedAt(Instant.now().minusSeconds(60));
+        refreshTokenRepository.save(old);
+
+        assertEquals(401, refresh(stolen));
+        assertEquals(401, refresh(rotated));
+        assertTrue(refreshTokenRepository.findAll().stream().allMatch(RefreshToken::isRevoked));
+    }
+
+    @Test
+    void shouldLetOnlyOneConcurrentRefreshWin() throws Exception {
+        Cookie cookie = loginAndGetRefreshCookie();
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return refresh(cookie);
+                }));
+            }
+            start.countDown();
+
+            int ok = 0;
+            for (Future<Integer> result : results) {
+                if (result.get(30, TimeUnit.SECONDS) == 200) {
+                    ok++;
+                }
+            }
+            assertEquals(1, ok);
+            assertEquals(2, refreshTokenRepository.count());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldKeepFamilyWhenSameTokenIsRefreshedTwiceAtOnce() throws Exception {
+        Cookie cookie = loginAndGetRefreshCookie();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<MockHttpServletResponse>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return mockMvc.perform(post("/api/v1/auth/refresh")
+                                    .cookie(cookie)
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("{}"))
+                            .andReturn().getResponse();
+                }));
+            }
+            start.countDown();
+
+            List<Cookie> rotated = new ArrayList<>();
+            for (Future<MockHttpServletResponse> result : results) {
+                MockHttpServletResponse refreshed = result.get(30, TimeUnit.SECONDS);
+                if (refreshed.getStatus() == 200) {
+                    rotated.add(refreshed.getCookie("refresh_token"));
+                } else {
+                    assertEquals(401, refreshed.getStatus());
+                }
+            }
+            assertEquals(1, rotated.size());
+
+            // the losing request did not take the winner's new token down with it
+            assertEquals(200, refresh(rotated.get(0)));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
 //    @Test
 //    void shouldFailWhenRefreshTokenInvalidButFormatCorrect() throws Exception {
 //
@@ -0,0 +1,62 @@
+package com.koyta.auth.integration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "security.jwt.signing.algorithm=RS256")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class JwksControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void shouldServePublicKeysWithoutAuthentication() throws Exception {
+
+        mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+                .andExpect(jsonPath("$.keys[0].kty").value("RSA"))
+                .andExpect(jsonPath("$.keys[0].kid").exists())
+                .andExpect(jsonPath("$.keys[0].use").value("sig"));
+    }
+
+    @Test
+    void shouldReturnNotModifiedForMatchingEtag() throws Exception {
+
+        String etag = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void shouldReturnNotModifiedForWeakListedOrWildcardEtag() throws Exception {
+
+        String etag = mockMvc.perform(get("/.well-known/jwks.json"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        for (String ifNoneMatch : new String[]{"W/" + etag, "\"other\", " + etag, "*"}) {
+            assertEquals(304, mockMvc.perform(get("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch))
+                    .andReturn().getResponse().getStatus(), ifNoneMatch);
+        }
+
+        mockMvc.perform(get("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+}
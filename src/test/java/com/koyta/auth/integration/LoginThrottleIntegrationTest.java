@@ -0,0 +1,68 @@
+package com.koyta.auth.integration;
+
+import com.koyta.auth.repositories.RefreshTokenRepository;
+import com.koyta.auth.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "security.login-throttle.max-attempts-per-ip=1000",
+        "security.login-throttle.max-failures-per-email=3"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LoginThrottleIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // the in-memory database is shared with the other integration test contexts
+    @AfterEach
+    void cleanup() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRefuseEmailAfterRepeatedFailures() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name": "Throttle", "email": "throttle@test.com", "password": "password123"}
+                                """))
+                .andExpect(status().isCreated());
+
+        String wrong = """
+                {"email": "throttle@test.com", "password": "wrong-password"}
+                """;
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/v1/auth/login").contentType(MediaType.APPLICATION_JSON).content(wrong))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        // even the right password is refused until the window slides
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"email": "throttle@test.com", "password": "password123"}
+                                """))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "60"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.koyta.auth.integration;
+
+import com.koyta.auth.entities.RefreshToken;
+import com.koyta.auth.entities.User;
+import com.koyta.auth.repositories.RefreshTokenRepository;
+import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.security.RefreshTokenPurgeJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "security.jwt.refresh-purge.batch-size=2")
+@ActiveProfiles("test")
+class RefreshTokenPurgeIntegrationTest {
+
+    @Autowired
+    private RefreshTokenPurgeJob purgeJob;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User u = new User();
+        u.setEmail("purge@test.com");
+        u.setEnable(true);
+        user = userRepository.save(u);
+    }
+
+    // the in-memory database is shared with the other integration test contexts
+    @AfterEach
+    void cleanup() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private void token(String jti, Duration createdAgo, Duration expiresIn, boolean revoked) {
+        Instant now = Instant.now();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .jti(jti)
+                .familyId(jti)
+                .user(user)
+                .createdAt(now.minus(createdAgo))
+                .expiresAt(now.plus(expiresIn))
+                .revoked(revoked)
+                .build());
+    }
+
+    @Test
+    void shouldDeleteOnlyRowsPastRetention() {
+        Duration week = Duration.ofDays(7);
+
+        token("live", Duration.ofDays(1), Duration.ofDays(13), false);
+        token("recently-revoked", Duration.ofDays(1), Duration.ofDays(13), true);
+        token("recently-expired", Duration.ofDays(15), Duration.ofDays(-1), false);
+        token("old-revoked-1", week.plusDays(1), Duration.ofDays(6), true);
+        token("old-revoked-2", week.plusDays(2), Duration.ofDays(5), true);
+        token("old-expired-1", Duration.ofDays(30), Duration.ofDays(-16), false);
+        token("old-expired-2", Duration.ofDays(40), Duration.ofDays(-26), true);
+
+        // batch size 2, so this walks several keyset pages
+        assertEquals(4, purgeJob.purge());
+
+        Set<String> left = refreshTokenRepository.findAll().stream()
+                .map(RefreshToken::getJti).collect(Collectors.toSet());
+        assertEquals(Set.of("live", "recently-revoked", "recently-expired"), left);
+    }
+}
@@ -0,0 +1,90 @@
+package com.koyta.auth.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koyta.auth.contract.ResponseContractChecker;
+import com.koyta.auth.dtos.RegisterUserRequest;
+import com.koyta.auth.repositories.RefreshTokenRepository;
+import com.koyta.auth.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.contracts.response-sample-rate=1.0")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ResponseContractIntegrationTest {
+
+    private static final String REGISTER = "POST:/api/v1/auth/register";
+
+    private static final String LOGIN = "POST:/api/v1/auth/login";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private ResponseContractChecker checker;
+
+    // the in-memory database is shared with the other integration test contexts
+    @AfterEach
+    void cleanup() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldFindResponsesMatchingTheirContracts() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new RegisterUserRequest("Abhi", "contract@test.com", "password123", null))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"email": "contract@test.com", "password": "password123"}
+                                """))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"email": "contract@test.com", "password": "wrong-password"}
+                                """))
+                .andExpect(status().isUnauthorized());
+
+        // the checks run in the background
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (checker.valid(REGISTER) + checker.violations(REGISTER) < 1
+                || checker.valid(LOGIN) + checker.violations(LOGIN) < 2) {
+            if (System.nanoTime() > deadline) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+
+        assertEquals(1, checker.valid(REGISTER));
+        assertEquals(2, checker.valid(LOGIN));
+        assertEquals(0, checker.violations(REGISTER) + checker.violations(LOGIN));
+    }
+}
@@ -0,0 +1,150 @@
+package com.koyta.auth.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koyta.auth.dtos.RegisterUserRequest;
+import com.koyta.auth.dtos.UserDto;
+import com.koyta.auth.entities.User;
+import com.koyta.auth.repositories.RefreshTokenRepository;
+import com.koyta.auth.repositories.UserInvalidationRepository;
+import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.security.RoleRegistry;
+import com.koyta.auth.security.UserCache;
+import com.koyta.auth.security.UserCacheProperties;
+import com.koyta.auth.security.UserInvalidationPoller;
+import com.koyta.auth.security.UserVersionWatermark;
+import com.koyta.auth.services.UserService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"app.user-cache.enabled=true", "app.user-cache.poll-interval=1h"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserCacheIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserInvalidationRepository invalidationRepository;
+
+    @Autowired
+    private UserCacheProperties properties;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private RoleRegistry roleRegistry;
+
+    @Autowired
+    private UserService userService;
+
+    // a second node sharing the database
+    private UserCache otherCache;
+
+    private UserVersionWatermark otherWatermark;
+
+    private UserInvalidationPoller otherPoller;
+
+    @BeforeEach
+    void setup() {
+        otherCache = new UserCache(userRepository, invalidationRepository, properties, roleRegistry);
+        otherWatermark = new UserVersionWatermark(3600);
+        otherPoller = new UserInvalidationPoller(invalidationRepository, otherCache, otherWatermark, properties);
+        otherPoller.afterPropertiesSet();
+    }
+
+    // the in-memory database is shared with the other integration test contexts
+    @AfterEach
+    void cleanup() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+        invalidationRepository.deleteAll();
+        userCache.clear();
+    }
+
+    private UUID saveUser(String email) {
+        return userRepository.save(User.builder().name("Before").email(email).password("x").enable(true).build())
+                .getId();
+    }
+
+    @Test
+    void shouldLogInAndRefreshWithCachedUser() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new RegisterUserRequest("Cached", "cached@test.com", "password123", null))))
+                .andExpect(status().isCreated());
+
+        String login = """
+                {"email": "cached@test.com", "password": "password123"}
+                """;
+        mockMvc.perform(post("/api/v1/auth/login").contentType(MediaType.APPLICATION_JSON).content(login))
+                .andExpect(status().isCreated());
+        long hits = userCache.hits();
+        Cookie refreshCookie = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON).content(login))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getCookie("refresh_token");
+
+        // the refresh token row references the cached copy of the user
+        mockMvc.perform(post("/api/v1/auth/refresh")
+                        .cookie(refreshCookie)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isOk());
+        assertTrue(userCache.hits() >= hits + 2);
+    }
+
+    @Test
+    void shouldSeeUpdateHereAtOnceAndOnOtherNodeAfterPoll() {
+        UUID id = saveUser("node@test.com");
+        assertEquals("Before", userService.getUserById(id.toString()).getName());
+        assertEquals("Before", otherCache.findById(id).orElseThrow().getName());
+
+        UserDto change = new UserDto();
+        change.setName("After");
+        change.setEnable(true);
+        userService.updateUser(change, id.toString());
+
+        assertEquals("After", userService.getUserById(id.toString()).getName());
+        assertEquals("Before", otherCache.findById(id).orElseThrow().getName());
+        assertEquals(1, otherPoller.poll());
+        assertEquals("After", otherCache.findByEmail("node@test.com").orElseThrow().getName());
+    }
+
+    @Test
+    void shouldDropDeletedUserOnOtherNodeAfterPoll() {
+        UUID id = saveUser("gone@test.com");
+        otherCache.findByEmail("gone@test.com").orElseThrow();
+
+        userService.deleteUser(id.toString());
+        otherPoller.poll();
+
+        assertTrue(otherCache.findByEmail("gone@test.com").isEmpty());
+        assertTrue(otherCache.findById(id).isEmpty());
+    }
+}
@@ -1,8 +1,13 @@
 package com.koyta.auth.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.koyta.auth.dtos.CreateUserRequest;
+import com.koyta.auth.entities.Provider;
+import com.koyta.auth.entities.User;
 import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.security.RoleRegistry;
+import com.koyta.auth.util.AppConstants;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,8 +18,14 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -33,6 +44,9 @@ class UserControllerIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private RoleRegistry roleRegistry;
+
     private CreateUserRequest validRequest;
 
     @BeforeEach
@@ -172,8 +186,7 @@ class UserControllerIntegrationTest {
         String updateJson = """
                 {
                   "name": "Updated Name",
-                  "password": "newpassword123",
-                  "enable": true
+                  "image": "updated.png"
                 }
                 """;
 
@@ -181,7 +194,9 @@ class UserControllerIntegrationTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(updateJson))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.name").value("Updated Name"));
+                .andExpect(jsonPath("$.name").value("Updated Name"))
+                .andExpect(jsonPath("$.image").value("updated.png"))
+                .andExpect(jsonPath("$.enable").value(true));
     }
 
 
@@ -275,6 +290,112 @@ class UserControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    // ==========================
+    // 📄 LISTING / EXPORT TESTS
+    // ==========================
+
+    // five users, three of them created in the same instant so the id has to break the tie
+    private List<User> saveListingUsers() {
+        Instant base = Instant.parse("2026-01-01T00:00:00Z");
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setName("User " + i);
+            user.setEmail("user" + i + "@test.com");
+            user.setPassword("x");
+            user.setEnable(i != 4);
+            user.setProvider(i % 2 == 0 ? Provider.LOCAL : Provider.GOOGLE);
+            user.setCreatedAt(base.plusSeconds(Math.min(i, 2)));
+            user.setRoles(i == 3
+                    ? Set.of(roleRegistry.require(AppConstants.USER), roleRegistry.require(AppConstants.ADMIN))
+                    : Set.of(roleRegistry.require(AppConstants.USER)));
+            users.add(userRepository.save(user));
+        }
+        return users;
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldPageThroughUsersWithCursor() throws Exception {
+        saveListingUsers();
+
+        List<String> emails = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = get("/api/v1/user").param("limit", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("items").forEach(item -> emails.add(item.get("email").asText()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(5, emails.size());
+        assertEquals(List.of("user0@test.com", "user1@test.com"), emails.subList(0, 2));
+        assertEquals(5, emails.stream().distinct().count());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldFilterListingByProviderEnabledAndRole() throws Exception {
+        saveListingUsers();
+
+        mockMvc.perform(get("/api/v1/user").param("provider", "GOOGLE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/v1/user").param("enabled", "false"))
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].email").value("user4@test.com"));
+
+        mockMvc.perform(get("/api/v1/user").param("role", "ADMIN"))
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].email").value("user3@test.com"))
+                .andExpect(jsonPath("$.items[0].roles.length()").value(2));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldRejectInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/v1/user").param("cursor", "garbage"))
+                .andExpect(status().is4xxClientError())
+                .andExpect(jsonPath("$.message").value("Invalid cursor"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldExportUsersAsNdjson() throws Exception {
+        saveListingUsers();
+
+        String body = mockMvc.perform(get("/api/v1/user/export").param("provider", "LOCAL"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("user0@test.com", first.get("email").asText());
+        assertEquals("USER", first.get("roles").get(0).get("name").asText());
+        assertNull(first.get("password"));
+        assertEquals("user4@test.com", objectMapper.readTree(lines[2]).get("email").asText());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldForbidListingForNonAdmin() throws Exception {
+        mockMvc.perform(get("/api/v1/user"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/v1/user/export"))
+                .andExpect(status().isForbidden());
+    }
+
     // ==========================
     // 🔒 SECURITY TESTS
     // ==========================
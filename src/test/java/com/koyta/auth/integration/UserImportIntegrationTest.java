@@ -0,0 +1,194 @@
+package com.koyta.auth.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koyta.auth.entities.User;
+import com.koyta.auth.repositories.RefreshTokenRepository;
+import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.util.AppConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class UserImportIntegrationTest {
+
+    private static final String IMPORT_URL = "/api/v1/admin/users/import";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    // the in-memory database is shared with the other integration test contexts
+    @AfterEach
+    void cleanup() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private List<JsonNode> importUsers(MediaType type, String body, long from) throws Exception {
+        String response = mockMvc.perform(post(IMPORT_URL)
+                        .param("from", String.valueOf(from))
+                        .contentType(type)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldImportNdjsonAndReportEveryRow() throws Exception {
+        userRepository.saveAndFlush(User.builder().name("Existing").email("existing@test.com")
+                .password("x").enable(true).build());
+
+        String body = """
+                {"name": "Alice", "email": "alice@test.com", "password": "password123"}
+                {"name": "Bob", "email": "bob@test.com", "password": "short"}
+
+                not json
+                {"name": "Existing", "email": "existing@test.com", "password": "password123"}
+                {"name": "Alice Again", "email": "alice@test.com", "password": "password123"}
+                {"name": "Carol", "email": "carol@test.com", "password": "password123", "provider": "GITHUB"}
+                """;
+
+        List<JsonNode> lines = importUsers(MediaType.APPLICATION_NDJSON, body, 1);
+
+        assertEquals(7, lines.size());
+        assertRow(lines.get(0), 1, "CREATED");
+        assertNotNull(lines.get(0).get("id"));
+        assertRow(lines.get(1), 2, "INVALID");
+        assertTrue(lines.get(1).get("error").asText().contains("password"));
+        assertRow(lines.get(2), 4, "INVALID");
+        assertRow(lines.get(3), 5, "EXISTS");
+        assertRow(lines.get(4), 6, "EXISTS");
+        assertRow(lines.get(5), 7, "CREATED");
+
+        JsonNode summary = lines.get(6);
+        assertEquals(2, summary.get("created").asLong());
+        assertEquals(2, summary.get("exists").asLong());
+        assertEquals(2, summary.get("invalid").asLong());
+        assertEquals(0, summary.get("failed").asLong());
+        assertEquals(7, summary.get("lastLine").asLong());
+
+        User alice = userRepository.findByEmail("alice@test.com").orElseThrow();
+        assertEquals("Alice", alice.getName());
+        assertTrue(alice.isEnable());
+        assertTrue(passwordEncoder.matches("password123", alice.getPassword()));
+        assertEquals(AppConstants.USER, alice.getRoles().iterator().next().getName());
+        assertEquals("GITHUB", userRepository.findByEmail("carol@test.com").orElseThrow().getProvider().name());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldImportCsvWithQuotedFields() throws Exception {
+        String body = """
+                name,email,password,image
+                "Doe, Jane",jane@test.com,password123,
+                "The \"\"Boss\"\"",boss@test.com,password123,https://img.test/boss.png
+                Extra,extra@test.com,password123,,too-many
+                """;
+
+        List<JsonNode> lines = importUsers(MediaType.parseMediaType("text/csv"), body, 1);
+
+        assertRow(lines.get(0), 2, "CREATED");
+        assertRow(lines.get(1), 3, "CREATED");
+        assertRow(lines.get(2), 4, "INVALID");
+        assertEquals("Doe, Jane", userRepository.findByEmail("jane@test.com").orElseThrow().getName());
+        User boss = userRepository.findByEmail("boss@test.com").orElseThrow();
+        assertEquals("The \"Boss\"", boss.getName());
+        assertEquals("https://img.test/boss.png", boss.getImage());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldResumeFromLineAndTreatRerunsAsExisting() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 1; i <= 120; i++) {
+            body.append("{\"name\": \"User ").append(i).append("\", \"email\": \"user").append(i)
+                    .append("@test.com\", \"password\": \"password123\"}\n");
+        }
+
+        // an import that got through the first batches before the connection dropped
+        List<JsonNode> resumed = importUsers(MediaType.APPLICATION_NDJSON, body.toString(), 101);
+        assertEquals(21, resumed.size());
+        assertRow(resumed.get(0), 101, "CREATED");
+        assertEquals(20, userRepository.count());
+
+        List<JsonNode> full = importUsers(MediaType.APPLICATION_NDJSON, body.toString(), 1);
+        JsonNode summary = full.get(full.size() - 1);
+        assertEquals(100, summary.get("created").asLong());
+        assertEquals(20, summary.get("exists").asLong());
+        assertRow(full.get(100), 101, "EXISTS");
+        assertEquals(120, userRepository.count());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldTreatEmailsCaseInsensitively() throws Exception {
+        userRepository.saveAndFlush(User.builder().name("Existing").email("existing@test.com")
+                .password("x").enable(true).build());
+
+        String body = """
+                {"name": "Existing", "email": "Existing@Test.com", "password": "password123"}
+                {"name": "Dave", "email": "Dave@Test.com", "password": "password123"}
+                {"name": "Dave Again", "email": "dave@test.COM", "password": "password123"}
+                """;
+
+        List<JsonNode> lines = importUsers(MediaType.APPLICATION_NDJSON, body, 1);
+
+        assertRow(lines.get(0), 1, "EXISTS");
+        assertRow(lines.get(1), 2, "CREATED");
+        assertRow(lines.get(2), 3, "EXISTS");
+        assertEquals("dave@test.com", lines.get(1).get("email").asText());
+        assertEquals(2, userRepository.count());
+        assertEquals("Dave", userRepository.findByEmail("dave@test.com").orElseThrow().getName());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldRejectImportForNonAdmin() throws Exception {
+        mockMvc.perform(post(IMPORT_URL)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\": \"Alice\", \"email\": \"alice@test.com\", \"password\": \"password123\"}"))
+                .andExpect(status().isForbidden());
+
+        assertFalse(userRepository.existsByEmail("alice@test.com"));
+    }
+
+    private static void assertRow(JsonNode row, long line, String status) {
+        assertEquals(line, row.get("line").asLong(), row.toString());
+        assertEquals(status, row.get("status").asText(), row.toString());
+    }
+}
@@ -0,0 +1,99 @@
+package com.koyta.auth.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koyta.auth.config.DatabaseAccessLimiter;
+import com.koyta.auth.dtos.RegisterUserRequest;
+import com.koyta.auth.repositories.RefreshTokenRepository;
+import com.koyta.auth.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"spring.threads.virtual.enabled=true", "app.virtual-threads.db-permits=4"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VirtualThreadIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DatabaseAccessLimiter limiter;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    // the in-memory database is shared with the other integration test contexts
+    @AfterEach
+    void cleanup() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRunScheduledJobsOnVirtualThreadsAndLimitTheDataSource() {
+        assertInstanceOf(SimpleAsyncTaskScheduler.class, taskScheduler);
+        assertInstanceOf(DelegatingDataSource.class, dataSource);
+        assertEquals(4, limiter.available());
+    }
+
+    @Test
+    void shouldServeConcurrentLoginsWithinTheDatabasePermits() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new RegisterUserRequest("Virtual", "virtual@test.com", "password123", null))))
+                .andExpect(status().isCreated());
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> logins = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                logins.add(clients.submit(() -> mockMvc.perform(post("/api/v1/auth/login")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("""
+                                        {"email": "virtual@test.com", "password": "password123"}
+                                        """))
+                        .andReturn().getResponse().getStatus()));
+            }
+            for (Future<Integer> login : logins) {
+                int status = login.get();
+                // 503 is the password hashing queue shedding load, not a failure
+                assertTrue(status == 201 || status == 503, "status " + status);
+            }
+        }
+
+        assertEquals(4, limiter.available());
+        assertEquals(0, limiter.timeouts());
+    }
+}
@@ -0,0 +1,107 @@
+package com.koyta.auth.mappers;
+
+import com.koyta.auth.dtos.AdminResponse;
+import com.koyta.auth.dtos.RoleDto;
+import com.koyta.auth.dtos.UserDto;
+import com.koyta.auth.entities.Provider;
+import com.koyta.auth.entities.Role;
+import com.koyta.auth.entities.User;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The generated mapper must produce exactly what ModelMapper did, field by field, so swapping them changes no API
+ * response.
+ */
+class UserMapperTest {
+
+    private final UserMapper mapper = new UserMapperImpl();
+
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    private static User fullUser() {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setVersion(3L);
+        user.setName("Alice");
+        user.setEmail("alice@test.com");
+        user.setPassword("$2a$10$hash");
+        user.setImage("https://img.test/alice.png");
+        user.setEnable(true);
+        user.setProvider(Provider.GITHUB);
+        user.setProviderId("gh-42");
+        user.setCreatedAt(Instant.parse("2026-01-01T00:00:00Z"));
+        user.setRoles(new HashSet<>(Set.of(new Role(UUID.randomUUID(), "USER"), new Role(UUID.randomUUID(), "ADMIN"))));
+        return user;
+    }
+
+    private static User sparseUser() {
+        User user = new User();
+        user.setEmail("sparse@test.com");
+        user.setProvider(null);
+        user.setRoles(null);
+        return user;
+    }
+
+    @Test
+    void shouldMapUserToUserDtoLikeModelMapper() {
+        for (User user : new User[]{fullUser(), sparseUser(), new User()}) {
+            UserDto expected = modelMapper.map(user, UserDto.class);
+            UserDto actual = mapper.toUserDto(user);
+
+            assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldMapUserToAdminResponseLikeModelMapper() {
+        for (User user : new User[]{fullUser(), sparseUser(), new User()}) {
+            AdminResponse expected = modelMapper.map(user, AdminResponse.class);
+            AdminResponse actual = mapper.toAdminResponse(user);
+
+            assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldMapRoleToRoleDtoLikeModelMapper() {
+        Role role = new Role(UUID.randomUUID(), "USER");
+
+        assertThat(mapper.toRoleDto(role)).usingRecursiveComparison()
+                .isEqualTo(modelMapper.map(role, RoleDto.class));
+    }
+
+    @Test
+    void shouldCopyEveryUserDtoField() {
+        User user = fullUser();
+
+        UserDto dto = mapper.toUserDto(user);
+
+        assertEquals(user.getId(), dto.getId());
+        assertEquals(user.getName(), dto.getName());
+        assertEquals(user.getEmail(), dto.getEmail());
+        assertEquals(user.getPassword(), dto.getPassword());
+        assertEquals(user.getImage(), dto.getImage());
+        assertEquals(user.isEnable(), dto.isEnable());
+        assertEquals(user.getProvider(), dto.getProvider());
+        assertEquals(Set.of("USER", "ADMIN"), Set.copyOf(dto.getRoles().stream().map(RoleDto::getName).toList()));
+        // a new set, not a view of the entity's
+        user.getRoles().clear();
+        assertEquals(2, dto.getRoles().size());
+    }
+
+    @Test
+    void shouldMapNullToNull() {
+        assertNull(mapper.toUserDto(null));
+        assertNull(mapper.toAdminResponse(null));
+        assertNull(mapper.toRoleDto(null));
+    }
+}
@@ -0,0 +1,95 @@
+package com.koyta.auth.repositories;
+
+import com.koyta.auth.entities.User;
+import com.koyta.auth.util.IdGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRefreshTokenStoreTest extends RefreshTokenStoreContractTest {
+
+    private InMemoryRefreshTokenStore memoryStore;
+
+    @Override
+    protected RefreshTokenStore createStore() {
+        memoryStore = new InMemoryRefreshTokenStore(3);
+        return memoryStore;
+    }
+
+    @Override
+    protected User createUser(String email) {
+        User user = new User();
+        user.setId(IdGenerator.timeOrdered().next());
+        user.setEmail(email);
+        return user;
+    }
+
+    @Test
+    void shouldAssignIdOnSave() {
+        token("jti-1", alice, "jti-1", Duration.ofDays(1));
+
+        assertNotNull(store.findByJti("jti-1").orElseThrow().getId());
+    }
+
+    @Test
+    void shouldEvictExpiredTokensOnWrite() {
+        token("expired", alice, "expired", Duration.ofMillis(-1));
+        token("live", alice, "live", Duration.ofDays(1));
+
+        assertTrue(store.findByJti("expired").isEmpty());
+        assertEquals(1, memoryStore.size());
+        assertEquals(1, memoryStore.evictions());
+    }
+
+    @Test
+    void shouldEvictTokensClosestToExpiryWhenFull() {
+        token("soon", alice, "soon", Duration.ofHours(1));
+        token("later", alice, "later", Duration.ofDays(1));
+        token("latest", bob, "latest", Duration.ofDays(2));
+        token("new", bob, "new", Duration.ofDays(1));
+
+        assertEquals(3, memoryStore.size());
+        assertTrue(store.findByJti("soon").isEmpty());
+        assertTrue(store.findByJti("later").isPresent());
+
+        // the evicted token is gone from the user index too
+        assertEquals(1, store.deleteAllForUser(alice.getId()));
+    }
+
+    @Test
+    void shouldEvictRevokedTokensBeforeLiveOnesWhenFull() {
+        token("soon", alice, "soon", Duration.ofHours(1));
+        token("rotated", alice, "rotated", Duration.ofDays(2));
+        store.revokeForRotation("rotated", alice.getEmail(), "next", Instant.now());
+        token("next", alice, "rotated", Duration.ofDays(2));
+        token("new", bob, "new", Duration.ofDays(1));
+
+        assertEquals(3, memoryStore.size());
+        assertTrue(store.findByJti("rotated").isEmpty());
+        assertTrue(store.findByJti("soon").isPresent());
+        assertTrue(store.findByJti("next").isPresent());
+    }
+
+    @Test
+    void shouldKeepOnlyUserReference() {
+        token("jti-1", alice, "jti-1", Duration.ofDays(1));
+
+        User user = store.findByJti("jti-1").orElseThrow().getUser();
+
+        assertNotSame(alice, user);
+        assertEquals(alice.getId(), user.getId());
+        assertEquals(alice.getEmail(), user.getEmail());
+    }
+
+    @Test
+    void shouldNotLeakRotationStateIntoReturnedCopies() {
+        token("jti-1", alice, "jti-1", Duration.ofDays(1));
+
+        store.findByJti("jti-1").orElseThrow().setRevoked(true);
+
+        assertTrue(store.revokeForRotation("jti-1", alice.getEmail(), "jti-2", Instant.now()));
+    }
+}
@@ -0,0 +1,41 @@
+package com.koyta.auth.repositories;
+
+import com.koyta.auth.entities.User;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class JpaRefreshTokenStoreTest extends RefreshTokenStoreContractTest {
+
+    @Autowired
+    private JpaRefreshTokenStore jpaStore;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // the in-memory database is shared with the other integration test contexts
+    @AfterEach
+    void cleanup() {
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Override
+    protected RefreshTokenStore createStore() {
+        return jpaStore;
+    }
+
+    @Override
+    protected User createUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setEnable(true);
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,152 @@
+package com.koyta.auth.repositories;
+
+import com.koyta.auth.entities.RefreshToken;
+import com.koyta.auth.entities.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every {@link RefreshTokenStore} engine must share. Subclasses supply the store and persisted users.
+ */
+abstract class RefreshTokenStoreContractTest {
+
+    protected RefreshTokenStore store;
+
+    protected User alice;
+
+    protected User bob;
+
+    protected abstract RefreshTokenStore createStore();
+
+    protected abstract User createUser(String email);
+
+    @BeforeEach
+    void setupStore() {
+        store = createStore();
+        alice = createUser("alice@store.test");
+        bob = createUser("bob@store.test");
+    }
+
+    protected RefreshToken token(String jti, User user, String familyId, Duration expiresIn) {
+        Instant now = Instant.now();
+        RefreshToken token = RefreshToken.builder()
+                .jti(jti)
+                .user(user)
+                .familyId(familyId)
+                .createdAt(now)
+                .expiresAt(now.plus(expiresIn))
+                .revoked(false)
+                .build();
+        store.save(token);
+        return token;
+    }
+
+    @Test
+    void shouldFindSavedToken() {
+        token("jti-1", alice, "jti-1", Duration.ofDays(1));
+
+        RefreshToken found = store.findByJti("jti-1").orElseThrow();
+
+        assertEquals("jti-1", found.getJti());
+        assertEquals(alice.getId(), found.getUser().getId());
+        assertEquals("jti-1", found.getFamilyId());
+        assertFalse(found.isRevoked());
+        assertTrue(store.findByJti("missing").isEmpty());
+    }
+
+    @Test
+    void shouldRotateLiveTokenOnce() {
+        token("jti-1", alice, "jti-1", Duration.ofDays(1));
+
+        assertTrue(store.revokeForRotation("jti-1", alice.getEmail(), "jti-2", Instant.now()));
+        assertFalse(store.revokeForRotation("jti-1", alice.getEmail(), "jti-3", Instant.now()));
+
+        RefreshToken rotated = store.findByJti("jti-1").orElseThrow();
+        assertTrue(rotated.isRevoked());
+        assertEquals("jti-2", rotated.getReplacedByToken());
+        assertNotNull(rotated.getRevokedAt());
+    }
+
+    @Test
+    void shouldNotRotateExpiredForeignOrUnknownToken() {
+        token("expired", alice, "expired", Duration.ofSeconds(-1));
+        token("alice", alice, "alice", Duration.ofDays(1));
+
+        assertFalse(store.revokeForRotation("expired", alice.getEmail(), "x", Instant.now()));
+        assertFalse(store.revokeForRotation("alice", bob.getEmail(), "x", Instant.now()));
+        assertFalse(store.revokeForRotation("unknown", alice.getEmail(), "x", Instant.now()));
+
+        assertFalse(store.findByJti("alice").orElseThrow().isRevoked());
+    }
+
+    @Test
+    void shouldLetOneOfConcurrentRotationsWin() throws Exception {
+        token("contended", alice, "contended", Duration.ofDays(1));
+
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String replacedBy = "next-" + i;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return store.revokeForRotation("contended", alice.getEmail(), replacedBy, Instant.now());
+                }));
+            }
+            start.countDown();
+
+            int winners = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    winners++;
+                }
+            }
+            assertEquals(1, winners);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRevokeWholeFamily() {
+        token("f-1", alice, "family", Duration.ofDays(1));
+        token("f-2", alice, "family", Duration.ofDays(1));
+        token("other", alice, "other", Duration.ofDays(1));
+        store.revokeForRotation("f-1", alice.getEmail(), "f-2", Instant.now());
+
+        assertEquals(1, store.revokeFamily("family")); // f-1 was already revoked
+        assertEquals(0, store.revokeFamily("unknown"));
+
+        assertTrue(store.findByJti("f-2").orElseThrow().isRevoked());
+        assertEquals("f-2", store.findByJti("f-1").orElseThrow().getReplacedByToken());
+        assertFalse(store.findByJti("other").orElseThrow().isRevoked());
+    }
+
+    @Test
+    void shouldDeleteOnlyTheUsersTokens() {
+        token("a-1", alice, "a-1", Duration.ofDays(1));
+        token("a-2", alice, "a-1", Duration.ofDays(1));
+        token("b-1", bob, "b-1", Duration.ofDays(1));
+
+        assertEquals(2, store.deleteAllForUser(alice.getId()));
+
+        assertTrue(store.findByJti("a-1").isEmpty());
+        assertTrue(store.findByJti("a-2").isEmpty());
+        assertTrue(store.findByJti("b-1").isPresent());
+        assertEquals(0, store.deleteAllForUser(alice.getId()));
+    }
+}
@@ -0,0 +1,30 @@
+package com.koyta.auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BCryptCostCalibratorTest {
+
+    @Test
+    void shouldAddOneCostPerDoubling() {
+        // probe cost 8 took 15 ms: 16x that is about 250 ms, four doublings
+        assertEquals(12, BCryptCostCalibrator.strengthFor(Duration.ofMillis(250), Duration.ofMillis(15), 4, 31));
+        assertEquals(8, BCryptCostCalibrator.strengthFor(Duration.ofMillis(15), Duration.ofMillis(15), 4, 31));
+    }
+
+    @Test
+    void shouldClampToBounds() {
+        assertEquals(10, BCryptCostCalibrator.strengthFor(Duration.ofMillis(1), Duration.ofMillis(15), 10, 16));
+        assertEquals(16, BCryptCostCalibrator.strengthFor(Duration.ofMinutes(10), Duration.ofMillis(1), 10, 16));
+    }
+
+    @Test
+    void shouldCalibrateWithinBounds() {
+        int strength = BCryptCostCalibrator.calibrate(Duration.ofMillis(50), 4, 12);
+
+        assertTrue(strength >= 4 && strength <= 12);
+    }
+}
@@ -14,6 +14,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -47,6 +49,10 @@ class CookieServiceTest {
         response = mock(HttpServletResponse.class);
     }
 
+    private VerifiedToken verifiedToken(String type) {
+        return new VerifiedToken("test@test.com", type, "jti", List.of(), null, Instant.now().plusSeconds(60), null);
+    }
+
     // 1. attach cookie with domain
     @Test
     void shouldAttachCookieWithDomain() {
@@ -151,7 +157,7 @@ class CookieServiceTest {
         when(request.getHeader(HttpHeaders.AUTHORIZATION))
                 .thenReturn("Bearer validToken");
 
-        when(jwtService.isRefreshToken("validToken")).thenReturn(true);
+        when(jwtService.verify("validToken")).thenReturn(verifiedToken(VerifiedToken.REFRESH));
 
         Optional<String> token =
                 cookieService.readRefreshTokenFromRequest(null, request);
@@ -170,7 +176,7 @@ class CookieServiceTest {
         when(request.getHeader(HttpHeaders.AUTHORIZATION))
                 .thenReturn("Bearer invalid");
 
-        when(jwtService.isRefreshToken("invalid"))
+        when(jwtService.verify("invalid"))
                 .thenThrow(new RuntimeException());
 
         Optional<String> token =
@@ -233,7 +239,7 @@ class CookieServiceTest {
         when(request.getHeader(HttpHeaders.AUTHORIZATION))
                 .thenReturn("Bearer invalidToken");
 
-        when(jwtService.isRefreshToken("invalidToken"))
+        when(jwtService.verify("invalidToken"))
                 .thenThrow(new JwtException("Invalid"));
 
         Optional<String> result =
@@ -353,7 +359,7 @@ class CookieServiceTest {
         when(request.getHeader(HttpHeaders.AUTHORIZATION))
                 .thenReturn("Bearer token");
 
-        when(jwtService.isRefreshToken("token")).thenReturn(false);
+        when(jwtService.verify("token")).thenReturn(verifiedToken(VerifiedToken.ACCESS));
 
         Optional<String> result =
                 service.readRefreshTokenFromRequest(null, request);
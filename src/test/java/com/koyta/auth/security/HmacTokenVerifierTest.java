@@ -0,0 +1,158 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.exceptions.JwtTokenExpiredException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HmacTokenVerifierTest {
+
+    private static final SecretKey KEY = Keys.hmacShaKeyFor(
+            "this-is-a-very-long-secret-key-at-least-64-characters-long-123456".getBytes(StandardCharsets.UTF_8));
+    private static final SecretKey OTHER_KEY = Keys.hmacShaKeyFor(
+            "another-very-long-secret-key-that-is-at-least-64-characters-long-00".getBytes(StandardCharsets.UTF_8));
+
+    private final HmacTokenVerifier verifier = new HmacTokenVerifier(KEY);
+
+    private static String token(SecretKey key, Instant expiresAt, Map<String, ?> claims) {
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject("user@test.com")
+                .issuer("issuer")
+                .issuedAt(new Date())
+                .expiration(Date.from(expiresAt))
+                .claims(claims)
+                .signWith(key)
+                .compact();
+    }
+
+    private static String accessToken() {
+        return token(KEY, Instant.now().plusSeconds(600), Map.of(
+                "id", UUID.randomUUID().toString(), "roles", List.of("USER", "ADMIN"), "typ", "access", "ver", 3));
+    }
+
+    private static String base64Url(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // "accepted", "expired" or "invalid", as seen by the jjwt path
+    private static String jjwtOutcome(String token) {
+        try {
+            Jwts.parser().verifyWith(KEY).build().parseSignedClaims(token);
+            return "accepted";
+        } catch (ExpiredJwtException e) {
+            return "expired";
+        } catch (JwtException | IllegalArgumentException e) {
+            return "invalid";
+        }
+    }
+
+    // same outcome from the fast path, or null when it defers to jjwt
+    private String fastOutcome(String token) {
+        try {
+            return verifier.verify(token) == null ? null : "accepted";
+        } catch (JwtTokenExpiredException e) {
+            return e.getMessage().equals("Token is Expired") ? "expired" : "invalid";
+        }
+    }
+
+    private List<String> corpus() {
+        String valid = accessToken();
+        String[] parts = valid.split("\\.");
+        char last = parts[2].charAt(parts[2].length() - 1);
+
+        List<String> tokens = new ArrayList<>();
+        tokens.add(valid);
+        tokens.add(token(KEY, Instant.now().plusSeconds(600), Map.of("typ", "refresh")));
+        tokens.add(token(KEY, Instant.now().minusSeconds(5), Map.of("typ", "access")));
+        tokens.add(token(OTHER_KEY, Instant.now().plusSeconds(600), Map.of("typ", "access")));
+        tokens.add(token(KEY, Instant.now().plusSeconds(600), Map.of("typ", "access", "ver", 1.5)));
+        tokens.add(token(KEY, Instant.now().plusSeconds(600), Map.of("nbf", Instant.now().plusSeconds(60).getEpochSecond())));
+        tokens.add(Jwts.builder().subject("hs256@test.com").expiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(KEY, Jwts.SIG.HS256).compact());
+        // tampered payload, tampered signature, non-canonical last signature char
+        tokens.add(parts[0] + "." + base64Url("{\"sub\":\"admin@test.com\",\"typ\":\"access\"}") + "." + parts[2]);
+        tokens.add(parts[0] + "." + parts[1] + "." + parts[2].substring(0, 10) + "A" + parts[2].substring(11));
+        tokens.add(parts[0] + "." + parts[1] + "." + parts[2].substring(0, parts[2].length() - 1) + (last == 'A' ? 'B' : 'A'));
+        // alg none, other header, malformed
+        tokens.add(base64Url("{\"alg\":\"none\"}") + "." + parts[1] + ".");
+        tokens.add(base64Url("{\"alg\":\"HS512\",\"kid\":\"k1\"}") + "." + parts[1] + "." + parts[2]);
+        tokens.add(parts[0] + "." + parts[1]);
+        tokens.add(parts[0] + "." + parts[1] + "." + parts[2] + "." + parts[2]);
+        tokens.add(parts[0] + "." + parts[1] + "." + parts[2] + "=");
+        tokens.add("not-a-token");
+        return tokens;
+    }
+
+    @Test
+    void shouldReadClaimsOfValidToken() {
+        String token = accessToken();
+        Claims claims = Jwts.parser().verifyWith(KEY).build().parseSignedClaims(token).getPayload();
+
+        VerifiedToken verified = verifier.verify(token);
+
+        assertNotNull(verified);
+        assertEquals(claims.getSubject(), verified.subject());
+        assertEquals(claims.getId(), verified.jti());
+        assertEquals(claims.get("id"), verified.userId());
+        assertEquals(List.of("USER", "ADMIN"), verified.roles());
+        assertEquals(3L, verified.version());
+        assertEquals(claims.getExpiration().toInstant(), verified.expiresAt());
+        assertTrue(verified.isAccessToken());
+    }
+
+    @Test
+    void shouldAgreeWithJjwtOnEveryTokenItDecides() {
+        for (String token : corpus()) {
+            String fast = fastOutcome(token);
+            if (fast != null) {
+                assertEquals(jjwtOutcome(token), fast, token);
+            }
+        }
+    }
+
+    @Test
+    void shouldDecideTheTokensWeIssue() {
+        String expired = token(KEY, Instant.now().minusSeconds(5), Map.of("typ", "access"));
+        String wrongKey = token(OTHER_KEY, Instant.now().plusSeconds(600), Map.of("typ", "access"));
+
+        assertEquals("accepted", fastOutcome(accessToken()));
+        assertEquals("expired", fastOutcome(expired));
+        assertEquals("invalid", fastOutcome(wrongKey));
+    }
+
+    @Test
+    void shouldDeferUnusualTokensToJjwt() {
+        String[] parts = accessToken().split("\\.");
+
+        assertNull(verifier.verify(base64Url("{\"alg\":\"none\"}") + "." + parts[1] + "."));
+        assertNull(verifier.verify(parts[0] + "." + parts[1] + "." + parts[2] + "="));
+        assertNull(verifier.verify(token(KEY, Instant.now().plusSeconds(600), Map.of("ver", "3"))));
+        assertNull(verifier.verify("not-a-token"));
+    }
+
+    @Test
+    void shouldRejectNonCanonicalBase64() {
+        byte[] out = new byte[8];
+
+        assertEquals(2, HmacTokenVerifier.decode("AQI", 0, 3, out));
+        assertEquals(-1, HmacTokenVerifier.decode("AQJ", 0, 3, out));
+        assertEquals(-1, HmacTokenVerifier.decode("A+I", 0, 3, out));
+        assertEquals(-1, HmacTokenVerifier.decode("AQIDB", 0, 5, out));
+    }
+}
@@ -9,14 +9,18 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,6 +33,13 @@ class JwtAuthenticationFilterTest {
     @Mock
     private UserDetailsServiceImpl userDetailsService;
 
+    @Mock
+    private UserVersionWatermark userVersionWatermark;
+
+    @Spy
+    private RoleRegistry roleRegistry = RoleRegistryTest.registry(
+            RoleRegistryTest.role("USER", 0), RoleRegistryTest.role("ADMIN", 1));
+
     @InjectMocks
     private JwtAuthenticationFilter filter;
 
@@ -44,6 +55,11 @@ class JwtAuthenticationFilterTest {
         SecurityContextHolder.clearContext();
     }
 
+    private VerifiedToken accessToken(String subject) {
+        return new VerifiedToken(subject, VerifiedToken.ACCESS, "jti", List.of("USER"), null,
+                Instant.now().plusSeconds(60), null);
+    }
+
     // ================= VALIDATION =================
 
     @Test
@@ -63,7 +79,7 @@ class JwtAuthenticationFilterTest {
     void shouldSkipWhenUsernameNull() throws Exception {
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString())).thenReturn(null);
+        when(jwtService.verify(anyString())).thenReturn(accessToken(null));
 
         filter.doFilterInternal(request, response, chain);
 
@@ -76,15 +92,13 @@ class JwtAuthenticationFilterTest {
         request.addHeader("Authorization", "Bearer token");
 
         // 🔥 empty username
-        when(jwtService.extractUserName(anyString())).thenReturn("");
-
-        when(jwtService.isAccessToken(anyString())).thenReturn(true);
+        when(jwtService.verify(anyString())).thenReturn(accessToken(""));
 
         UserDetails userDetails = mock(UserDetails.class);
         when(userDetailsService.loadUserByUsername(""))
                 .thenReturn(userDetails);
 
-        when(jwtService.validateToken(anyString(), eq(userDetails)))
+        when(jwtService.validateToken(any(VerifiedToken.class), eq(userDetails)))
                 .thenReturn(false); // avoid auth set
 
         filter.doFilterInternal(request, response, chain);
@@ -99,15 +113,14 @@ class JwtAuthenticationFilterTest {
 
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString())).thenReturn("user");
-        when(jwtService.isAccessToken(anyString())).thenReturn(true);
+        when(jwtService.verify(anyString())).thenReturn(accessToken("user"));
 
         UserDetails userDetails = mock(UserDetails.class);
 
         when(userDetailsService.loadUserByUsername("user"))
                 .thenReturn(userDetails);
 
-        when(jwtService.validateToken(anyString(), eq(userDetails)))
+        when(jwtService.validateToken(any(VerifiedToken.class), eq(userDetails)))
                 .thenReturn(true);
 
         when(userDetails.isEnabled()).thenReturn(true);
@@ -123,15 +136,14 @@ class JwtAuthenticationFilterTest {
 
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString())).thenReturn("user");
-        when(jwtService.isAccessToken(anyString())).thenReturn(true);
+        when(jwtService.verify(anyString())).thenReturn(accessToken("user"));
 
         UserDetails userDetails = mock(UserDetails.class);
 
         when(userDetailsService.loadUserByUsername("user"))
                 .thenReturn(userDetails);
 
-        when(jwtService.validateToken(anyString(), eq(userDetails)))
+        when(jwtService.validateToken(any(VerifiedToken.class), eq(userDetails)))
                 .thenReturn(true);
 
         when(userDetails.isEnabled()).thenReturn(true);
@@ -150,15 +162,14 @@ class JwtAuthenticationFilterTest {
 
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString())).thenReturn("user");
-        when(jwtService.isAccessToken(anyString())).thenReturn(true);
+        when(jwtService.verify(anyString())).thenReturn(accessToken("user"));
 
         UserDetails userDetails = mock(UserDetails.class);
 
         when(userDetailsService.loadUserByUsername("user"))
                 .thenReturn(userDetails);
 
-        when(jwtService.validateToken(anyString(), eq(userDetails)))
+        when(jwtService.validateToken(any(VerifiedToken.class), eq(userDetails)))
                 .thenReturn(true);
 
         when(userDetails.isEnabled()).thenReturn(true);
@@ -177,8 +188,8 @@ class JwtAuthenticationFilterTest {
 
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString())).thenReturn("user");
-        when(jwtService.isAccessToken(anyString())).thenReturn(false);
+        when(jwtService.verify(anyString())).thenReturn(
+                new VerifiedToken("user", VerifiedToken.REFRESH, "jti", List.of(), null, Instant.now().plusSeconds(60), null));
 
         filter.doFilterInternal(request, response, chain);
 
@@ -205,7 +216,7 @@ class JwtAuthenticationFilterTest {
 
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString())).thenReturn("user");
+        when(jwtService.verify(anyString())).thenReturn(accessToken("user"));
 
         filter.doFilterInternal(request, response, chain);
 
@@ -217,14 +228,13 @@ class JwtAuthenticationFilterTest {
 
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString())).thenReturn("user");
-        when(jwtService.isAccessToken(anyString())).thenReturn(true);
+        when(jwtService.verify(anyString())).thenReturn(accessToken("user"));
 
         UserDetails userDetails = mock(UserDetails.class);
         when(userDetailsService.loadUserByUsername("user"))
                 .thenReturn(userDetails);
 
-        when(jwtService.validateToken(anyString(), eq(userDetails)))
+        when(jwtService.validateToken(any(VerifiedToken.class), eq(userDetails)))
                 .thenReturn(false);
 
         filter.doFilterInternal(request, response, chain);
@@ -237,14 +247,13 @@ class JwtAuthenticationFilterTest {
 
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString())).thenReturn("user");
-        when(jwtService.isAccessToken(anyString())).thenReturn(true);
+        when(jwtService.verify(anyString())).thenReturn(accessToken("user"));
 
         UserDetails userDetails = mock(UserDetails.class);
         when(userDetailsService.loadUserByUsername("user"))
                 .thenReturn(userDetails);
 
-        when(jwtService.validateToken(anyString(), eq(userDetails)))
+        when(jwtService.validateToken(any(VerifiedToken.class), eq(userDetails)))
                 .thenReturn(true);
 
         when(userDetails.isEnabled()).thenReturn(false);
@@ -261,7 +270,7 @@ class JwtAuthenticationFilterTest {
 
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString()))
+        when(jwtService.verify(anyString()))
                 .thenThrow(new JwtException("Invalid"));
 
         filter.doFilterInternal(request, response, chain);
@@ -274,8 +283,7 @@ class JwtAuthenticationFilterTest {
 
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString())).thenReturn("user");
-        when(jwtService.isAccessToken(anyString())).thenReturn(true);
+        when(jwtService.verify(anyString())).thenReturn(accessToken("user"));
 
         when(userDetailsService.loadUserByUsername("user"))
                 .thenThrow(new RuntimeException("User not found"));
@@ -290,7 +298,7 @@ class JwtAuthenticationFilterTest {
 
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString()))
+        when(jwtService.verify(anyString()))
                 .thenThrow(new JwtException("Expired"));
 
         filter.doFilterInternal(request, response, chain);
@@ -303,7 +311,7 @@ class JwtAuthenticationFilterTest {
 
         request.addHeader("Authorization", "Bearer token");
 
-        when(jwtService.extractUserName(anyString()))
+        when(jwtService.verify(anyString()))
                 .thenThrow(new JwtTokenExpiredException("Token expired"));
 
         filter.doFilterInternal(request, response, chain);
@@ -311,6 +319,70 @@ class JwtAuthenticationFilterTest {
         assertEquals(401, response.getStatus());
     }
 
+    @Test
+    void shouldVerifyTokenOnlyOncePerRequest() throws Exception {
+
+        request.addHeader("Authorization", "Bearer token");
+
+        when(jwtService.verify("token")).thenReturn(accessToken("user"));
+
+        UserDetails userDetails = mock(UserDetails.class);
+        when(userDetailsService.loadUserByUsername("user")).thenReturn(userDetails);
+        when(jwtService.validateToken(any(VerifiedToken.class), eq(userDetails))).thenReturn(true);
+        when(userDetails.isEnabled()).thenReturn(true);
+
+        filter.doFilterInternal(request, response, chain);
+
+        verify(jwtService, times(1)).verify("token");
+        verify(jwtService, never()).extractUserName(anyString());
+        verify(jwtService, never()).isAccessToken(anyString());
+    }
+
+    // ================= CLAIMS TRUSTED =================
+
+    @Test
+    void shouldBuildPrincipalFromClaimsWhenClaimsTrusted() throws Exception {
+
+        ReflectionTestUtils.setField(filter, "claimsTrusted", true);
+        request.addHeader("Authorization", "Bearer token");
+
+        VerifiedToken token = new VerifiedToken("user@test.com", VerifiedToken.ACCESS, "jti", List.of("ADMIN"),
+                UUID.randomUUID().toString(), Instant.now().plusSeconds(60), 3L);
+
+        when(jwtService.verify("token")).thenReturn(token);
+        when(userVersionWatermark.isCurrent(token)).thenReturn(true);
+        when(jwtService.validateToken(eq(token), any(CustomUserDetails.class))).thenReturn(true);
+
+        filter.doFilterInternal(request, response, chain);
+
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals("user@test.com", ((CustomUserDetails) authentication.getPrincipal()).getUsername());
+        assertTrue(authentication.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN")));
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void shouldLoadUserWhenClaimsTrustedButVersionStale() throws Exception {
+
+        ReflectionTestUtils.setField(filter, "claimsTrusted", true);
+        request.addHeader("Authorization", "Bearer token");
+
+        VerifiedToken token = accessToken("user");
+        when(jwtService.verify("token")).thenReturn(token);
+        when(userVersionWatermark.isCurrent(token)).thenReturn(false);
+
+        UserDetails userDetails = mock(UserDetails.class);
+        when(userDetailsService.loadUserByUsername("user")).thenReturn(userDetails);
+        when(jwtService.validateToken(token, userDetails)).thenReturn(true);
+        when(userDetails.isEnabled()).thenReturn(false);
+
+        filter.doFilterInternal(request, response, chain);
+
+        verify(userDetailsService).loadUserByUsername("user");
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
     // ================= FILTER SKIP =================
 
     @Test
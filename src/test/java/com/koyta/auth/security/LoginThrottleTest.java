@@ -0,0 +1,172 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.exceptions.LoginThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private LoginThrottle throttle(int maxPerIp, int maxFailuresPerEmail) {
+        return new LoginThrottle(new LoginThrottleProperties(true, Duration.ofMinutes(1), maxPerIp,
+                maxFailuresPerEmail, 1024, 4, List.of("10.1.0.0/16", "192.168.0.5")), clock::get);
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    void shouldThrottleIpPastAttemptLimit() {
+        LoginThrottle throttle = throttle(3, 100);
+
+        for (int i = 0; i < 3; i++) {
+            throttle.checkAttempt("10.0.0.1", "user" + i + "@test.com");
+        }
+
+        LoginThrottledException ex = assertThrows(LoginThrottledException.class,
+                () -> throttle.checkAttempt("10.0.0.1", "other@test.com"));
+        assertEquals(Duration.ofMinutes(1), ex.getRetryAfter());
+        assertDoesNotThrow(() -> throttle.checkAttempt("10.0.0.2", "other@test.com"));
+    }
+
+    @Test
+    void shouldThrottleEmailAfterFailuresOnly() {
+        LoginThrottle throttle = throttle(1000, 2);
+
+        throttle.checkAttempt("10.0.0.1", "victim@test.com");
+        throttle.checkAttempt("10.0.0.1", "victim@test.com"); // successes do not count
+
+        throttle.recordFailure("victim@test.com");
+        throttle.recordFailure(" Victim@Test.com ");
+
+        assertThrows(LoginThrottledException.class, () -> throttle.checkAttempt("10.9.9.9", "VICTIM@test.com"));
+        assertDoesNotThrow(() -> throttle.checkAttempt("10.9.9.9", "someone@test.com"));
+    }
+
+    @Test
+    void shouldForgetAttemptsAsTheWindowSlides() {
+        LoginThrottle throttle = throttle(4, 100);
+        for (int i = 0; i < 4; i++) {
+            throttle.checkAttempt("10.0.0.1", null);
+        }
+        assertThrows(LoginThrottledException.class, () -> throttle.checkAttempt("10.0.0.1", null));
+
+        // half a window later, half of the previous bucket still counts: 5 * 0.5 rounded up is 3, plus this one
+        advance(Duration.ofSeconds(90));
+        assertDoesNotThrow(() -> throttle.checkAttempt("10.0.0.1", null));
+
+        advance(Duration.ofMinutes(2));
+        for (int i = 0; i < 4; i++) {
+            throttle.checkAttempt("10.0.0.1", null);
+        }
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String... forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        for (String header : forwardedFor) {
+            request.addHeader("X-Forwarded-For", header);
+        }
+        return request;
+    }
+
+    @Test
+    void shouldCountForwardedClientsOfATrustedProxySeparately() {
+        LoginThrottle throttle = throttle(2, 100);
+
+        for (int i = 0; i < 2; i++) {
+            throttle.checkAttempt(throttle.clientIp(request("10.1.2.3", "203.0.113.7")), null);
+        }
+        assertThrows(LoginThrottledException.class,
+                () -> throttle.checkAttempt(throttle.clientIp(request("10.1.2.3", "203.0.113.7")), null));
+        // another client behind the same proxy has its own count
+        assertDoesNotThrow(
+                () -> throttle.checkAttempt(throttle.clientIp(request("10.1.2.3", "203.0.113.8")), null));
+    }
+
+    @Test
+    void shouldResolveClientIpOnlyThroughTrustedProxies() {
+        LoginThrottle throttle = throttle(100, 100);
+
+        // without a trusted proxy in front, the header is whatever the client wants it to be
+        assertEquals("198.51.100.1", throttle.clientIp(request("198.51.100.1", "203.0.113.7")));
+        // hops left of the first untrusted one were written by the client
+        assertEquals("203.0.113.7", throttle.clientIp(request("10.1.2.3", "1.1.1.1, 203.0.113.7, 192.168.0.5")));
+        assertEquals("203.0.113.7", throttle.clientIp(request("10.1.2.3", "1.1.1.1, 203.0.113.7", "10.1.9.9")));
+        assertEquals("10.1.2.3", throttle.clientIp(request("10.1.2.3")));
+        assertEquals("unknown", throttle.clientIp(request("10.1.2.3", "unknown")));
+    }
+
+    @Test
+    void shouldNotThrottleWhenDisabled() {
+        LoginThrottle throttle = new LoginThrottle(new LoginThrottleProperties(false, null, 1, 1, null, null, null),
+                clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            throttle.recordFailure("a@test.com");
+            throttle.checkAttempt("10.0.0.1", "a@test.com");
+        }
+    }
+
+    @Test
+    void shouldNotRejectBelowLimitUnderContention() throws Exception {
+        LoginThrottle throttle = throttle(1000, 100);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    int allowed = 0;
+                    for (int i = 0; i < 250; i++) {
+                        try {
+                            throttle.checkAttempt("10.0.0.1", null);
+                            allowed++;
+                        } catch (LoginThrottledException ignored) {
+                            // over the limit
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get(30, TimeUnit.SECONDS);
+            }
+            // no increment is lost, so the first 1000 always pass; racing rows may let a few more through
+            assertTrue(allowed >= 1000 && allowed < 2000);
+            assertThrows(LoginThrottledException.class, () -> throttle.checkAttempt("10.0.0.1", null));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldExportThrottledCounters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LoginThrottle throttle = throttle(1, 1);
+        throttle.bindTo(registry);
+
+        throttle.checkAttempt("10.0.0.1", null);
+        assertThrows(LoginThrottledException.class, () -> throttle.checkAttempt("10.0.0.1", null));
+        throttle.recordFailure("a@test.com");
+        assertThrows(LoginThrottledException.class, () -> throttle.checkAttempt("10.0.0.2", "a@test.com"));
+
+        assertEquals(1, registry.get("auth.login.throttled").tag("key", "ip").functionCounter().count());
+        assertEquals(1, registry.get("auth.login.throttled").tag("key", "email").functionCounter().count());
+    }
+}
@@ -1,9 +1,10 @@
 package com.koyta.auth.security;
 
 import com.koyta.auth.entities.User;
-import com.koyta.auth.repositories.RefreshTokenRepository;
+import com.koyta.auth.repositories.RefreshTokenStore;
 import com.koyta.auth.repositories.UserRepository;
 import com.koyta.auth.services.JwtService;
+import com.koyta.auth.util.IdGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -32,6 +33,9 @@ class OAuth2SuccessHandlerTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserCache userCache;
+
     @Mock
     private JwtService jwtService;
 
@@ -42,7 +46,7 @@ class OAuth2SuccessHandlerTest {
     private MockHttpServletResponse response;
 
     @Mock
-    private RefreshTokenRepository refreshTokenRepository;
+    private RefreshTokenStore refreshTokenStore;
 
     private OAuth2SuccessHandler handler;
 
@@ -54,10 +58,12 @@ class OAuth2SuccessHandlerTest {
 
         handler = new OAuth2SuccessHandler(
                 userRepository,
+                userCache,
                 jwtService,
                 cookieService,
-                refreshTokenRepository,
-                1209600L // 👈 manually pass
+                refreshTokenStore,
+                1209600L, // 👈 manually pass
+                IdGenerator.timeOrdered()
         );
 
         // 👇 VERY IMPORTANT (warna null pointer aayega)
@@ -110,7 +116,7 @@ class OAuth2SuccessHandlerTest {
 
         Authentication auth = new OAuth2AuthenticationToken(oAuth2User, List.of(), "google");
 
-        when(userRepository.findByEmail("test@test.com"))
+        when(userCache.findByEmail("test@test.com"))
                 .thenReturn(Optional.of(existing));
 
         when(jwtService.generateAccessToken(any())).thenReturn("access");
@@ -139,7 +145,7 @@ class OAuth2SuccessHandlerTest {
 
         Authentication auth = new OAuth2AuthenticationToken(oAuth2User, List.of(), "google");
 
-        when(userRepository.findByEmail("test@test.com"))
+        when(userCache.findByEmail("test@test.com"))
                 .thenReturn(Optional.of(existing));
 
         when(jwtService.generateAccessToken(any())).thenReturn("access");
@@ -193,7 +199,7 @@ class OAuth2SuccessHandlerTest {
 
         Authentication auth = new OAuth2AuthenticationToken(oAuth2User, List.of(), "github");
 
-        when(userRepository.findByEmail("user@github.com"))
+        when(userCache.findByEmail("user@github.com"))
                 .thenReturn(Optional.empty());
 
         when(jwtService.generateAccessToken(any())).thenReturn("access");
@@ -224,7 +230,7 @@ class OAuth2SuccessHandlerTest {
 
         Authentication auth = new OAuth2AuthenticationToken(oAuth2User, List.of(), "github");
 
-        when(userRepository.findByEmail("test@test.com"))
+        when(userCache.findByEmail("test@test.com"))
                 .thenReturn(Optional.of(existing));
 
         when(jwtService.generateAccessToken(any())).thenReturn("access");
@@ -292,7 +298,7 @@ class OAuth2SuccessHandlerTest {
 
         Authentication auth = new OAuth2AuthenticationToken(oAuth2User, List.of(), "google");
 
-        when(userRepository.findByEmail(any()))
+        when(userCache.findByEmail(any()))
                 .thenReturn(Optional.of(new User()));
 
         when(jwtService.generateAccessToken(any())).thenReturn("access");
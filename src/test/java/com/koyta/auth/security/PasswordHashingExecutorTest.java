@@ -0,0 +1,126 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.exceptions.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private PasswordHashingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    private PasswordHashingExecutor executor(int threads, int queueCapacity, Duration maxWait) {
+        executor = new PasswordHashingExecutor(
+                new PasswordHashingProperties(threads, queueCapacity, maxWait, Duration.ofSeconds(3),
+                        null, null, null, null, null));
+        return executor;
+    }
+
+    // occupies one pool thread until release is counted down
+    private CompletableFuture<Boolean> block(CountDownLatch started) {
+        return CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            started.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }));
+    }
+
+    @Test
+    void shouldRunTaskOnPoolThread() {
+        executor(1, 1, Duration.ofSeconds(5));
+
+        String thread = executor.execute(() -> Thread.currentThread().getName());
+
+        assertTrue(thread.startsWith("password-hash-"));
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        executor(1, 1, Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = block(started);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> "queued"));
+        while (executor.queueDepth() < 1) {
+            Thread.onSpinWait();
+        }
+
+        PasswordHashingRejectedException ex = assertThrows(PasswordHashingRejectedException.class,
+                () -> executor.execute(() -> "shed"));
+
+        assertEquals(Duration.ofSeconds(3), ex.getRetryAfter());
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1, executor.rejectedCount());
+    }
+
+    @Test
+    void shouldRejectAndDequeueWhenTaskDoesNotStartInTime() throws Exception {
+        executor(1, 4, Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        block(started);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(PasswordHashingRejectedException.class, () -> executor.execute(() -> "late"));
+
+        assertEquals(0, executor.queueDepth());
+        assertEquals(1, executor.rejectedCount());
+    }
+
+    @Test
+    void shouldPropagateTaskExceptions() {
+        executor(1, 1, Duration.ofSeconds(5));
+
+        assertThrows(IllegalArgumentException.class, () -> executor.execute(() -> {
+            throw new IllegalArgumentException("bad hash");
+        }));
+    }
+
+    @Test
+    void shouldEncodeAndMatchThroughPool() {
+        OffloadedPasswordEncoder encoder =
+                new OffloadedPasswordEncoder(new BCryptPasswordEncoder(4), executor(2, 2, Duration.ofSeconds(5)));
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("other", hash));
+    }
+
+    @Test
+    void shouldExportMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        executor(1, 1, Duration.ofSeconds(5)).bindTo(registry);
+
+        executor.execute(() -> "x");
+
+        assertEquals(1, registry.get("auth.password_hash.duration").functionTimer().count());
+        assertEquals(1, registry.get("auth.password_hash.wait").functionTimer().count());
+        assertEquals(0, registry.get("auth.password_hash.queue.depth").gauge().value());
+        assertEquals(0, registry.get("auth.password_hash.rejected").tag("reason", "queue_full")
+                .functionCounter().count());
+    }
+}
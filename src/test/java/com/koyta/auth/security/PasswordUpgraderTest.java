@@ -0,0 +1,106 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.entities.User;
+import com.koyta.auth.exceptions.PasswordHashingRejectedException;
+import com.koyta.auth.repositories.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PasswordUpgraderTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final UserCache userCache = mock(UserCache.class);
+
+    private PasswordHashingExecutor executor;
+
+    private OffloadedPasswordEncoder encoder;
+
+    private PasswordUpgrader upgrader;
+
+    @BeforeEach
+    void setup() {
+        executor = new PasswordHashingExecutor(new PasswordHashingProperties(1, 4, Duration.ofSeconds(5),
+                Duration.ofSeconds(1), null, null, null, null, null));
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(5);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        encoder = new OffloadedPasswordEncoder(delegating, executor);
+        upgrader = new PasswordUpgrader(encoder, userRepository, userCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    private User user(String hash) {
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setPassword(hash);
+        return user;
+    }
+
+    @Test
+    void shouldRehashLegacyHashWithPrefixAndTargetCost() {
+        User user = user(new BCryptPasswordEncoder(4).encode("secret"));
+        when(userRepository.updatePasswordIfUnchanged(eq(user.getId()), eq(user.getPassword()), anyString()))
+                .thenReturn(1);
+
+        upgrader.upgradeIfNeeded(user, "secret");
+
+        ArgumentCaptor<String> newHash = ArgumentCaptor.forClass(String.class);
+        verify(userRepository, timeout(5000)).updatePasswordIfUnchanged(eq(user.getId()), eq(user.getPassword()),
+                newHash.capture());
+        assertTrue(newHash.getValue().startsWith("{bcrypt}$2a$05$"));
+        assertTrue(encoder.matches("secret", newHash.getValue()));
+        assertFalse(encoder.upgradeEncoding(newHash.getValue()));
+        verify(userCache, timeout(5000)).invalidateUpTo(user.getId(), user.getVersion());
+    }
+
+    @Test
+    void shouldRehashPrefixedHashBelowTargetCost() {
+        User user = user("{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret"));
+
+        upgrader.upgradeIfNeeded(user, "secret");
+
+        verify(userRepository, timeout(5000)).updatePasswordIfUnchanged(eq(user.getId()), eq(user.getPassword()),
+                anyString());
+    }
+
+    @Test
+    void shouldLeaveCurrentHashAlone() {
+        User user = user(encoder.encode("secret"));
+
+        upgrader.upgradeIfNeeded(user, "secret");
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void shouldSkipWhenPoolIsFull() {
+        PasswordHashingExecutor busy = mock(PasswordHashingExecutor.class);
+        when(busy.submit(any())).thenThrow(
+                new PasswordHashingRejectedException("full", Duration.ofSeconds(1)));
+        PasswordUpgrader skipping = new PasswordUpgrader(
+                new OffloadedPasswordEncoder(new BCryptPasswordEncoder(5), busy), userRepository, userCache);
+
+        assertDoesNotThrow(() -> skipping.upgradeIfNeeded(user(new BCryptPasswordEncoder(4).encode("x")), "x"));
+
+        verifyNoInteractions(userRepository);
+    }
+}
@@ -0,0 +1,96 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.repositories.RefreshTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenPurgeJobTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenPurgeJob job(int batchSize, int maxBatches) {
+        return new RefreshTokenPurgeJob(refreshTokenRepository, new RefreshTokenPurgeProperties(
+                true, Duration.ofMinutes(10), Duration.ofDays(7), batchSize, maxBatches, Duration.ZERO));
+    }
+
+    private static List<UUID> ids(int count) {
+        return IntStream.range(0, count).mapToObj(i -> UUID.randomUUID()).toList();
+    }
+
+    @Test
+    void shouldContinueFromLastIdOfPreviousBatch() {
+        List<UUID> first = ids(2);
+        List<UUID> second = ids(1);
+        when(refreshTokenRepository.findPurgeableIds(eq(new UUID(0, 0)), any(), any())).thenReturn(first);
+        when(refreshTokenRepository.findPurgeableIds(eq(first.get(1)), any(), any())).thenReturn(second);
+        when(refreshTokenRepository.deleteByIdIn(any())).thenAnswer(inv -> ((List<?>) inv.getArgument(0)).size());
+
+        RefreshTokenPurgeJob job = job(2, 10);
+
+        assertEquals(3, job.purge());
+        assertEquals(3, job.purgedRows());
+        assertEquals(0, job.lagSeconds());
+        verify(refreshTokenRepository).deleteByIdIn(first);
+        verify(refreshTokenRepository).deleteByIdIn(second);
+    }
+
+    @Test
+    void shouldStopAtMaxBatchesPerRun() {
+        when(refreshTokenRepository.findPurgeableIds(any(), any(), any())).thenAnswer(inv -> ids(2));
+        when(refreshTokenRepository.deleteByIdIn(any())).thenReturn(2);
+
+        assertEquals(6, job(2, 3).purge());
+        verify(refreshTokenRepository, times(3)).deleteByIdIn(any());
+    }
+
+    @Test
+    void shouldNotDeleteWhenNothingIsDue() {
+        when(refreshTokenRepository.findPurgeableIds(any(), any(), any())).thenReturn(List.of());
+
+        RefreshTokenPurgeJob job = job(100, 10);
+
+        assertEquals(0, job.purge());
+        assertTrue(job.lastRunEpochSeconds() > 0);
+        verify(refreshTokenRepository, never()).deleteByIdIn(any());
+    }
+
+    @Test
+    void shouldSkipScheduledRunWhenDisabled() {
+        RefreshTokenPurgeJob job = new RefreshTokenPurgeJob(refreshTokenRepository,
+                new RefreshTokenPurgeProperties(false, null, null, null, null, null));
+
+        job.scheduledPurge();
+
+        verifyNoInteractions(refreshTokenRepository);
+    }
+
+    @Test
+    void shouldExposeMetrics() {
+        when(refreshTokenRepository.findPurgeableIds(any(), any(), any())).thenReturn(ids(1));
+        when(refreshTokenRepository.deleteByIdIn(any())).thenReturn(1);
+
+        RefreshTokenPurgeJob job = job(10, 10);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        job.bindTo(registry);
+        job.purge();
+
+        assertEquals(1.0, registry.get("auth.refresh_token.purge.rows").functionCounter().count());
+        assertTrue(registry.get("auth.refresh_token.purge.last_run").gauge().value() > 0);
+        assertEquals(0.0, registry.get("auth.refresh_token.purge.lag").gauge().value());
+    }
+}
@@ -0,0 +1,135 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.entities.Role;
+import com.koyta.auth.entities.User;
+import com.koyta.auth.repositories.RoleRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RoleRegistryTest {
+
+    /**
+     * A loaded registry over {@code roles}, which should already have their bits.
+     */
+    static RoleRegistry registry(Role... roles) {
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findByName(anyString())).thenAnswer(invocation -> Arrays.stream(roles)
+                .filter(role -> role.getName().equals(invocation.getArgument(0)))
+                .findFirst());
+        when(roleRepository.findAll()).thenReturn(List.of(roles));
+        RoleRegistry registry = new RoleRegistry(roleRepository);
+        registry.afterPropertiesSet();
+        return registry;
+    }
+
+    static Role role(String name, int bit) {
+        return new Role(UUID.randomUUID(), name, bit);
+    }
+
+    @Test
+    void shouldGiveBuiltInRolesTheLowestBitsThenOthersByName() {
+        List<Role> table = new ArrayList<>(List.of(
+                new Role(UUID.randomUUID(), "SUPPORT"),
+                new Role(UUID.randomUUID(), "ADMIN"),
+                new Role(UUID.randomUUID(), "AUDITOR"),
+                role("USER", 0)));
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findByName(anyString())).thenAnswer(invocation -> table.stream()
+                .filter(role -> role.getName().equals(invocation.getArgument(0)))
+                .findFirst());
+        when(roleRepository.findAll()).thenReturn(table);
+
+        RoleRegistry registry = new RoleRegistry(roleRepository);
+        registry.afterPropertiesSet();
+
+        ArgumentCaptor<Role> saved = ArgumentCaptor.forClass(Role.class);
+        verify(roleRepository, times(3)).saveAndFlush(saved.capture());
+        assertEquals(List.of("ADMIN:1", "AUDITOR:2", "SUPPORT:3"), saved.getAllValues().stream()
+                .map(role -> role.getName() + ":" + role.getBit())
+                .toList());
+        assertEquals(0b1010, registry.maskOfNames(List.of("ADMIN", "SUPPORT", "UNKNOWN")));
+    }
+
+    @Test
+    void shouldShareOneRoleSetPerMask() {
+        RoleRegistry registry = registry(role("USER", 0), role("ADMIN", 1));
+        Role userRole = registry.require("USER");
+
+        RoleSet fromEntities = registry.roleSetOf(Set.of(new Role(UUID.randomUUID(), "ADMIN"),
+                new Role(UUID.randomUUID(), "USER")));
+        RoleSet fromMask = registry.roleSet(0b11);
+
+        assertSame(fromEntities, fromMask);
+        assertSame(fromMask.authorities(), registry.roleSet(0b11).authorities());
+        assertTrue(fromMask.roles().contains(userRole));
+        assertEquals(Set.of("ROLE_USER", "ROLE_ADMIN"), Set.copyOf(fromMask.authorities().stream()
+                .map(authority -> authority.getAuthority()).toList()));
+        // bits no role owns are dropped
+        assertSame(registry.roleSet(0b01), registry.roleSet(0b101));
+        assertSame(RoleSet.NONE, registry.roleSet(0));
+    }
+
+    @Test
+    void shouldReadRolesFromTokenMaskOrLegacyNames() {
+        RoleRegistry registry = registry(role("USER", 0), role("ADMIN", 1));
+        Instant expiresAt = Instant.now().plusSeconds(60);
+
+        VerifiedToken withMask = new VerifiedToken("a@test.com", VerifiedToken.ACCESS, "jti", List.of("USER"), null,
+                expiresAt, 1L, null, 0b10L);
+        VerifiedToken legacy = new VerifiedToken("a@test.com", VerifiedToken.ACCESS, "jti", List.of("USER"), null,
+                expiresAt, 1L);
+
+        assertEquals(Set.of("ADMIN"), registry.roleSetOf(withMask).names());
+        assertEquals(Set.of("USER"), registry.roleSetOf(legacy).names());
+    }
+
+    @Test
+    void shouldCheckRolesOnMaskOrAuthorities() {
+        RoleRegistry registry = registry(role("USER", 0), role("ADMIN", 1));
+        User user = new User();
+        user.setEmail("a@test.com");
+        CustomUserDetails admin = new CustomUserDetails(user, registry.roleSet(0b10));
+        Authentication principal = new TestingAuthenticationToken(admin, null, List.copyOf(admin.getAuthorities()));
+        Authentication testUser = new TestingAuthenticationToken("b@test.com", null, "ROLE_USER");
+
+        assertTrue(registry.hasRole(principal, "ADMIN"));
+        assertFalse(registry.hasRole(principal, "USER"));
+        assertTrue(registry.hasRole(testUser, "USER"));
+        assertFalse(registry.hasRole(testUser, "ADMIN"));
+        assertTrue(registry.hasAnyRole(testUser, "ADMIN", "USER"));
+        assertFalse(registry.hasRole(principal, "GUEST"));
+        assertFalse(registry.hasRole(null, "USER"));
+    }
+
+    @Test
+    void shouldLoadNewRoleOnFirstRequire() {
+        List<Role> table = new ArrayList<>(List.of(role("USER", 0), role("ADMIN", 1)));
+        RoleRepository roleRepository = mock(RoleRepository.class);
+        when(roleRepository.findByName(anyString())).thenAnswer(invocation -> table.stream()
+                .filter(role -> role.getName().equals(invocation.getArgument(0)))
+                .findFirst());
+        when(roleRepository.findAll()).thenAnswer(invocation -> List.copyOf(table));
+        RoleRegistry registry = new RoleRegistry(roleRepository);
+        registry.afterPropertiesSet();
+
+        table.add(role("SUPPORT", 2));
+
+        assertEquals(2, registry.require("SUPPORT").getBit());
+        assertThrows(IllegalStateException.class, () -> registry.require("MISSING"));
+        verify(roleRepository, never()).saveAndFlush(any());
+    }
+}
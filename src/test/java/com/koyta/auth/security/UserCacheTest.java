@@ -0,0 +1,232 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.entities.Role;
+import com.koyta.auth.entities.User;
+import com.koyta.auth.entities.UserInvalidation;
+import com.koyta.auth.repositories.UserInvalidationRepository;
+import com.koyta.auth.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final UserInvalidationRepository invalidationRepository = mock(UserInvalidationRepository.class);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final RoleRegistry roleRegistry = RoleRegistryTest.registry(RoleRegistryTest.role("USER", 0));
+
+    private UserCache cache(int maxSize) {
+        return new UserCache(userRepository, invalidationRepository,
+                new UserCacheProperties(true, maxSize, Duration.ofMinutes(5), null, null), roleRegistry, clock::get);
+    }
+
+    private static User user(String email, long version) {
+        Role role = new Role(UUID.randomUUID(), "USER");
+        return User.builder()
+                .id(UUID.randomUUID())
+                .version(version)
+                .name("Test")
+                .email(email)
+                .password("hash")
+                .enable(true)
+                .roles(new HashSet<>(Set.of(role)))
+                .build();
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsByIdAndEmailFromOneLoad() {
+        UserCache cache = cache(100);
+        User user = user("alice@test.com", 3);
+        when(userRepository.findByEmail("alice@test.com")).thenReturn(Optional.of(user));
+
+        cache.findByEmail("alice@test.com");
+        User byEmail = cache.findByEmail(" Alice@Test.com ").orElseThrow();
+        User byId = cache.findById(user.getId()).orElseThrow();
+
+        verify(userRepository, times(1)).findByEmail(any());
+        verify(userRepository, never()).findById(any());
+        assertEquals(user.getId(), byId.getId());
+        assertEquals(3L, byEmail.getVersion());
+        assertEquals("USER", byEmail.getRoles().iterator().next().getName());
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void shouldHandOutCopiesThatCannotChangeTheCache() {
+        UserCache cache = cache(100);
+        User user = user("alice@test.com", 0);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        cache.findById(user.getId());
+        User copy = cache.findById(user.getId()).orElseThrow();
+        copy.setName("Changed");
+        copy.getRoles().clear();
+
+        User again = cache.findById(user.getId()).orElseThrow();
+        assertNotSame(copy, again);
+        assertEquals("Test", again.getName());
+        assertEquals(1, again.getRoles().size());
+    }
+
+    @Test
+    void shouldNotCacheMissingUsers() {
+        UserCache cache = cache(100);
+        when(userRepository.findByEmail("nobody@test.com")).thenReturn(Optional.empty());
+
+        assertTrue(cache.findByEmail("nobody@test.com").isEmpty());
+        assertTrue(cache.findByEmail("nobody@test.com").isEmpty());
+
+        verify(userRepository, times(2)).findByEmail("nobody@test.com");
+    }
+
+    @Test
+    void shouldReloadAfterTtl() {
+        UserCache cache = cache(100);
+        User user = user("alice@test.com", 0);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        cache.findById(user.getId());
+        clock.addAndGet(Duration.ofMinutes(5).plusSeconds(1).toNanos());
+        cache.findById(user.getId());
+
+        verify(userRepository, times(2)).findById(user.getId());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void shouldEvictAndRecordInvalidation() {
+        UserCache cache = cache(100);
+        User user = user("alice@test.com", 4);
+        when(userRepository.findByEmail("alice@test.com")).thenReturn(Optional.of(user));
+        cache.findByEmail("alice@test.com");
+
+        cache.invalidateUpTo(user.getId(), 4L);
+        cache.findByEmail("alice@test.com");
+
+        verify(userRepository, times(2)).findByEmail("alice@test.com");
+        ArgumentCaptor<UserInvalidation> row = ArgumentCaptor.forClass(UserInvalidation.class);
+        verify(invalidationRepository).save(row.capture());
+        assertEquals(user.getId(), row.getValue().getUserId());
+        assertEquals(4L, row.getValue().getStaleVersion());
+        assertNotNull(row.getValue().getCreatedAt());
+    }
+
+    @Test
+    void shouldApplyRemoteInvalidationOnlyToStaleVersions() {
+        UserCache cache = cache(100);
+        User user = user("alice@test.com", 5);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        cache.findById(user.getId());
+
+        // this node already loaded the version written after the change
+        cache.applyRemote(user.getId(), 4L);
+        cache.findById(user.getId());
+        verify(userRepository, times(1)).findById(user.getId());
+
+        cache.applyRemote(user.getId(), 5L);
+        cache.findById(user.getId());
+        verify(userRepository, times(2)).findById(user.getId());
+
+        cache.applyRemote(user.getId(), null);
+        cache.findById(user.getId());
+        verify(userRepository, times(3)).findById(user.getId());
+        verifyNoInteractions(invalidationRepository);
+    }
+
+    @Test
+    void shouldNotCacheLoadThatRacedAnInvalidation() {
+        UserCache cache = cache(100);
+        User user = user("alice@test.com", 1);
+        when(userRepository.findById(user.getId())).thenAnswer(invocation -> {
+            // the user changes while the old row is on its way back
+            cache.invalidateUpTo(user.getId(), 1L);
+            return Optional.of(user);
+        });
+
+        cache.findById(user.getId());
+        cache.findById(user.getId());
+
+        verify(userRepository, times(2)).findById(user.getId());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldMissWhenEmailMovedToAnotherUser() {
+        UserCache cache = cache(100);
+        User before = user("alice@test.com", 0);
+        when(userRepository.findByEmail("alice@test.com")).thenReturn(Optional.of(before));
+        cache.findByEmail("alice@test.com");
+
+        User renamed = user("alice.old@test.com", 1);
+        renamed.setId(before.getId());
+        when(userRepository.findById(before.getId())).thenReturn(Optional.of(renamed));
+        cache.invalidateUpTo(before.getId(), 0L);
+        cache.findById(before.getId());
+
+        User other = user("alice@test.com", 0);
+        when(userRepository.findByEmail("alice@test.com")).thenReturn(Optional.of(other));
+        assertEquals(other.getId(), cache.findByEmail("alice@test.com").orElseThrow().getId());
+    }
+
+    @Test
+    void shouldStayWithinMaxSize() {
+        UserCache cache = cache(32);
+        for (int i = 0; i < 100; i++) {
+            User user = user("user" + i + "@test.com", 0);
+            when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+            cache.findById(user.getId());
+        }
+
+        assertTrue(cache.size() <= 32);
+        assertTrue(cache.evictions() > 0);
+    }
+
+    @Test
+    void shouldPassThroughWhenDisabled() {
+        UserCache cache = new UserCache(userRepository, invalidationRepository,
+                new UserCacheProperties(false, null, null, null, null), roleRegistry, clock::get);
+        User user = user("alice@test.com", 0);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        cache.findById(user.getId());
+        cache.findById(user.getId());
+        cache.invalidateUpTo(user.getId(), 0L);
+
+        verify(userRepository, times(2)).findById(user.getId());
+        verifyNoInteractions(invalidationRepository);
+    }
+
+    @Test
+    void shouldExportHitRatio() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        UserCache cache = cache(100);
+        cache.bindTo(registry);
+        User user = user("alice@test.com", 0);
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+
+        for (int i = 0; i < 4; i++) {
+            cache.findById(user.getId());
+        }
+
+        assertEquals(3, registry.get("auth.user_cache.requests").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("auth.user_cache.requests").tag("result", "miss").functionCounter().count());
+        assertEquals(0.75, registry.get("auth.user_cache.hit_ratio").gauge().value());
+        assertEquals(1, registry.get("auth.user_cache.size").gauge().value());
+    }
+}
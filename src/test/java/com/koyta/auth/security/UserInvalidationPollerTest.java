@@ -0,0 +1,141 @@
+package com.koyta.auth.security;
+
+import com.koyta.auth.entities.User;
+import com.koyta.auth.entities.UserInvalidation;
+import com.koyta.auth.repositories.UserInvalidationRepository;
+import com.koyta.auth.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class UserInvalidationPollerTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    private final UserInvalidationRepository invalidationRepository = mock(UserInvalidationRepository.class);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    // rows visible in the table, in id order
+    private final List<UserInvalidation> table = new ArrayList<>();
+
+    private UserCache cache;
+
+    private UserVersionWatermark watermark;
+
+    private UserInvalidationPoller poller;
+
+    @BeforeEach
+    void setup() {
+        UserCacheProperties properties = new UserCacheProperties(true, 100, Duration.ofMinutes(5), null, null);
+        cache = new UserCache(userRepository, invalidationRepository, properties, RoleRegistryTest.registry(),
+                clock::get);
+        when(invalidationRepository.findMaxId()).thenReturn(10L);
+        when(invalidationRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            return table.stream().filter(row -> row.getId() > after).toList();
+        });
+        watermark = new UserVersionWatermark(3600);
+        poller = new UserInvalidationPoller(invalidationRepository, cache, watermark, properties, clock::get);
+        poller.afterPropertiesSet();
+    }
+
+    private User cached() {
+        User user = User.builder().id(UUID.randomUUID()).version(2L).email(UUID.randomUUID() + "@test.com").build();
+        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+        cache.findById(user.getId());
+        return user;
+    }
+
+    private void commit(long id, UUID userId, Long staleVersion) {
+        table.add(new UserInvalidation(id, userId, staleVersion, Instant.now()));
+        table.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+    }
+
+    private boolean isCached(User user) {
+        long misses = cache.misses();
+        cache.findById(user.getId());
+        return cache.misses() == misses;
+    }
+
+    @Test
+    void shouldStartFromNewestRowAndApplyLaterOnes() {
+        User user = cached();
+        commit(9, user.getId(), null);
+
+        assertEquals(0, poller.poll());
+        assertTrue(isCached(user));
+
+        commit(11, user.getId(), 2L);
+        assertEquals(1, poller.poll());
+        assertFalse(isCached(user));
+        assertEquals(11, poller.watermark());
+
+        // already applied
+        assertEquals(0, poller.poll());
+    }
+
+    @Test
+    void shouldDistrustTokensInvalidatedOnAnotherNode() {
+        UUID userId = UUID.randomUUID();
+        VerifiedToken token = new VerifiedToken("user@test.com", VerifiedToken.ACCESS, "jti", List.of("USER"),
+                userId.toString(), Instant.now().plusSeconds(3601), 2L);
+        assertTrue(watermark.isCurrent(token));
+
+        commit(11, userId, 2L);
+        poller.poll();
+
+        assertFalse(watermark.isCurrent(token));
+    }
+
+    @Test
+    void shouldApplyRowThatCommitsAfterAHigherOne() {
+        User first = cached();
+        User second = cached();
+
+        commit(12, second.getId(), null);
+        assertEquals(1, poller.poll());
+        assertEquals(10, poller.watermark());
+
+        commit(11, first.getId(), null);
+        assertEquals(1, poller.poll());
+        assertFalse(isCached(first));
+        assertEquals(12, poller.watermark());
+    }
+
+    @Test
+    void shouldGiveUpOnMissingIdAfterGracePeriod() {
+        User user = cached();
+        commit(13, user.getId(), null);
+        poller.poll();
+        assertEquals(10, poller.watermark());
+
+        clock.addAndGet(Duration.ofMinutes(2).toNanos());
+        poller.poll();
+
+        assertEquals(13, poller.watermark());
+    }
+
+    @Test
+    void shouldPurgeOldRowsPeriodically() {
+        poller.poll();
+        verify(invalidationRepository, never()).deleteCreatedBefore(any());
+
+        clock.addAndGet(Duration.ofMinutes(11).toNanos());
+        poller.poll();
+
+        verify(invalidationRepository).deleteCreatedBefore(any());
+    }
+}
@@ -0,0 +1,114 @@
+package com.koyta.auth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserVersionWatermarkTest {
+
+    private final UserVersionWatermark watermark = new UserVersionWatermark(3600);
+
+    private VerifiedToken token(UUID userId, Long version, Instant issuedAt) {
+        return new VerifiedToken("user@test.com", VerifiedToken.ACCESS, "jti", List.of("USER"),
+                userId == null ? null : userId.toString(), issuedAt.plusSeconds(3600), version);
+    }
+
+    // issued after the watermark was created
+    private VerifiedToken token(UUID userId, Long version) {
+        return token(userId, version, Instant.now().plusSeconds(1));
+    }
+
+    @Test
+    void shouldTrustTokenWhenUserNeverChanged() {
+        assertTrue(watermark.isCurrent(token(UUID.randomUUID(), 0L)));
+    }
+
+    @Test
+    void shouldNotTrustTokenWithoutVersionOrUserId() {
+        assertFalse(watermark.isCurrent(token(UUID.randomUUID(), null)));
+        assertFalse(watermark.isCurrent(token(null, 1L)));
+    }
+
+    @Test
+    void shouldDistrustTokensIssuedBeforeChange() {
+        UUID userId = UUID.randomUUID();
+
+        watermark.invalidateUpTo(userId, 2L);
+
+        assertFalse(watermark.isCurrent(token(userId, 1L)));
+        assertFalse(watermark.isCurrent(token(userId, 2L)));
+        assertTrue(watermark.isCurrent(token(userId, 3L)));
+    }
+
+    @Test
+    void shouldNeverLowerTheWatermark() {
+        UUID userId = UUID.randomUUID();
+
+        watermark.invalidateUpTo(userId, 5L);
+        watermark.invalidateUpTo(userId, 1L);
+
+        assertFalse(watermark.isCurrent(token(userId, 4L)));
+    }
+
+    @Test
+    void shouldDistrustEveryTokenOfDeletedUser() {
+        UUID userId = UUID.randomUUID();
+
+        watermark.invalidateUpTo(userId, null);
+
+        assertFalse(watermark.isCurrent(token(userId, Long.MAX_VALUE - 1)));
+    }
+
+    @Test
+    void shouldDropMarksOnceAccessTokensExpired() throws InterruptedException {
+        UserVersionWatermark shortLived = new UserVersionWatermark(0);
+        UUID userId = UUID.randomUUID();
+
+        shortLived.invalidateUpTo(userId, 2L);
+        Thread.sleep(5);
+
+        assertTrue(shortLived.isCurrent(token(userId, 1L)));
+        shortLived.purgeExpired();
+        assertEquals(0, shortLived.size());
+    }
+
+    @Test
+    void shouldDistrustTokensIssuedBeforeDroppedMarksWhenFull() throws InterruptedException {
+        UserVersionWatermark small = new UserVersionWatermark(3600, 4);
+        UUID dropped = UUID.randomUUID();
+        Thread.sleep(5);
+        Instant issuedAt = Instant.now();
+        Thread.sleep(5);
+
+        small.invalidateUpTo(dropped, 2L);
+        Thread.sleep(5);
+        for (int i = 0; i < 4; i++) {
+            small.invalidateUpTo(UUID.randomUUID(), 1L);
+        }
+
+        assertTrue(small.size() <= 4);
+        // the mark is gone, but the token predates it and may be stale
+        assertFalse(small.isCurrent(token(dropped, 1L, issuedAt)));
+        assertFalse(small.isCurrent(token(UUID.randomUUID(), 1L, issuedAt)));
+        assertTrue(small.isCurrent(token(UUID.randomUUID(), 1L)));
+    }
+
+    @Test
+    void shouldNotTrustTokensIssuedBeforeRestart() throws InterruptedException {
+        UUID userId = UUID.randomUUID();
+        Instant issuedAt = Instant.now();
+        // the user was disabled on the old node, whose marks are lost with the restart
+        watermark.invalidateUpTo(userId, 2L);
+        Thread.sleep(5);
+
+        UserVersionWatermark restarted = new UserVersionWatermark(3600);
+
+        assertFalse(restarted.isCurrent(token(userId, 2L, issuedAt)));
+        assertFalse(restarted.isCurrent(token(UUID.randomUUID(), 0L, issuedAt)));
+        assertTrue(restarted.isCurrent(token(userId, 3L)));
+    }
+}
@@ -0,0 +1,90 @@
+package com.koyta.auth.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private VerifiedToken verified(Instant expiresAt) {
+        return new VerifiedToken("user@test.com", VerifiedToken.ACCESS, "jti", List.of("USER"), null, expiresAt, 1L);
+    }
+
+    @Test
+    void shouldReturnCachedTokenAndCountHits() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        VerifiedToken token = verified(Instant.now().plusSeconds(60));
+
+        assertNull(cache.get("a.b.c"));
+        cache.put("a.b.c", token);
+
+        assertSame(token, cache.get("a.b.c"));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void shouldMissForDifferentSignature() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("a.b.c", verified(Instant.now().plusSeconds(60)));
+
+        assertNull(cache.get("a.b.x"));
+    }
+
+    @Test
+    void shouldDropEntryAtExpiry() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("a.b.c", verified(Instant.now().plusMillis(20)));
+
+        Thread.sleep(40);
+
+        assertNull(cache.get("a.b.c"));
+        assertEquals(1, cache.evictions());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldNotCacheExpiredToken() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        cache.put("a.b.c", verified(Instant.now().minusSeconds(1)));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void shouldStayWithinMaxSize() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(32);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put("token-" + i, verified(Instant.now().plusSeconds(60)));
+        }
+
+        assertTrue(cache.size() <= 32);
+        assertTrue(cache.evictions() > 0);
+    }
+
+    @Test
+    void shouldDoNothingWhenDisabled() {
+        VerifiedTokenCache cache = VerifiedTokenCache.disabled();
+        cache.put("a.b.c", verified(Instant.now().plusSeconds(60)));
+
+        assertNull(cache.get("a.b.c"));
+        assertEquals(0, cache.misses());
+    }
+
+    @Test
+    void shouldPublishCounters() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.get("a.b.c");
+
+        assertEquals(1.0, registry.get("auth.jwt.verified_cache.requests").tag("result", "miss")
+                .functionCounter().count());
+    }
+}
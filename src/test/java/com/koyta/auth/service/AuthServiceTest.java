@@ -7,27 +7,37 @@ import com.koyta.auth.dtos.UserDto;
 import com.koyta.auth.entities.RefreshToken;
 import com.koyta.auth.entities.User;
 import com.koyta.auth.exceptions.AuthenticationFailedException;
-import com.koyta.auth.repositories.RefreshTokenRepository;
+import com.koyta.auth.exceptions.LoginThrottledException;
+import com.koyta.auth.mappers.UserMapper;
+import com.koyta.auth.mappers.UserMapperImpl;
+import com.koyta.auth.repositories.RefreshTokenStore;
 import com.koyta.auth.security.CookieService;
+import com.koyta.auth.security.LoginThrottle;
+import com.koyta.auth.security.PasswordUpgrader;
+import com.koyta.auth.security.UserCache;
 import com.koyta.auth.security.CustomUserDetails;
+import com.koyta.auth.security.VerifiedToken;
 import com.koyta.auth.services.JwtService;
 import com.koyta.auth.services.UserService;
 import com.koyta.auth.services.impl.AuthServiceImpl;
+import com.koyta.auth.util.IdGenerator;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
 
@@ -43,9 +53,12 @@ class AuthServiceEdgeTest {
     @Mock private AuthenticationManager authenticationManager;
     @Mock private PasswordEncoder passwordEncoder;
     @Mock private JwtService jwtService;
-    @Mock private ModelMapper modelMapper;
-    @Mock private RefreshTokenRepository refreshTokenRepository;
+    @Spy private UserMapper userMapper = new UserMapperImpl();
+    @Mock private RefreshTokenStore refreshTokenStore;
+    @Mock private UserCache userCache;
     @Mock private CookieService cookieService;
+    @Mock private PasswordUpgrader passwordUpgrader;
+    @Mock private LoginThrottle loginThrottle;
 
     @Mock
     private HttpServletRequest request;
@@ -69,9 +82,14 @@ class AuthServiceEdgeTest {
                 jwtService,
                 3600L,
                 1209600L,
-                modelMapper,
-                refreshTokenRepository,
-                cookieService
+                10L,
+                userMapper,
+                refreshTokenStore,
+                userCache,
+                cookieService,
+                IdGenerator.timeOrdered(),
+                passwordUpgrader,
+                loginThrottle
         );
 
         user = new User();
@@ -89,6 +107,16 @@ class AuthServiceEdgeTest {
         loginRequest = new LoginRequest("test@test.com", "password123");
     }
 
+    private static VerifiedToken refreshClaims(String jti, String subject, String familyId) {
+        return new VerifiedToken(subject, VerifiedToken.REFRESH, jti, null, null,
+                Instant.now().plusSeconds(1000), null, familyId, null);
+    }
+
+    private static VerifiedToken accessClaims() {
+        return new VerifiedToken("test@test.com", VerifiedToken.ACCESS, "jti123", null, null,
+                Instant.now().plusSeconds(1000), null);
+    }
+
     // =========================
     // ❌ INVALID INPUT
     // =========================
@@ -113,17 +141,17 @@ class AuthServiceEdgeTest {
         when(cookieService.readRefreshTokenFromRequest(any(), any()))
                 .thenReturn(Optional.of("validToken"));
 
-        when(jwtService.isRefreshToken(any())).thenReturn(true);
-        when(jwtService.getJti(any())).thenReturn("jti123");
-        when(jwtService.getUserId(any())).thenReturn("test@test.com");
+        when(jwtService.verify(any())).thenReturn(refreshClaims("jti123", "test@test.com", null));
 
-        when(refreshTokenRepository.findByJti("jti123"))
-                .thenReturn(Optional.of(refreshToken));
+        when(refreshTokenStore.revokeForRotation(eq("jti123"), eq("test@test.com"), anyString(), any()))
+                .thenReturn(true);
+        when(userCache.findByEmail("test@test.com")).thenReturn(Optional.of(user));
 
         assertDoesNotThrow(() ->
                 authService.readRefreshTokenRequest(null, request, response));
 
-        verify(refreshTokenRepository, atLeastOnce()).save(any());
+        verify(refreshTokenStore, atLeastOnce()).save(any());
+        verify(jwtService, times(1)).verify("validToken"); // claims are read from the one verified token
     }
 
     // =========================
@@ -136,7 +164,7 @@ class AuthServiceEdgeTest {
         when(cookieService.readRefreshTokenFromRequest(any(), any()))
                 .thenReturn(Optional.of("token"));
 
-        when(jwtService.isRefreshToken(any())).thenReturn(false);
+        when(jwtService.verify(any())).thenReturn(accessClaims());
 
         assertThrows(Exception.class, () ->
                 authService.readRefreshTokenRequest(null, request, response));
@@ -148,50 +176,60 @@ class AuthServiceEdgeTest {
         when(cookieService.readRefreshTokenFromRequest(any(), any()))
                 .thenReturn(Optional.of("token"));
 
-        when(jwtService.isRefreshToken(any())).thenReturn(true);
-        when(jwtService.getJti(any())).thenReturn("jti123");
+        when(jwtService.verify(any())).thenReturn(refreshClaims("jti123", "test@test.com", null));
 
-        when(refreshTokenRepository.findByJti("jti123"))
-                .thenReturn(Optional.empty());
+        when(refreshTokenStore.revokeForRotation(eq("jti123"), eq("test@test.com"), anyString(), any()))
+                .thenReturn(false);
 
-        assertThrows(Exception.class, () ->
+        assertThrows(BadCredentialsException.class, () ->
                 authService.readRefreshTokenRequest(null, request, response));
+
+        verify(refreshTokenStore, never()).save(any());
+        verify(refreshTokenStore, never()).revokeFamily(any()); // token without family claim
     }
 
     @Test
-    void shouldFailWhenTokenRevoked() {
-
-        refreshToken.setRevoked(true);
+    void shouldRevokeWholeFamilyWhenRotatedTokenIsReplayed() {
 
         when(cookieService.readRefreshTokenFromRequest(any(), any()))
                 .thenReturn(Optional.of("token"));
 
-        when(jwtService.isRefreshToken(any())).thenReturn(true);
-        when(jwtService.getJti(any())).thenReturn("jti123");
+        when(jwtService.verify(any())).thenReturn(refreshClaims("jti123", "test@test.com", "family1"));
 
-        when(refreshTokenRepository.findByJti("jti123"))
-                .thenReturn(Optional.of(refreshToken));
+        when(refreshTokenStore.revokeForRotation(eq("jti123"), eq("test@test.com"), anyString(), any()))
+                .thenReturn(false);
+        refreshToken.setRevoked(true);
+        refreshToken.setReplacedByToken("jti456");
+        refreshToken.setRevokedAt(Instant.now().minusSeconds(60));
+        when(refreshTokenStore.findByJti("jti123")).thenReturn(Optional.of(refreshToken));
+        when(refreshTokenStore.revokeFamily("family1")).thenReturn(3);
 
-        assertThrows(Exception.class, () ->
+        assertThrows(BadCredentialsException.class, () ->
                 authService.readRefreshTokenRequest(null, request, response));
+
+        verify(refreshTokenStore).revokeFamily("family1");
+        verify(refreshTokenStore, never()).save(any());
     }
 
     @Test
-    void shouldFailWhenTokenExpired() {
-
-        refreshToken.setExpiresAt(Instant.now().minusSeconds(10));
+    void shouldNotRevokeFamilyWhenConcurrentRefreshOfSameTokenLost() {
 
         when(cookieService.readRefreshTokenFromRequest(any(), any()))
                 .thenReturn(Optional.of("token"));
 
-        when(jwtService.isRefreshToken(any())).thenReturn(true);
-        when(jwtService.getJti(any())).thenReturn("jti123");
+        when(jwtService.verify(any())).thenReturn(refreshClaims("jti123", "test@test.com", "family1"));
 
-        when(refreshTokenRepository.findByJti("jti123"))
-                .thenReturn(Optional.of(refreshToken));
+        when(refreshTokenStore.revokeForRotation(eq("jti123"), eq("test@test.com"), anyString(), any()))
+                .thenReturn(false);
+        refreshToken.setRevoked(true);
+        refreshToken.setReplacedByToken("jti456");
+        refreshToken.setRevokedAt(Instant.now());
+        when(refreshTokenStore.findByJti("jti123")).thenReturn(Optional.of(refreshToken));
 
-        assertThrows(Exception.class, () ->
+        assertThrows(BadCredentialsException.class, () ->
                 authService.readRefreshTokenRequest(null, request, response));
+
+        verify(refreshTokenStore, never()).revokeFamily(any());
     }
 
     @Test
@@ -200,15 +238,16 @@ class AuthServiceEdgeTest {
         when(cookieService.readRefreshTokenFromRequest(any(), any()))
                 .thenReturn(Optional.of("token"));
 
-        when(jwtService.isRefreshToken(any())).thenReturn(true);
-        when(jwtService.getJti(any())).thenReturn("jti123");
-        when(jwtService.getUserId(any())).thenReturn("wrong@test.com");
+        when(jwtService.verify(any())).thenReturn(refreshClaims("jti123", "wrong@test.com", null));
 
-        when(refreshTokenRepository.findByJti("jti123"))
-                .thenReturn(Optional.of(refreshToken));
+        // the owner check is part of the UPDATE, so a foreign token matches no row
+        when(refreshTokenStore.revokeForRotation(eq("jti123"), eq("wrong@test.com"), anyString(), any()))
+                .thenReturn(false);
 
-        assertThrows(Exception.class, () ->
+        assertThrows(BadCredentialsException.class, () ->
                 authService.readRefreshTokenRequest(null, request, response));
+
+        verify(userCache, never()).findByEmail(any());
     }
 
     @Test
@@ -220,7 +259,7 @@ class AuthServiceEdgeTest {
         when(authenticationManager.authenticate(any())).thenReturn(auth);
 
         assertThrows(AuthenticationFailedException.class,
-                () -> authService.login(loginRequest, response));
+                () -> authService.login(loginRequest, request, response));
     }
 
     @Test
@@ -239,7 +278,7 @@ class AuthServiceEdgeTest {
                 .thenThrow(new RuntimeException("JWT error"));
 
         assertThrows(RuntimeException.class,
-                () -> authService.login(loginRequest, response));
+                () -> authService.login(loginRequest, request, response));
     }
 
     @Test
@@ -248,17 +287,24 @@ class AuthServiceEdgeTest {
         when(cookieService.readRefreshTokenFromRequest(any(), any()))
                 .thenReturn(Optional.of("token"));
 
-        when(jwtService.isRefreshToken(any())).thenReturn(true);
-        when(jwtService.getJti(any())).thenReturn("jti123");
-        when(jwtService.getUserId(any())).thenReturn("test@test.com");
+        when(jwtService.verify(any())).thenReturn(refreshClaims("jti123", "test@test.com", null));
 
-        when(refreshTokenRepository.findByJti("jti123"))
-                .thenReturn(Optional.of(refreshToken));
+        when(refreshTokenStore.revokeForRotation(eq("jti123"), eq("test@test.com"), anyString(), any()))
+                .thenReturn(true);
+        when(userCache.findByEmail("test@test.com")).thenReturn(Optional.of(user));
 
         authService.readRefreshTokenRequest(null, request, response);
 
-        assertTrue(refreshToken.isRevoked());
-        assertNotNull(refreshToken.getReplacedByToken()); // 🔥 important
+        // the new row carries the jti the old row was marked as replaced by
+        ArgumentCaptor<String> replacedBy = ArgumentCaptor.forClass(String.class);
+        verify(refreshTokenStore).revokeForRotation(eq("jti123"), eq("test@test.com"), replacedBy.capture(), any());
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenStore).save(saved.capture());
+        assertEquals(replacedBy.getValue(), saved.getValue().getJti());
+        assertEquals("jti123", saved.getValue().getFamilyId()); // chain started by a pre-family token
+        assertFalse(saved.getValue().isRevoked());
+        assertSame(user, saved.getValue().getUser()); // 🔥 important
     }
 
     @Test
@@ -281,16 +327,14 @@ class AuthServiceEdgeTest {
         when(jwtService.generateAccessToken(any())).thenReturn("access");
         when(jwtService.generateRefreshToken(any(), any())).thenReturn("refresh");
 
-        when(modelMapper.map(any(), eq(UserDto.class)))
-                .thenReturn(new UserDto());
-
-        TokenResponse res = authService.login(loginRequest, response);
+        TokenResponse res = authService.login(loginRequest, request, response);
 
         assertNotNull(res);
 
-        verify(refreshTokenRepository).save(any());
+        verify(refreshTokenStore).save(any());
         verify(cookieService).attachRefreshCookie(eq(response), eq("refresh"), anyInt());
         verify(cookieService).addNoStoreHeader(response);
+        verify(passwordUpgrader).upgradeIfNeeded(user, "password123");
     }
 
     @Test
@@ -300,7 +344,7 @@ class AuthServiceEdgeTest {
                 .thenThrow(new DisabledException("disabled"));
 
         assertThrows(AuthenticationFailedException.class,
-                () -> authService.login(loginRequest, response));
+                () -> authService.login(loginRequest, request, response));
     }
 
     @Test
@@ -309,15 +353,14 @@ class AuthServiceEdgeTest {
         when(cookieService.readRefreshTokenFromRequest(any(), any()))
                 .thenReturn(Optional.of("token"));
 
-        when(jwtService.isRefreshToken(any())).thenReturn(true);
-        when(jwtService.getJti(any())).thenReturn("jti");
+        when(jwtService.verify(any())).thenReturn(refreshClaims("jti", "test@test.com", null));
 
-        when(refreshTokenRepository.findByJti("jti"))
+        when(refreshTokenStore.findByJti("jti"))
                 .thenReturn(Optional.empty());
 
         authService.logout(request, response);
 
-        verify(refreshTokenRepository, never()).save(any());
+        verify(refreshTokenStore, never()).save(any());
     }
 
     @Test
@@ -326,18 +369,14 @@ class AuthServiceEdgeTest {
         when(cookieService.readRefreshTokenFromRequest(any(), any()))
                 .thenReturn(Optional.of("token"));
 
-        when(jwtService.isRefreshToken(any())).thenReturn(true);
-        when(jwtService.getJti(any())).thenReturn("jti123");
-        when(jwtService.getUserId(any())).thenReturn("test@test.com");
+        when(jwtService.verify(any())).thenReturn(refreshClaims("jti123", "test@test.com", null));
 
-        when(refreshTokenRepository.findByJti("jti123"))
-                .thenReturn(Optional.of(refreshToken));
+        when(refreshTokenStore.revokeForRotation(eq("jti123"), eq("test@test.com"), anyString(), any()))
+                .thenReturn(true);
+        when(userCache.findByEmail("test@test.com")).thenReturn(Optional.of(user));
 
         when(jwtService.generateAccessToken(any())).thenReturn("access");
-        when(jwtService.generateRefreshToken(any(), any())).thenReturn("refresh");
-
-        when(modelMapper.map(any(), eq(UserDto.class)))
-                .thenReturn(new UserDto());
+        when(jwtService.generateRefreshToken(any(), any(), any())).thenReturn("refresh");
 
         TokenResponse res =
                 authService.readRefreshTokenRequest(null, request, response);
@@ -375,7 +414,7 @@ class AuthServiceEdgeTest {
                 .thenReturn(auth);
 
         assertThrows(AuthenticationFailedException.class,
-                () -> authService.login(loginRequest, response));
+                () -> authService.login(loginRequest, request, response));
     }
 
     @Test
@@ -396,7 +435,7 @@ class AuthServiceEdgeTest {
         when(cookieService.readRefreshTokenFromRequest(any(), any()))
                 .thenReturn(Optional.of("token"));
 
-        when(jwtService.isRefreshToken(any()))
+        when(jwtService.verify(any()))
                 .thenThrow(new JwtException("error"));
 
         assertDoesNotThrow(() ->
@@ -425,15 +464,12 @@ class AuthServiceEdgeTest {
         when(jwtService.generateRefreshToken(any(), any()))
                 .thenReturn("refresh");
 
-        when(modelMapper.map(any(), eq(UserDto.class)))
-                .thenReturn(new UserDto());
-
         TokenResponse responseObj =
-                authService.login(loginRequest, response);
+                authService.login(loginRequest, request, response);
 
         assertNotNull(responseObj);
 
-        verify(refreshTokenRepository).save(any()); // refresh token saved
+        verify(refreshTokenStore).save(any()); // refresh token saved
         verify(cookieService).attachRefreshCookie(eq(response), eq("refresh"), anyInt());
         verify(cookieService).addNoStoreHeader(response);
     }
@@ -445,7 +481,20 @@ class AuthServiceEdgeTest {
                 .thenThrow(new BadCredentialsException("bad"));
 
         assertThrows(AuthenticationFailedException.class,
-                () -> authService.login(loginRequest, response));
+                () -> authService.login(loginRequest, request, response));
+        verify(loginThrottle).recordFailure("test@test.com");
+    }
+
+    @Test
+    void shouldNotAuthenticateWhenLoginThrottled() {
+
+        when(loginThrottle.clientIp(request)).thenReturn("10.0.0.1");
+        doThrow(new LoginThrottledException("slow down", Duration.ofMinutes(1)))
+                .when(loginThrottle).checkAttempt("10.0.0.1", "test@test.com");
+
+        assertThrows(LoginThrottledException.class,
+                () -> authService.login(loginRequest, request, response));
+        verifyNoInteractions(authenticationManager);
     }
 
     @Test
@@ -455,7 +504,7 @@ class AuthServiceEdgeTest {
                 .thenThrow(new DisabledException("disabled"));
 
         assertThrows(AuthenticationFailedException.class,
-                () -> authService.login(loginRequest, response));
+                () -> authService.login(loginRequest, request, response));
     }
 
     @Test
@@ -478,14 +527,11 @@ class AuthServiceEdgeTest {
         when(jwtService.generateAccessToken(any())).thenReturn("access");
         when(jwtService.generateRefreshToken(any(), any())).thenReturn("refresh");
 
-        when(modelMapper.map(any(), eq(UserDto.class)))
-                .thenReturn(new UserDto());
-
-        TokenResponse res = authService.login(loginRequest, response);
+        TokenResponse res = authService.login(loginRequest, request, response);
 
         assertNotNull(res);
 
-        verify(refreshTokenRepository).save(any());
+        verify(refreshTokenStore).save(any());
         verify(cookieService).attachRefreshCookie(eq(response), eq("refresh"), anyInt());
         verify(cookieService).addNoStoreHeader(response);
     }
@@ -496,11 +542,11 @@ class AuthServiceEdgeTest {
         when(cookieService.readRefreshTokenFromRequest(any(), any()))
                 .thenReturn(Optional.of("token"));
 
-        when(jwtService.isRefreshToken(any())).thenReturn(false);
+        when(jwtService.verify(any())).thenReturn(accessClaims());
 
         authService.logout(request, response);
 
-        verify(refreshTokenRepository, never()).save(any());
+        verify(refreshTokenStore, never()).save(any());
     }
 
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.koyta.auth.service;
 
+import com.koyta.auth.entities.Role;
 import com.koyta.auth.entities.User;
 import com.koyta.auth.exceptions.JwtTokenExpiredException;
+import com.koyta.auth.security.VerifiedToken;
+import com.koyta.auth.security.VerifiedTokenCache;
 import com.koyta.auth.services.impl.JwtServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,6 +13,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -206,4 +211,96 @@ class JwtServiceTest {
         assertThrows(JwtTokenExpiredException.class,
                 () -> jwt.validateToken(token, userDetails));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldVerifyAccessTokenClaimsInOnePass() {
+
+        JwtServiceImpl jwt = new JwtServiceImpl(validSecret, 3600, 7200, "issuer");
+
+        UUID id = UUID.randomUUID();
+        User user = new User();
+        user.setId(id);
+        user.setEmail("test@test.com");
+        user.setRoles(Set.of(new Role(UUID.randomUUID(), "USER")));
+
+        VerifiedToken token = jwt.verify(jwt.generateAccessToken(user));
+
+        assertEquals("test@test.com", token.subject());
+        assertTrue(token.isAccessToken());
+        assertFalse(token.isRefreshToken());
+        assertNotNull(token.jti());
+        assertEquals(List.of("USER"), token.roles());
+        assertEquals(id.toString(), token.userId());
+        assertFalse(token.isExpired());
+    }
+
+    @Test
+    void shouldValidateVerifiedTokenAgainstUserDetails() {
+
+        JwtServiceImpl jwt = new JwtServiceImpl(validSecret, 3600, 7200, "issuer");
+
+        User user = new User();
+        user.setEmail("test@test.com");
+
+        VerifiedToken token = jwt.verify(jwt.generateRefreshToken(user, "jti123"));
+
+        UserDetails userDetails = mock(UserDetails.class);
+        when(userDetails.getUsername()).thenReturn("TEST@test.com");
+
+        assertTrue(token.isRefreshToken());
+        assertEquals("jti123", token.jti());
+        assertTrue(jwt.validateToken(token, userDetails));
+    }
+
+    @Test
+    void shouldCarryRotationFamilyInRefreshToken() {
+
+        JwtServiceImpl jwt = new JwtServiceImpl(validSecret, 3600, 7200, "issuer");
+
+        User user = new User();
+        user.setEmail("test@test.com");
+
+        assertEquals("jti123", jwt.verify(jwt.generateRefreshToken(user, "jti123")).family());
+        assertEquals("root", jwt.verify(jwt.generateRefreshToken(user, "jti456", "root")).family());
+        assertEquals("root", jwt.getFamilyId(jwt.generateRefreshToken(user, "jti789", "root")));
+    }
+
+    @Test
+    void shouldServeRepeatedVerifyFromCache() {
+
+        VerifiedTokenCache cache = new VerifiedTokenCache(100);
+        JwtServiceImpl jwt = new JwtServiceImpl(validSecret, 3600, 7200, "issuer", cache);
+
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("test@test.com");
+
+        String token = jwt.generateAccessToken(user);
+
+        VerifiedToken first = jwt.verify(token);
+        VerifiedToken second = jwt.verify(token);
+
+        assertSame(first, second);
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    void shouldNotServeTamperedTokenFromCache() {
+
+        VerifiedTokenCache cache = new VerifiedTokenCache(100);
+        JwtServiceImpl jwt = new JwtServiceImpl(validSecret, 3600, 7200, "issuer", cache);
+
+        User user = new User();
+        user.setId(UUID.randomUUID());
+        user.setEmail("test@test.com");
+
+        String token = jwt.generateAccessToken(user);
+        jwt.verify(token);
+
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThrows(JwtTokenExpiredException.class, () -> jwt.verify(tampered));
+        assertEquals(0, cache.hits());
+    }
+}
@@ -1,23 +1,40 @@
 package com.koyta.auth.service;
 
 import com.koyta.auth.dtos.UserDto;
+import com.koyta.auth.dtos.UserPage;
 import com.koyta.auth.entities.Provider;
 import com.koyta.auth.entities.Role;
 import com.koyta.auth.entities.User;
+import com.koyta.auth.exceptions.ExistDataException;
 import com.koyta.auth.exceptions.ResourceNotFoundException;
-import com.koyta.auth.repositories.RoleRepository;
+import com.koyta.auth.helpers.UserCursor;
+import com.koyta.auth.mappers.UserMapper;
+import com.koyta.auth.mappers.UserMapperImpl;
+import com.koyta.auth.repositories.RefreshTokenStore;
 import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.repositories.UserRoleRow;
+import com.koyta.auth.security.RoleRegistry;
+import com.koyta.auth.security.UserCache;
+import com.koyta.auth.security.UserVersionWatermark;
 import com.koyta.auth.services.impl.UserServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.modelmapper.ModelMapper;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,8 +44,11 @@ import static org.mockito.Mockito.*;
 public class UserServiceTest {
 
     @Mock private UserRepository userRepository;
-    @Mock private RoleRepository roleRepository;
-    @Mock private ModelMapper modelMapper;
+    @Mock private RoleRegistry roleRegistry;
+    @Spy private UserMapper userMapper = new UserMapperImpl();
+    @Mock private UserVersionWatermark userVersionWatermark;
+    @Mock private RefreshTokenStore refreshTokenStore;
+    @Mock private UserCache userCache;
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -45,7 +65,7 @@ public class UserServiceTest {
     @Test
     void shouldThrowWhenUserNotFoundByEmail() {
 
-        when(userRepository.findByEmail(any()))
+        when(userCache.findByEmail(any()))
                 .thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
@@ -53,12 +73,13 @@ public class UserServiceTest {
     }
 
     @Test
-    void shouldUpdateOnlyEnableWhenAllFieldsNull() {
+    void shouldKeepEnableWhenAllFieldsNull() {
 
         UUID id = UUID.randomUUID();
 
         User user = new User();
         user.setId(id);
+        user.setEnable(true);
 
         when(userRepository.findById(id))
                 .thenReturn(Optional.of(user));
@@ -71,7 +92,8 @@ public class UserServiceTest {
 
         userService.updateUser(dto, id.toString());
 
-        assertFalse(user.isEnable()); // 🔥 branch hit
+        assertTrue(user.isEnable());
+        verify(userCache).invalidateUpTo(id, null);
     }
 
     @Test
@@ -106,10 +128,28 @@ public class UserServiceTest {
                 () -> userService.deleteUser(UUID.randomUUID().toString()));
     }
 
+    @Test
+    void shouldDeleteRefreshTokensBeforeUser() {
+
+        UUID id = UUID.randomUUID();
+        User user = new User();
+        user.setId(id);
+
+        when(userRepository.findById(id))
+                .thenReturn(Optional.of(user));
+
+        userService.deleteUser(id.toString());
+
+        var order = inOrder(refreshTokenStore, userRepository);
+        order.verify(refreshTokenStore).deleteAllForUser(id);
+        order.verify(userRepository).delete(user);
+        verify(userCache).invalidateUpTo(id, null);
+    }
+
     @Test
     void shouldThrowWhenUserNotFoundById() {
 
-        when(userRepository.findById(any()))
+        when(userCache.findById(any()))
                 .thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
@@ -137,39 +177,47 @@ public class UserServiceTest {
     }
 
     @Test
-    void shouldUseExistingRoleWithoutSaving() {
+    void shouldAssignUserRoleFromRegistryWithoutQuery() {
 
         User user = new User();
         user.setEmail("test@test.com");
 
         Role role = new Role(UUID.randomUUID(), "USER");
 
-        when(userRepository.existsByEmail(any())).thenReturn(false);
-        when(roleRepository.findByName(any())).thenReturn(Optional.of(role));
-        when(userRepository.save(any())).thenReturn(user);
+        when(roleRegistry.require("USER")).thenReturn(role);
+        when(userRepository.saveAndFlush(any())).thenReturn(user);
 
         userService.createUser(user);
 
-        verify(roleRepository, never()).save(any()); // 🔥 critical
+        assertEquals(Set.of(role), user.getRoles());
+        assertTrue(user.isEnable());
+        verify(userRepository, never()).existsByEmail(any()); // the unique index decides
     }
 
     @Test
-    void shouldCreateRoleWhenNotExistsBranch() {
+    void shouldTranslateUniqueViolationToConflict() {
 
         User user = new User();
         user.setEmail("test@test.com");
 
-        when(userRepository.existsByEmail(any())).thenReturn(false);
-        when(roleRepository.findByName(any())).thenReturn(Optional.empty());
+        when(roleRegistry.require("USER")).thenReturn(new Role(UUID.randomUUID(), "USER"));
+        when(userRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException("duplicate", "23505"),
+                        ConstraintViolationException.ConstraintKind.UNIQUE, "users_email")));
 
-        Role role = new Role(UUID.randomUUID(), "USER");
+        assertThrows(ExistDataException.class, () -> userService.createUser(user));
+    }
 
-        when(roleRepository.save(any())).thenReturn(role);
-        when(userRepository.save(any())).thenReturn(user);
+    @Test
+    void shouldRethrowOtherIntegrityViolations() {
 
-        userService.createUser(user);
+        User user = new User();
+        user.setEmail("test@test.com");
 
-        verify(roleRepository).save(any()); // 🔥 second branch
+        when(roleRegistry.require("USER")).thenReturn(new Role(UUID.randomUUID(), "USER"));
+        when(userRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("fk"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> userService.createUser(user));
     }
 
     @Test
@@ -178,12 +226,9 @@ public class UserServiceTest {
         User user = new User();
         user.setEmail("test@test.com");
 
-        when(userRepository.findByEmail(any()))
+        when(userCache.findByEmail(any()))
                 .thenReturn(Optional.of(user));
 
-        when(modelMapper.map(any(), eq(UserDto.class)))
-                .thenReturn(new UserDto());
-
         UserDto dto = userService.getUserByEmail("test@test.com");
 
         assertNotNull(dto);
@@ -197,18 +242,19 @@ public class UserServiceTest {
     }
 
     @Test
-    void shouldUpdateProvider() {
+    void shouldNotUpdateProvider() {
 
         UUID id = UUID.randomUUID();
 
         User user = new User();
         user.setId(id);
+        user.setProvider(Provider.LOCAL);
 
         when(userRepository.findById(id)).thenReturn(Optional.of(user));
         when(userRepository.save(any())).thenReturn(user);
 
         UserDto dto = new UserDto();
-        dto.setProvider(Provider.LOCAL); // 🔥 missing
+        dto.setProvider(Provider.GOOGLE);
 
         userService.updateUser(dto, id.toString());
 
@@ -235,12 +281,13 @@ public class UserServiceTest {
     }
 
     @Test
-    void shouldUpdatePassword() {
+    void shouldNotUpdatePassword() {
 
         UUID id = UUID.randomUUID();
 
         User user = new User();
         user.setId(id);
+        user.setPassword("encoded");
 
         when(userRepository.findById(id)).thenReturn(Optional.of(user));
         when(userRepository.save(any())).thenReturn(user);
@@ -250,7 +297,7 @@ public class UserServiceTest {
 
         userService.updateUser(dto, id.toString());
 
-        assertEquals("newpass", user.getPassword());
+        assertEquals("encoded", user.getPassword());
     }
 
     @Test
@@ -269,13 +316,14 @@ public class UserServiceTest {
     }
 
     @Test
-    void shouldUpdateProviderWhenPresent() {
+    void shouldSaveWhenProviderPresent() {
 
         UUID id = UUID.randomUUID();
 
         User existingUser = new User();
         existingUser.setId(id);
         existingUser.setEmail("test@test.com");
+        existingUser.setProvider(Provider.LOCAL);
 
         when(userRepository.findById(eq(id)))
                 .thenReturn(Optional.of(existingUser));
@@ -283,15 +331,12 @@ public class UserServiceTest {
         when(userRepository.save(any(User.class)))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
-        when(modelMapper.map(any(), eq(UserDto.class)))
-                .thenReturn(new UserDto());
-
         UserDto dto = new UserDto();
         dto.setProvider(Provider.GOOGLE);
 
         userService.updateUser(dto, id.toString());
 
-        assertEquals(Provider.GOOGLE, existingUser.getProvider());
+        assertEquals(Provider.LOCAL, existingUser.getProvider());
 
         verify(userRepository).save(existingUser);
     }
@@ -311,9 +356,6 @@ public class UserServiceTest {
         when(userRepository.save(any()))
                 .thenReturn(existingUser);
 
-        when(modelMapper.map(any(), eq(UserDto.class)))
-                .thenReturn(new UserDto());
-
         UserDto dto = new UserDto();
         dto.setProvider(null);
 
@@ -335,18 +377,76 @@ public class UserServiceTest {
 
         when(userRepository.findAll()).thenReturn(List.of(user1, user2));
 
-        when(modelMapper.map(any(User.class), eq(UserDto.class)))
-                .thenAnswer(invocation -> {
-                    User u = invocation.getArgument(0);
-                    UserDto dto = new UserDto();
-                    dto.setEmail(u.getEmail());
-                    return dto;
-                });
-
         List<UserDto> result = userService.getAllUsers();
 
         assertEquals(2, result.size());
         assertEquals("a@test.com", result.get(0).getEmail());
     }
 
+    @Test
+    void shouldListPageInIdOrderWithNextCursor() {
+
+        User first = new User();
+        first.setId(UUID.randomUUID());
+        first.setEmail("a@test.com");
+        first.setCreatedAt(Instant.parse("2026-01-01T00:00:00Z"));
+        User second = new User();
+        second.setId(UUID.randomUUID());
+        second.setEmail("b@test.com");
+        second.setCreatedAt(Instant.parse("2026-01-02T00:00:00Z"));
+
+        when(userRepository.findPageIds(Instant.EPOCH, new UUID(0, 0), Provider.GOOGLE, true, "USER", Limit.of(3)))
+                .thenReturn(List.of(first.getId(), second.getId(), UUID.randomUUID()));
+        when(userRepository.findWithRolesByIdIn(List.of(first.getId(), second.getId())))
+                .thenReturn(List.of(second, first));
+        UserPage page = userService.listUsers(null, 2, Provider.GOOGLE, true, "USER");
+
+        assertEquals(List.of("a@test.com", "b@test.com"), page.items().stream().map(UserDto::getEmail).toList());
+        assertEquals(new UserCursor(second.getCreatedAt(), second.getId()), UserCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void shouldEndListingWithoutCursorOnLastPage() {
+
+        UserCursor after = new UserCursor(Instant.parse("2026-01-01T00:00:00Z"), UUID.randomUUID());
+        when(userRepository.findPageIds(after.createdAt(), after.id(), null, null, null, Limit.of(51)))
+                .thenReturn(List.of());
+
+        UserPage page = userService.listUsers(after.encode(), 50, null, null, null);
+
+        assertTrue(page.items().isEmpty());
+        assertNull(page.nextCursor());
+        verify(userRepository, never()).findWithRolesByIdIn(any());
+    }
+
+    @Test
+    void shouldRejectPageSizeOutOfRange() {
+
+        assertThrows(IllegalArgumentException.class, () -> userService.listUsers(null, 0, null, null, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.listUsers(null, UserServiceImpl.MAX_PAGE_SIZE + 1, null, null, null));
+    }
+
+    @Test
+    void shouldExportOneDtoPerUserFromRoleRows() {
+
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        UUID userRole = UUID.randomUUID();
+        UUID adminRole = UUID.randomUUID();
+        when(userRepository.streamWithRoles(null, true, null)).thenReturn(Stream.of(
+                new UserRoleRow(alice, "Alice", "a@test.com", null, true, Provider.LOCAL, userRole, "USER"),
+                new UserRoleRow(alice, "Alice", "a@test.com", null, true, Provider.LOCAL, adminRole, "ADMIN"),
+                new UserRoleRow(bob, "Bob", "b@test.com", null, true, Provider.GITHUB, null, null)));
+
+        List<UserDto> exported = new ArrayList<>();
+        long count = userService.exportUsers(null, true, null, exported::add);
+
+        assertEquals(2, count);
+        assertEquals(alice, exported.get(0).getId());
+        assertEquals(2, exported.get(0).getRoles().size());
+        assertEquals(Provider.GITHUB, exported.get(1).getProvider());
+        assertTrue(exported.get(1).getRoles().isEmpty());
+    }
+
 }
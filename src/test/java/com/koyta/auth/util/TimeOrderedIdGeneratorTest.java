@@ -0,0 +1,70 @@
+package com.koyta.auth.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdGeneratorTest {
+
+    private final IdGenerator generator = IdGenerator.timeOrdered();
+
+    @Test
+    void shouldProduceVersion7VariantRfcUuids() {
+        UUID id = generator.next();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+    }
+
+    @Test
+    void shouldEmbedCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = generator.next();
+        long after = System.currentTimeMillis();
+
+        long millis = id.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before && millis <= after + 1, "timestamp " + millis);
+    }
+
+    @Test
+    void shouldBeStrictlyIncreasingWithinThread() {
+        String previous = generator.nextString();
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            String next = generator.nextString();
+            // canonical strings of v7 UUIDs sort the same way as their timestamps and sequences
+            assertTrue(next.compareTo(previous) > 0, previous + " >= " + next);
+            assertTrue(seen.add(next));
+            previous = next;
+        }
+    }
+
+    @Test
+    void shouldStayUniqueAcrossShortLivedVirtualThreads() throws Exception {
+        Set<UUID> seen = ConcurrentHashMap.newKeySet();
+
+        try (ExecutorService requests = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10_000; i++) {
+                requests.submit(() -> seen.add(generator.next()));
+            }
+        }
+
+        assertEquals(10_000, seen.size());
+    }
+
+    @Test
+    void shouldResolveStrategyByName() {
+        assertEquals(7, IdGenerator.of("uuid7").next().version());
+        assertEquals(7, IdGenerator.of(null).next().version());
+        assertEquals(4, IdGenerator.of("random").next().version());
+        assertThrows(IllegalStateException.class, () -> IdGenerator.of("snowflake"));
+    }
+}
@@ -6,6 +6,8 @@ import com.koyta.auth.dtos.CreateAdminRequest;
 import com.koyta.auth.entities.Role;
 import com.koyta.auth.repositories.RoleRepository;
 import com.koyta.auth.repositories.UserRepository;
+import com.koyta.auth.security.RoleRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -36,6 +38,9 @@ public class AdminValidationTest {
     @Autowired
     private RoleRepository roleRepository;
 
+    @Autowired
+    private RoleRegistry roleRegistry;
+
     CreateAdminRequest validAdminRequest;
 
     @BeforeEach
@@ -45,6 +50,7 @@ public class AdminValidationTest {
 
         // ✅ EXACT SAME NAME as AppConstants.ADMIN
         roleRepository.save(new Role(null, "ADMIN"));
+        roleRegistry.reload();
 
         validAdminRequest = new CreateAdminRequest();
         validAdminRequest.setName("Admin User");
@@ -52,6 +58,12 @@ public class AdminValidationTest {
         validAdminRequest.setPassword("password123");
     }
 
+    // roles were deleted above; put the built-in ones back for the contexts sharing this database
+    @AfterEach
+    void restoreRoles() {
+        roleRegistry.reload();
+    }
+
     //    NAME VALIDATION
     @Test
     @WithMockUser(roles = "ADMIN")